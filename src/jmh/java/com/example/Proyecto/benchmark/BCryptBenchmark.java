@@ -0,0 +1,41 @@
+package com.example.Proyecto.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de BCrypt por factor de trabajo, sin la aplicación, como referencia para
+ * interpretar los tiempos de alta y login de UsuarioBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptBenchmark {
+
+    @Param({"8", "10", "12"})
+    public int coste;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(coste);
+        hash = encoder.encode("clave-segura");
+    }
+
+    @Benchmark
+    public String codificar() {
+        return encoder.encode("clave-segura");
+    }
+
+    @Benchmark
+    public boolean comprobar() {
+        return encoder.matches("clave-segura", hash);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.service.CacheCursos;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Petición GET /cursos completa (controlador, catálogo y renderizado Thymeleaf de cursos.html)
+ * con páginas de 100, 1.000 y 10.000 cursos, sirviendo el catálogo desde la caché de cursos
+ * y consultándolo de nuevo en cada petición. No pasa por la cadena de filtros de seguridad:
+ * el usuario autenticado se coloca directamente en el contexto de seguridad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int cursos;
+
+    private ConfigurableApplicationContext contexto;
+    private CacheCursos cacheCursos;
+    private MockMvc mockMvc;
+    private Authentication autenticacion;
+    private final CsrfToken csrf = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token-benchmark");
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar("benchmark_catalogo_" + cursos,
+                                              "cursos.catalogo.tamano-maximo=" + cursos);
+        cacheCursos = contexto.getBean(CacheCursos.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        List<Long> usuarioIds = ContextoBenchmark.crearUsuarios(jdbcTemplate, "alumno", 1);
+        List<Long> cursoIds = ContextoBenchmark.crearCursos(jdbcTemplate, cursos, 30);
+        // El usuario está inscrito en uno de cada diez cursos para que se rendericen ambos estados
+        for (int i = 0; i < cursoIds.size(); i += 10) {
+            ContextoBenchmark.inscribir(jdbcTemplate, cursoIds.get(i), usuarioIds);
+        }
+
+        UserDetails principal = contexto.getBean(UserDetailsService.class).loadUserByUsername("alumno0");
+        autenticacion = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int catalogoDesdeCache() throws Exception {
+        return renderizarCatalogo();
+    }
+
+    @Benchmark
+    public int catalogoSinCache() throws Exception {
+        cacheCursos.limpiar();
+        return renderizarCatalogo();
+    }
+
+    private int renderizarCatalogo() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+        MvcResult resultado = mockMvc.perform(get("/cursos")
+                .param("orden", "nombre")
+                .param("tamano", String.valueOf(cursos))
+                .requestAttr("_csrf", csrf)
+                .requestAttr(CsrfToken.class.getName(), csrf))
+            .andReturn();
+        if (resultado.getResponse().getStatus() != 200) {
+            throw new IllegalStateException("GET /cursos devolvió " + resultado.getResponse().getStatus());
+        }
+        return resultado.getResponse().getContentAsByteArray().length;
+    }
+}
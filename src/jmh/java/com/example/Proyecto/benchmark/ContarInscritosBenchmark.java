@@ -0,0 +1,64 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CursoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura del número de inscritos de un curso como la hacen las vistas, con
+ * CursoService.buscarResumen (contador desnormalizado), con cursos de distinto número de
+ * inscritos: desde la caché de cursos y consultando de nuevo la fila en cada lectura.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContarInscritosBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int inscritos;
+
+    private ConfigurableApplicationContext contexto;
+    private CursoService cursoService;
+    private CacheCursos cacheCursos;
+    private Long cursoId;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar("benchmark_contar_" + inscritos);
+        cursoService = contexto.getBean(CursoService.class);
+        cacheCursos = contexto.getBean(CacheCursos.class);
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+        List<Long> usuarioIds = ContextoBenchmark.crearUsuarios(jdbcTemplate, "alumno", inscritos);
+        // Un curso medido y otro con el mismo tamaño para que la tabla no contenga solo sus filas
+        List<Long> cursoIds = ContextoBenchmark.crearCursos(jdbcTemplate, 2, inscritos);
+        for (Long id : cursoIds) {
+            ContextoBenchmark.inscribir(jdbcTemplate, id, usuarioIds);
+        }
+        cursoId = cursoIds.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public long inscritosDesdeCache() {
+        return cursoService.buscarResumen(cursoId).orElseThrow().getInscritos();
+    }
+
+    @Benchmark
+    public long inscritosSinCache() {
+        cacheCursos.invalidarCurso(cursoId);
+        return cursoService.buscarResumen(cursoId).orElseThrow().getInscritos();
+    }
+}
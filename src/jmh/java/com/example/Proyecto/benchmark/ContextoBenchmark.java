@@ -0,0 +1,80 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.ProyectoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arranque de la aplicación y datos de prueba compartidos por los benchmarks JMH.
+ * Cada benchmark levanta su propio contexto sobre una base H2 en memoria independiente,
+ * con las tareas programadas retrasadas para que no compitan con la medición.
+ *
+ * Ejecución: mvn -Pbenchmark -DskipTests verify (resultados en target/jmh-result.json)
+ */
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext arrancar(String baseDatos, String... propiedades) {
+        // DevTools se configura antes de que se lean las propiedades de la aplicación
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> todas = new ArrayList<>(Arrays.asList(
+            "spring.datasource.url=jdbc:h2:mem:" + baseDatos + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "spring.jpa.show-sql=false",
+            "spring.devtools.livereload.enabled=false",
+            "spring.main.banner-mode=off",
+            "logging.level.root=WARN",
+            "server.port=0",
+            "cursos.inscritos.reconciliacion-inicial-ms=3600000",
+            "cursos.espera.promocion-inicial-ms=3600000",
+            "cursos.espera.barrido-inicial-ms=3600000"));
+        todas.addAll(Arrays.asList(propiedades));
+        return new SpringApplicationBuilder(ProyectoApplication.class)
+            .properties(todas.toArray(new String[0]))
+            .run();
+    }
+
+    /**
+     * Inserta usuarios "prefijo0".."prefijoN-1" y devuelve sus IDs en orden de alta
+     */
+    static List<Long> crearUsuarios(JdbcTemplate jdbcTemplate, String prefijo, int cantidad) {
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            usuarios.add(new Object[]{prefijo + i, "{noop}clave", prefijo + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        return jdbcTemplate.queryForList("select id from usuarios where username like ? order by id",
+                                         Long.class, prefijo + "%");
+    }
+
+    /**
+     * Inserta cursos vacíos con la capacidad indicada y devuelve sus IDs en orden de alta
+     */
+    static List<Long> crearCursos(JdbcTemplate jdbcTemplate, int cantidad, int capacidad) {
+        List<Object[]> cursos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            cursos.add(new Object[]{String.format("Curso %05d", i), "Instructor " + (i % 50), capacidad});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)", cursos);
+        return jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+    }
+
+    /**
+     * Inscribe a los usuarios en el curso y ajusta su contador de inscritos
+     */
+    static void inscribir(JdbcTemplate jdbcTemplate, Long cursoId, List<Long> usuarioIds) {
+        List<Object[]> inscripciones = new ArrayList<>();
+        for (Long usuarioId : usuarioIds) {
+            inscripciones.add(new Object[]{usuarioId, cursoId});
+        }
+        jdbcTemplate.batchUpdate("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                                 "values (next value for inscripciones_seq, ?, ?, current_timestamp)", inscripciones);
+        jdbcTemplate.update("update cursos set inscritos = inscritos + ? where id = ?", usuarioIds.size(), cursoId);
+    }
+}
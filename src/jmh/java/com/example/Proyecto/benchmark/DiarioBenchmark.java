@@ -0,0 +1,87 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.service.ProyeccionInscripciones;
+import com.example.Proyecto.util.DiarioEventos;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranque del diario de inscripciones: reproducir todos los eventos frente a cargar una
+ * instantánea y reproducir solo la cola. Sin la aplicación: solo el diario y los modelos.
+ * Los eventos son altas (75%) y bajas de pares al azar entre usuarios y cursos.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class DiarioBenchmark {
+
+    /** Segmentos de 64MB, como cursos.diario.tamano-segmento por defecto */
+    private static final int REGISTROS_POR_SEGMENTO = (64 << 20) / DiarioEventos.TAMANO_REGISTRO;
+
+    @Param({"10000000"})
+    public int eventos;
+
+    /** Eventos que quedan por reproducir después de la instantánea */
+    @Param({"1000000"})
+    public int cola;
+
+    @Param({"100000"})
+    public int usuarios;
+
+    @Param({"1000"})
+    public int cursos;
+
+    private Path directorio;
+    private Path instantanea;
+
+    @Setup(Level.Trial)
+    public void escribirDiario() throws IOException {
+        directorio = Files.createTempDirectory("benchmark-diario");
+        instantanea = directorio.resolve("instantanea.snap");
+        ProyeccionInscripciones proyeccion = new ProyeccionInscripciones();
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, REGISTROS_POR_SEGMENTO, 0, (tipo, a, b) -> { })) {
+            for (int i = 0; i < eventos; i++) {
+                int tipo = aleatorio.nextInt(4) == 0 ? ProyeccionInscripciones.BAJA : ProyeccionInscripciones.ALTA;
+                long usuarioId = 1 + aleatorio.nextInt(usuarios);
+                long cursoId = 1 + aleatorio.nextInt(cursos);
+                diario.anadir(tipo, usuarioId, cursoId);
+                proyeccion.aplicar(tipo, usuarioId, cursoId);
+                if (i == eventos - cola - 1) {
+                    ProyeccionInscripciones.guardarInstantanea(instantanea, i + 1, proyeccion.volcar());
+                }
+            }
+        }
+        System.out.printf("%nDiario: %d eventos, %d MB, %d pares al final%n", eventos,
+                          (long) eventos * DiarioEventos.TAMANO_REGISTRO >> 20, proyeccion.getPares());
+    }
+
+    @TearDown(Level.Trial)
+    public void borrarDiario() throws IOException {
+        FileSystemUtils.deleteRecursively(directorio);
+    }
+
+    @Benchmark
+    public long reproducirTodo() throws IOException {
+        ProyeccionInscripciones proyeccion = new ProyeccionInscripciones();
+        DiarioEventos.abrir(directorio, REGISTROS_POR_SEGMENTO, 0, proyeccion).close();
+        return proyeccion.getPares();
+    }
+
+    @Benchmark
+    public long instantaneaYCola() throws IOException {
+        ProyeccionInscripciones proyeccion = new ProyeccionInscripciones();
+        long desde = proyeccion.cargarInstantanea(instantanea);
+        DiarioEventos.abrir(directorio, REGISTROS_POR_SEGMENTO, desde, proyeccion).close();
+        return proyeccion.getPares();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.entity.Inscripcion;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InscripcionService.inscribirUsuario en modo síncrono: un solo hilo y varios hilos
+ * inscribiendo a la vez en el mismo curso (cerrojo del curso y fila del contador).
+ * Cada operación inscribe a un usuario distinto; las inscripciones se vacían en cada iteración.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InscripcionBenchmark {
+
+    private static final int USUARIOS = 20_000;
+    private static final int CURSOS = 20;
+
+    private ConfigurableApplicationContext contexto;
+    private InscripcionService inscripcionService;
+    private UsuarioService usuarioService;
+    private CursoService cursoService;
+    private CacheCursos cacheCursos;
+    private JdbcTemplate jdbcTemplate;
+    private List<Long> usuarioIds;
+    private List<Long> cursoIds;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar("benchmark_inscripcion");
+        inscripcionService = contexto.getBean(InscripcionService.class);
+        usuarioService = contexto.getBean(UsuarioService.class);
+        cursoService = contexto.getBean(CursoService.class);
+        cacheCursos = contexto.getBean(CacheCursos.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        usuarioIds = ContextoBenchmark.crearUsuarios(jdbcTemplate, "alumno", USUARIOS);
+        cursoIds = ContextoBenchmark.crearCursos(jdbcTemplate, CURSOS, USUARIOS);
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciarInscripciones() {
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("update cursos set inscritos = 0");
+        cacheCursos.limpiar();
+        siguiente.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Inscripcion inscribirSinContencion() {
+        return inscribirSiguiente();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Inscripcion inscribirConContencion() {
+        return inscribirSiguiente();
+    }
+
+    /**
+     * Inscribe al siguiente usuario libre; las operaciones consecutivas caen en el mismo curso
+     */
+    private Inscripcion inscribirSiguiente() {
+        int i = siguiente.getAndIncrement();
+        Long usuarioId = usuarioIds.get(i % USUARIOS);
+        Long cursoId = cursoIds.get((i / USUARIOS) % CURSOS);
+        return inscripcionService.inscribirUsuario(usuarioService.referenciaPorId(usuarioId),
+                                                   cursoService.referenciaPorId(cursoId));
+    }
+}
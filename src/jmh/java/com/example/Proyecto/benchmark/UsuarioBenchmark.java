@@ -0,0 +1,60 @@
+package com.example.Proyecto.benchmark;
+
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.service.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alta de usuarios (dominada por el coste de BCrypt del PasswordEncoder configurado)
+ * y carga del usuario en el login (UserDetailsServiceImpl.loadUserByUsername)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private UsuarioService usuarioService;
+    private UserDetailsService userDetailsService;
+    private final AtomicLong siguiente = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar("benchmark_usuario");
+        usuarioService = contexto.getBean(UsuarioService.class);
+        userDetailsService = contexto.getBean(UserDetailsService.class);
+        usuarioService.registrarUsuario(nuevoUsuario("ana"));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Usuario registrarUsuario() {
+        return usuarioService.registrarUsuario(nuevoUsuario("alumno" + siguiente.getAndIncrement()));
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername("ana");
+    }
+
+    private static Usuario nuevoUsuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("clave-segura");
+        usuario.setEmail(username + "@ejemplo.com");
+        return usuario;
+    }
+}
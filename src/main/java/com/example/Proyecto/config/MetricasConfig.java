@@ -0,0 +1,36 @@
+package com.example.Proyecto.config;
+
+import com.example.Proyecto.metricas.EstadisticasPorPeticion;
+import com.example.Proyecto.metricas.TiempoJdbcListener;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instrumentación de rendimiento: temporizadores de los métodos de servicio anotados con
+ * {@code @Timed} y estadísticas de Hibernate por petición (ver MetricasPeticionFilter).
+ */
+@Configuration
+public class MetricasConfig {
+
+    public MetricasConfig() {
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registro) {
+        return new TimedAspect(registro);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer estadisticasPorPeticion() {
+        return propiedades -> {
+            propiedades.put(StatisticsInitiator.STATS_BUILDER, (StatisticsFactory) EstadisticasPorPeticion::new);
+            propiedades.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, TiempoJdbcListener.class.getName());
+        };
+    }
+}
@@ -1,15 +1,24 @@
 package com.example.Proyecto.config;
 
+import com.example.Proyecto.service.CifradoSaturadoException;
+import com.example.Proyecto.service.CodificadorContrasenas;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
@@ -28,7 +37,7 @@ public class SecurityConfig {
             )            .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/cursos", true)
-                .failureUrl("/login?error")
+                .failureHandler(fallosLogin())
                 .permitAll()
             )            .logout(logout -> logout
                 .logoutUrl("/logout")
@@ -36,14 +45,35 @@ public class SecurityConfig {
                 .invalidateHttpSession(true)
                 .clearAuthentication(true)
                 .deleteCookies("JSESSIONID")
-                .permitAll());
+                .permitAll())
+            // API JSON: sin sesión válida responde 401 en lugar de redirigir al formulario de login
+            .exceptionHandling(errores -> errores
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                                                    new AntPathRequestMatcher("/api/**")));
 
         return http.build();
     }
 
+    /**
+     * BCrypt en un pool acotado: coste, hilos, cola y espera máxima configurables
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${cursos.contrasenas.coste:10}") int coste,
+                                           @Value("${cursos.contrasenas.hilos:2}") int hilos,
+                                           @Value("${cursos.contrasenas.capacidad-cola:50}") int capacidadCola,
+                                           @Value("${cursos.contrasenas.espera-maxima:5s}") Duration esperaMaxima,
+                                           MeterRegistry registro) {
+        return new CodificadorContrasenas(coste, hilos, capacidadCola, esperaMaxima, registro);
+    }
+
+    /**
+     * Credenciales incorrectas a /login?error; cifrado saturado a /login?ocupado
+     */
+    private static ExceptionMappingAuthenticationFailureHandler fallosLogin() {
+        ExceptionMappingAuthenticationFailureHandler fallos = new ExceptionMappingAuthenticationFailureHandler();
+        fallos.setDefaultFailureUrl("/login?error");
+        fallos.setExceptionMappings(Map.of(CifradoSaturadoException.class.getName(), "/login?ocupado"));
+        return fallos;
     }
 
     @Bean
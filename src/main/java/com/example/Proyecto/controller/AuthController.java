@@ -1,12 +1,15 @@
 package com.example.Proyecto.controller;
 
 import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.service.CifradoSaturadoException;
+import com.example.Proyecto.service.RegistroDuplicadoException;
 import com.example.Proyecto.service.UsuarioService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @Controller
@@ -30,14 +33,15 @@ public class AuthController {
     }
 
     @PostMapping("/registro")
-    public String registroSubmit(@Valid @ModelAttribute("usuario") Usuario usuario, BindingResult result) {
-        // Validaciones de negocio delegadas al servicio
+    public String registroSubmit(@Valid @ModelAttribute("usuario") Usuario usuario, BindingResult result,
+                                 HttpServletResponse response) {
+        // Validaciones de negocio delegadas al servicio (sin consulta si el filtro descarta el valor)
         if (usuarioService.existeUsername(usuario.getUsername())) {
-            result.rejectValue("username", "error.usuario", "El nombre de usuario ya existe");
+            rechazarUsername(result);
         }
         
         if (usuarioService.existeEmail(usuario.getEmail())) {
-            result.rejectValue("email", "error.usuario", "El correo ya está registrado");
+            rechazarEmail(result);
         }
 
         if (result.hasErrors()) {
@@ -45,7 +49,31 @@ public class AuthController {
         }
 
         // La lógica de encriptación y guardado está en el servicio
-        usuarioService.registrarUsuario(usuario);
+        try {
+            usuarioService.registrarUsuario(usuario);
+        } catch (RegistroDuplicadoException e) {
+            // Otro registro se adelantó: la restricción única lo detectó en el insert
+            if (e.isUsernameDuplicado()) {
+                rechazarUsername(result);
+            }
+            if (e.isEmailDuplicado()) {
+                rechazarEmail(result);
+            }
+            return "registro";
+        } catch (CifradoSaturadoException e) {
+            // El pool de cifrado está lleno: se rechaza al momento en lugar de esperar turno
+            result.reject("error.ocupado", e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return "registro";
+        }
         return "redirect:/login?registroExitoso";
     }
+
+    private static void rechazarUsername(BindingResult result) {
+        result.rejectValue("username", "error.usuario", "El nombre de usuario ya existe");
+    }
+
+    private static void rechazarEmail(BindingResult result) {
+        result.rejectValue("email", "error.usuario", "El correo ya está registrado");
+    }
 }
@@ -0,0 +1,140 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.dto.CampoCurso;
+import com.example.Proyecto.dto.CursoJson;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import com.example.Proyecto.dto.PaginaCursosJson;
+import com.example.Proyecto.service.AvisosPlazas;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.VersionesCursos;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * API JSON de solo lectura del catálogo, para clientes (móvil, quioscos) que hasta ahora leían
+ * el HTML de /cursos. Los datos salen de CursoResumen y de la caché de cursos, nunca de la
+ * entidad Curso, y las respuestas no dependen del usuario: no llevan token CSRF ni estado de
+ * inscripción, y una petición sin cambios se resuelve con 304 sin consultar nada.
+ * <ul>
+ *   <li>GET /api/cursos: página del catálogo (orden, tamano, despues, antes) o búsqueda (q)</li>
+ *   <li>GET /api/cursos?ids=1,2,3: varios cursos por ID en una sola consulta</li>
+ *   <li>GET /api/cursos/{id}: un curso</li>
+ *   <li>GET /api/cursos/plazas: avisos en vivo (Server-Sent Events) del número de inscritos</li>
+ * </ul>
+ * Las consultas admiten campos=id,plazasLibres,... para devolver solo esos campos.
+ */
+@RestController
+@RequestMapping("/api/cursos")
+public class CursoApiController {
+
+    private final CursoService cursoService;
+    private final VersionesCursos versiones;
+    private final AvisosPlazas avisosPlazas;
+    private final Duration duracionAvisos;
+
+    public CursoApiController(CursoService cursoService, VersionesCursos versiones, AvisosPlazas avisosPlazas,
+                              @Value("${cursos.avisos.duracion-maxima:30m}") Duration duracionAvisos) {
+        this.cursoService = cursoService;
+        this.versiones = versiones;
+        this.avisosPlazas = avisosPlazas;
+        this.duracionAvisos = duracionAvisos;
+    }
+
+    @GetMapping
+    public PaginaCursosJson listarCursos(@RequestParam(required = false) List<Long> ids,
+                                        @RequestParam(required = false) String orden,
+                                        @RequestParam(required = false) Integer tamano,
+                                        @RequestParam(required = false) String despues,
+                                        @RequestParam(required = false) String antes,
+                                        @RequestParam(required = false) String q,
+                                        @RequestParam(required = false) String campos,
+                                        ServletWebRequest peticion) {
+        Set<CampoCurso> seleccion = CampoCurso.desde(campos);
+        if (ValidacionCondicional.sinCambios(peticion, false, versiones.catalogo(), ids, orden, tamano, despues, antes, q, seleccion)) {
+            return null;
+        }
+
+        if (ids != null) {
+            List<Long> validos = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                if (id != null) {
+                    validos.add(id);
+                }
+            }
+            return PaginaCursosJson.de(cursoService.buscarResumenes(validos), seleccion);
+        }
+
+        // A diferencia de la página HTML, un cursor inválido es un error del cliente (400)
+        String consulta = q != null && !q.isBlank() ? q.trim() : null;
+        PaginaCatalogo pagina = consulta != null
+            ? cursoService.buscarCursos(consulta, tamano, despues, antes)
+            : cursoService.listarCatalogo(OrdenCatalogo.desde(orden), tamano, despues, antes);
+        return PaginaCursosJson.de(pagina, seleccion);
+    }
+
+    /**
+     * Flujo de eventos "plazas" con los cambios de inscritos, agrupados por ventanas:
+     * data: [{"cursoId":1,"inscritos":12},...]. La conexión se atiende con E/S asíncrona,
+     * sin ocupar un hilo; al llegar a la duración máxima se cierra y el cliente reconecta.
+     */
+    @GetMapping(value = "/plazas", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void avisosPlazas(HttpServletRequest peticion, HttpServletResponse respuesta) throws IOException {
+        respuesta.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        respuesta.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        respuesta.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Que un proxy intermedio no acumule los eventos
+        respuesta.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asincrono = peticion.startAsync();
+        asincrono.setTimeout(duracionAvisos.toMillis());
+        SuscriptorSse suscriptor = new SuscriptorSse(asincrono, respuesta.getOutputStream());
+        AvisosPlazas.Suscripcion suscripcion;
+        try {
+            suscripcion = avisosPlazas.suscribir(suscriptor);
+        } catch (IllegalStateException e) {
+            respuesta.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            respuesta.setHeader(HttpHeaders.RETRY_AFTER, "30");
+            asincrono.complete();
+            return;
+        }
+        suscriptor.conectar(avisosPlazas, suscripcion);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CursoJson> detalleCurso(@PathVariable Long id,
+                                                  @RequestParam(required = false) String campos,
+                                                  ServletWebRequest peticion) {
+        Set<CampoCurso> seleccion = CampoCurso.desde(campos);
+        if (ValidacionCondicional.sinCambios(peticion, false, versiones.curso(id), id, seleccion)) {
+            return null;
+        }
+        return cursoService.buscarResumen(id)
+            .map(curso -> ResponseEntity.ok(CursoJson.de(curso, seleccion)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Parámetros incorrectos (campo desconocido, cursor manipulado, demasiados IDs)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> peticionIncorrecta(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+}
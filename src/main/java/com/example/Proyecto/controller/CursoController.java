@@ -1,19 +1,44 @@
 package com.example.Proyecto.controller;
 
+import com.example.Proyecto.dto.FormatoExportacion;
+import com.example.Proyecto.dto.IdentidadUsuario;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import com.example.Proyecto.dto.ResultadoImportacion;
 import com.example.Proyecto.entity.Curso;
 import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.service.AdmisionInscripciones;
+import com.example.Proyecto.service.CapacidadInsuficienteException;
 import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.ImportacionInscripcionesService;
 import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.InscripcionesSaturadasException;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.ListaInscritosService;
 import com.example.Proyecto.service.UsuarioService;
+import com.example.Proyecto.service.VersionesCursos;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 @RequestMapping("/cursos")
 public class CursoController {
@@ -21,21 +46,68 @@ public class CursoController {
     private final CursoService cursoService;
     private final UsuarioService usuarioService;
     private final InscripcionService inscripcionService;
+    private final ImportacionInscripcionesService importacionService;
+    private final ListaInscritosService listaInscritosService;
+    private final ListaEsperaService listaEsperaService;
+    private final VersionesCursos versiones;
+    private final FragmentosCursos fragmentosCursos;
+    private final AdmisionInscripciones admision;
 
-    public CursoController(CursoService cursoService, UsuarioService usuarioService, InscripcionService inscripcionService) {
+    public CursoController(CursoService cursoService, UsuarioService usuarioService, InscripcionService inscripcionService,
+                           ImportacionInscripcionesService importacionService,
+                           ListaInscritosService listaInscritosService, ListaEsperaService listaEsperaService,
+                           VersionesCursos versiones, FragmentosCursos fragmentosCursos,
+                           AdmisionInscripciones admision) {
         this.cursoService = cursoService;
         this.usuarioService = usuarioService;
         this.inscripcionService = inscripcionService;
+        this.importacionService = importacionService;
+        this.listaInscritosService = listaInscritosService;
+        this.listaEsperaService = listaEsperaService;
+        this.versiones = versiones;
+        this.fragmentosCursos = fragmentosCursos;
+        this.admision = admision;
     }
 
     @GetMapping
-    public String listarCursos(Model model, @AuthenticationPrincipal UserDetails userDetails) {
-        // Obtener datos a través de los servicios
-        Usuario usuario = usuarioService.obtenerPorUsername(userDetails.getUsername());
-        
-        model.addAttribute("cursos", cursoService.listarTodosLosCursos());
+    public String listarCursos(Model model, @AuthenticationPrincipal UserDetails userDetails,
+                               @RequestParam(required = false) String orden,
+                               @RequestParam(required = false) Integer tamano,
+                               @RequestParam(required = false) String despues,
+                               @RequestParam(required = false) String antes,
+                               @RequestParam(required = false) String q,
+                               ServletWebRequest peticion) {
+        // Sin cambios en el catálogo desde la última visita: 304 sin consultas ni plantilla.
+        // El estado de inscripción del usuario forma parte de la página, así que también de la ETag.
+        if (ValidacionCondicional.sinCambios(peticion, true, "c" + versiones.catalogo(), userDetails.getUsername(), orden, tamano, despues, antes, q)) {
+            return null;
+        }
+        // La identidad sale del principal de la sesión, sin consultar la base de datos
+        IdentidadUsuario usuario = usuarioService.obtenerIdentidad(userDetails);
+        // Con texto de búsqueda se consulta el índice en memoria en lugar del catálogo completo
+        String consulta = q != null && !q.isBlank() ? q.trim() : null;
+
+        PaginaCatalogo pagina;
+        try {
+            pagina = consulta != null
+                ? cursoService.buscarCursos(consulta, tamano, despues, antes)
+                : cursoService.listarCatalogo(OrdenCatalogo.desde(orden), tamano, despues, antes);
+        } catch (IllegalArgumentException e) {
+            // Cursor manipulado o caducado: se vuelve a la primera página
+            pagina = consulta != null
+                ? cursoService.buscarCursos(consulta, tamano, null, null)
+                : cursoService.listarCatalogo(OrdenCatalogo.desde(orden), tamano, null, null);
+        }
+
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("consulta", consulta);
+        model.addAttribute("cursos", pagina.getCursos());
+        // Marcado de cada curso ya renderizado; la plantilla solo añade los botones del usuario
+        model.addAttribute("fragmentos", fragmentosCursos.obtener(pagina.getCursos(), peticion));
+        model.addAttribute("totalCursos", cursoService.contarCursos());
         model.addAttribute("usuario", usuario);
-        model.addAttribute("inscripciones", inscripcionService.listarInscripcionesPorUsuario(usuario));
+        model.addAttribute("cursosInscritos", inscripcionService.obtenerIdsCursosInscritos(usuario.getId()));
+        model.addAttribute("cursosEnEspera", listaEsperaService.obtenerIdsCursosEnEspera(usuario.getId()));
         
         return "cursos";
     }
@@ -57,18 +129,74 @@ public class CursoController {
         return "redirect:/cursos";
     }
 
+    @GetMapping("/importar")
+    public String importarForm() {
+        return "importar";
+    }
+
+    @PostMapping("/importar")
+    public String importarInscripciones(@RequestParam("archivo") MultipartFile archivo, Model model) {
+        if (archivo.isEmpty()) {
+            model.addAttribute("error", "Selecciona un fichero CSV");
+            return "importar";
+        }
+        // El fichero se lee en streaming: el servicio solo retiene un bloque de filas
+        try (InputStreamReader lector = new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8)) {
+            ResultadoImportacion resultado = importacionService.importar(lector);
+            model.addAttribute("resultado", resultado);
+        } catch (IOException | RuntimeException e) {
+            model.addAttribute("error", "No se pudo importar el fichero: " + e.getMessage());
+        }
+        return "importar";
+    }
+
+    @GetMapping("/inscritos/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarInscritos(@RequestParam(required = false) String formato) {
+        FormatoExportacion f = FormatoExportacion.desde(formato);
+        StreamingResponseBody cuerpo = salida -> listaInscritosService.exportarTodos(f, salida);
+        return descarga("inscritos." + f.getExtension(), f, cuerpo);
+    }
+
     @GetMapping("/{id}")
-    public String detalleCurso(@PathVariable Long id, Model model) {
-        // Buscar curso a través del servicio
-        return cursoService.buscarPorId(id)
+    public String detalleCurso(@PathVariable Long id,
+                               @RequestParam(required = false) Long despues,
+                               @RequestParam(required = false) Long antes,
+                               Model model, ServletWebRequest peticion) {
+        if (ValidacionCondicional.sinCambios(peticion, true, "d" + versiones.curso(id), id, despues, antes)) {
+            return null;
+        }
+        // Cabecera desde la caché de cursos; de los inscritos solo se consulta la página visible
+        return cursoService.buscarResumen(id)
             .map(curso -> {
                 model.addAttribute("curso", curso);
-                model.addAttribute("inscripciones", inscripcionService.listarInscripcionesPorCurso(curso));
+                model.addAttribute("pagina", listaInscritosService.listarPorCurso(id, despues, antes));
                 return "curso_detalle";
             })
             .orElse("redirect:/cursos");
     }
 
+    @GetMapping("/{id}/inscritos/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarInscritosCurso(@PathVariable Long id,
+                                                                        @RequestParam(required = false) String formato) {
+        if (!cursoService.buscarResumen(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        FormatoExportacion f = FormatoExportacion.desde(formato);
+        StreamingResponseBody cuerpo = salida -> listaInscritosService.exportarCurso(id, f, salida);
+        return descarga("inscritos-curso-" + id + "." + f.getExtension(), f, cuerpo);
+    }
+
+    /**
+     * Respuesta de descarga cuyo cuerpo se escribe fila a fila mientras se recorre la consulta
+     */
+    private ResponseEntity<StreamingResponseBody> descarga(String fichero, FormatoExportacion formato,
+                                                           StreamingResponseBody cuerpo) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(formato.getTipoContenido()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fichero + "\"")
+            .body(cuerpo);
+    }
+
     @GetMapping("/{id}/editar")
     public String editarCursoForm(@PathVariable Long id, Model model) {
         Curso curso = cursoService.obtenerPorId(id);
@@ -78,52 +206,101 @@ public class CursoController {
 
     @PostMapping("/{id}/editar")
     public String actualizarCurso(@PathVariable Long id, @Valid @ModelAttribute Curso curso, BindingResult result) {
+        curso.setId(id);
         if (result.hasErrors()) {
             return "curso_form";
         }
-        
-        curso.setId(id);
-        cursoService.actualizarCurso(curso);
+
+        try {
+            cursoService.actualizarCurso(curso);
+        } catch (CapacidadInsuficienteException e) {
+            result.rejectValue("capacidad", "error.curso", e.getMessage());
+            return "curso_form";
+        }
         return "redirect:/cursos";
     }
 
     @PostMapping("/{id}/inscribir")
-    public String inscribirUsuario(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+    public CompletableFuture<String> inscribirUsuario(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails,
+                                                      HttpServletResponse respuesta, Model model) {
+        // Antes de cualquier consulta: los clics repetidos y los picos de carga reciben un 429 al momento
+        try {
+            admision.admitir(userDetails.getUsername());
+        } catch (InscripcionesSaturadasException e) {
+            return CompletableFuture.completedFuture(reintentar(e, respuesta, model));
+        }
+
+        CompletableFuture<String> resultado;
         try {
-            // Obtener entidades a través de los servicios
-            Usuario usuario = usuarioService.obtenerPorUsername(userDetails.getUsername());
-            Curso curso = cursoService.obtenerPorId(id);
+            // Obtener entidades a través de los servicios (el usuario como referencia, sin recargarlo)
+            Usuario usuario = usuarioService.referenciaPorId(usuarioService.obtenerIdentidad(userDetails).getId());
+            Curso curso = cursoService.referenciaPorId(id);
             
-            // La lógica de inscripción (validaciones incluidas) está en el servicio
-            inscripcionService.inscribirUsuario(usuario, curso);
+            // La lógica de inscripción (validaciones incluidas) está en el servicio.
+            // Si el curso está lleno el usuario queda en la lista de espera en lugar de reintentar.
+            // En modo pipeline el hilo de Tomcat se libera mientras el lote se confirma.
+            resultado = inscripcionService.inscribirOEsperar(usuario, curso)
+                .handle((estado, error) -> "redirect:/cursos");
         } catch (RuntimeException e) {
             // Manejo de errores (podría añadirse un flash attribute con el mensaje)
             // Por ahora, simplemente redirige
+            resultado = CompletableFuture.completedFuture("redirect:/cursos");
         }
-        
-        return "redirect:/cursos";
+        // La petición cuenta como en curso hasta que la inscripción termina, también en modo pipeline
+        return resultado.whenComplete((vista, error) -> admision.liberar());
     }
 
     @PostMapping("/{id}/remover")
-    public String removerInscripcion(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+    public String removerInscripcion(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails,
+                                     HttpServletResponse respuesta, Model model) {
         try {
-            // Obtener entidades a través de los servicios
-            Usuario usuario = usuarioService.obtenerPorUsername(userDetails.getUsername());
-            Curso curso = cursoService.obtenerPorId(id);
+            admision.admitir(userDetails.getUsername());
+        } catch (InscripcionesSaturadasException e) {
+            return reintentar(e, respuesta, model);
+        }
+
+        try {
+            // Obtener entidades a través de los servicios (el usuario como referencia, sin recargarlo)
+            Usuario usuario = usuarioService.referenciaPorId(usuarioService.obtenerIdentidad(userDetails).getId());
+            Curso curso = cursoService.referenciaPorId(id);
             
             // La lógica de remoción está en el servicio
             inscripcionService.removerInscripcion(usuario, curso);
         } catch (RuntimeException e) {
             // Manejo de errores
+        } finally {
+            admision.liberar();
         }
         
         return "redirect:/cursos";
     }
 
+    @PostMapping("/{id}/salir-espera")
+    public String salirListaEspera(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            listaEsperaService.salir(usuarioService.obtenerIdentidad(userDetails).getId(), id);
+        } catch (RuntimeException e) {
+            // Ya no estaba en la lista (por ejemplo, acaba de ser promovido)
+        }
+
+        return "redirect:/cursos";
+    }
+
     @PostMapping("/{id}/eliminar")
     public String eliminarCurso(@PathVariable Long id) {
         cursoService.eliminarCurso(id);
         return "redirect:/cursos";
     }
-}
 
+    /**
+     * Página de "inténtalo de nuevo" con estado 429 y Retry-After en segundos
+     */
+    private static String reintentar(InscripcionesSaturadasException e, HttpServletResponse respuesta, Model model) {
+        long segundos = Math.max(1, (e.getReintentarEn().toMillis() + 999) / 1000);
+        respuesta.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        respuesta.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        model.addAttribute("mensaje", e.getMessage());
+        model.addAttribute("segundos", segundos);
+        return "reintentar";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.ServletContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caché del marcado de cada curso en cursos.html (tarjeta y fila de la tabla), que solo depende
+ * de los datos del curso. La página inserta ese marcado ya generado y solo renderiza en cada
+ * petición los botones que dependen del usuario (inscribirse, cancelar, salir de la espera),
+ * que además llevan el token CSRF de la sesión.
+ *
+ * Cada entrada se guarda por ID de curso junto con el resumen a partir del que se generó, que
+ * hace de versión: si el curso cambia (nombre, capacidad, inscritos) el resumen ya no coincide
+ * y el fragmento se vuelve a renderizar. Las plantillas están en fragmentos/curso.html.
+ * Con spring.thymeleaf.cache=false (desarrollo) los fragmentos se renderizan siempre.
+ */
+@Component
+public class FragmentosCursos {
+
+    private static final String PLANTILLA = "fragmentos/curso";
+
+    private final ITemplateEngine motor;
+    private final JakartaServletWebApplication aplicacion;
+    private final boolean activa;
+    private final Cache<Long, Fragmento> fragmentos;
+
+    public FragmentosCursos(ITemplateEngine motor, ServletContext servletContext, MeterRegistry registro,
+                            @Value("${spring.thymeleaf.cache:true}") boolean activa,
+                            @Value("${cursos.cache.fragmentos.tamano-maximo:10000}") long tamanoMaximo) {
+        this.motor = motor;
+        this.aplicacion = JakartaServletWebApplication.buildApplication(servletContext);
+        this.activa = activa;
+        this.fragmentos = Caffeine.newBuilder()
+            .maximumSize(tamanoMaximo)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(registro, fragmentos, "cursos.fragmentos");
+        Gauge.builder("cache.hit.ratio", fragmentos, cache -> cache.stats().hitRate())
+            .tag("cache", "cursos.fragmentos").register(registro);
+    }
+
+    /**
+     * Marcado de los cursos de una página por ID, reutilizando el de los que no han cambiado
+     */
+    public Map<Long, Fragmento> obtener(List<CursoResumen> cursos, ServletWebRequest peticion) {
+        Map<Long, Fragmento> resultado = new HashMap<>();
+        IWebExchange intercambio = null;
+        for (CursoResumen curso : cursos) {
+            Fragmento fragmento = activa ? fragmentos.getIfPresent(curso.getId()) : null;
+            if (fragmento == null || !fragmento.curso.equals(curso)) {
+                if (intercambio == null) {
+                    // Los enlaces (@{...}) necesitan la petición para resolver la ruta de contexto
+                    intercambio = aplicacion.buildExchange(peticion.getRequest(), peticion.getResponse());
+                }
+                fragmento = renderizar(curso, intercambio);
+                if (activa) {
+                    fragmentos.put(curso.getId(), fragmento);
+                }
+            }
+            resultado.put(curso.getId(), fragmento);
+        }
+        return resultado;
+    }
+
+    /**
+     * Vacía la caché (pensado para pruebas)
+     */
+    public void limpiar() {
+        fragmentos.invalidateAll();
+    }
+
+    private Fragmento renderizar(CursoResumen curso, IWebExchange intercambio) {
+        WebContext contexto = new WebContext(intercambio, LocaleContextHolder.getLocale(), Map.of("curso", curso));
+        return new Fragmento(curso,
+                             motor.process(PLANTILLA, Set.of("tarjeta"), contexto),
+                             motor.process(PLANTILLA, Set.of("fila"), contexto));
+    }
+
+    /**
+     * Marcado ya renderizado de un curso y el resumen del que sale
+     */
+    public static final class Fragmento {
+
+        private final CursoResumen curso;
+        private final String tarjeta;
+        private final String fila;
+
+        private Fragmento(CursoResumen curso, String tarjeta, String fila) {
+            this.curso = curso;
+            this.tarjeta = tarjeta;
+            this.fila = fila;
+        }
+
+        public String getTarjeta() {
+            return tarjeta;
+        }
+
+        public String getFila() {
+            return fila;
+        }
+    }
+}
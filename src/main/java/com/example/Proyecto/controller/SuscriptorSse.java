@@ -0,0 +1,104 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.AvisosPlazas;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+
+/**
+ * Conexión Server-Sent Events de un suscriptor de AvisosPlazas sobre la E/S no bloqueante de
+ * Servlet: solo se escribe cuando isReady() lo permite y el contenedor avisa con
+ * onWritePossible cuando el cliente vuelve a aceptar datos. Mientras tanto no se ocupa ningún
+ * hilo por conexión.
+ */
+final class SuscriptorSse implements AvisosPlazas.Suscriptor, WriteListener, AsyncListener {
+
+    private final AsyncContext asincrono;
+    private final ServletOutputStream salida;
+    private volatile AvisosPlazas avisos;
+    private volatile AvisosPlazas.Suscripcion suscripcion;
+    private volatile boolean conectado;
+
+    SuscriptorSse(AsyncContext asincrono, ServletOutputStream salida) {
+        this.asincrono = asincrono;
+        this.salida = salida;
+    }
+
+    /**
+     * Pasa la salida a modo no bloqueante; las tramas que llegaron antes se envían en cuanto
+     * el contenedor avise de que se puede escribir
+     */
+    void conectar(AvisosPlazas avisos, AvisosPlazas.Suscripcion suscripcion) {
+        this.avisos = avisos;
+        this.suscripcion = suscripcion;
+        asincrono.addListener(this);
+        salida.setWriteListener(this);
+        conectado = true;
+    }
+
+    @Override
+    public boolean listo() {
+        return conectado && salida.isReady();
+    }
+
+    @Override
+    public void enviar(byte[] trama) throws IOException {
+        salida.write(trama);
+        // Si la escritura quedó a medias el contenedor la completa y después llama a onWritePossible
+        if (salida.isReady()) {
+            salida.flush();
+        }
+    }
+
+    @Override
+    public void cerrar() {
+        try {
+            asincrono.complete();
+        } catch (IllegalStateException e) {
+            // La petición ya había terminado
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        avisos.reanudar(suscripcion);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        terminar();
+        cerrar();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent evento) {
+        terminar();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent evento) {
+        // Duración máxima de la conexión: el cliente vuelve a conectar
+        terminar();
+        cerrar();
+    }
+
+    @Override
+    public void onError(AsyncEvent evento) {
+        terminar();
+        cerrar();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent evento) {
+    }
+
+    private void terminar() {
+        if (suscripcion != null) {
+            avisos.cancelar(suscripcion);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Proyecto.controller;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * ETags de las páginas y respuestas JSON de cursos, compartidas por CursoController
+ * y CursoApiController
+ */
+final class ValidacionCondicional {
+
+    private ValidacionCondicional() {
+    }
+
+    /**
+     * Comprueba If-None-Match contra la ETag de la respuesta y, si coincide, deja preparada la
+     * respuesta 304. La ETag combina la versión de los datos con las variantes indicadas y,
+     * con porSesion, con la sesión (las páginas HTML llevan el token CSRF de sus formularios;
+     * la API JSON no depende de ella). Cache-Control obliga al navegador a revalidar siempre y
+     * evita que cachés compartidas guarden respuestas de un usuario.
+     */
+    static boolean sinCambios(ServletWebRequest peticion, boolean porSesion, String version, Object... variantes) {
+        StringBuilder clave = new StringBuilder();
+        if (porSesion) {
+            HttpSession sesion = peticion.getRequest().getSession(false);
+            clave.append(sesion != null ? sesion.getId() : "");
+        }
+        for (Object variante : variantes) {
+            clave.append('\u0000').append(variante);
+        }
+        String etag = version + "-" + UUID.nameUUIDFromBytes(clave.toString().getBytes(StandardCharsets.UTF_8));
+        peticion.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return peticion.checkNotModified(etag);
+    }
+}
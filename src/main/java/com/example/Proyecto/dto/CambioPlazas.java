@@ -0,0 +1,18 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+/**
+ * Número de inscritos de un curso tras un cambio, tal como se envía en los avisos de plazas
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class CambioPlazas {
+
+    private final Long cursoId;
+    private final long inscritos;
+
+    public CambioPlazas(Long cursoId, long inscritos) {
+        this.cursoId = cursoId;
+        this.inscritos = inscritos;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.Proyecto.dto;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Campos de un curso que se pueden pedir en la API JSON (parámetro "campos").
+ * Permite a los clientes que solo consultan plazas pedir, por ejemplo, campos=id,plazasLibres.
+ */
+public enum CampoCurso {
+
+    ID("id"),
+    NOMBRE("nombre"),
+    INSTRUCTOR("instructor"),
+    CAPACIDAD("capacidad"),
+    INSCRITOS("inscritos"),
+    PLAZAS_LIBRES("plazasLibres");
+
+    private final String parametro;
+
+    CampoCurso(String parametro) {
+        this.parametro = parametro;
+    }
+
+    /**
+     * Convierte la lista separada por comas de la petición en un conjunto de campos.
+     * Sin lista se devuelven todos; un nombre desconocido es un error del cliente.
+     */
+    public static Set<CampoCurso> desde(String lista) {
+        if (lista == null || lista.isBlank()) {
+            return EnumSet.allOf(CampoCurso.class);
+        }
+        Set<CampoCurso> campos = EnumSet.noneOf(CampoCurso.class);
+        for (String nombre : lista.split(",")) {
+            String limpio = nombre.trim();
+            if (limpio.isEmpty()) {
+                continue;
+            }
+            campos.add(porParametro(limpio));
+        }
+        return campos;
+    }
+
+    private static CampoCurso porParametro(String nombre) {
+        for (CampoCurso campo : values()) {
+            if (campo.parametro.equalsIgnoreCase(nombre)) {
+                return campo;
+            }
+        }
+        throw new IllegalArgumentException("Campo desconocido: " + nombre);
+    }
+
+    /**
+     * Nombre del campo en los parámetros de la URL y en el JSON
+     */
+    public String getParametro() {
+        return parametro;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.Proyecto.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Representación JSON de un curso en la API, construida a partir de CursoResumen y nunca de
+ * la entidad Curso, de modo que serializarla no puede disparar cargas diferidas.
+ * Los campos no pedidos quedan a null y no se escriben.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursoJson {
+
+    private final Long id;
+    private final String nombre;
+    private final String instructor;
+    private final Integer capacidad;
+    private final Long inscritos;
+    private final Long plazasLibres;
+
+    private CursoJson(CursoResumen curso, Set<CampoCurso> campos) {
+        this.id = campos.contains(CampoCurso.ID) ? curso.getId() : null;
+        this.nombre = campos.contains(CampoCurso.NOMBRE) ? curso.getNombre() : null;
+        this.instructor = campos.contains(CampoCurso.INSTRUCTOR) ? curso.getInstructor() : null;
+        this.capacidad = campos.contains(CampoCurso.CAPACIDAD) ? curso.getCapacidad() : null;
+        this.inscritos = campos.contains(CampoCurso.INSCRITOS) ? curso.getInscritos() : null;
+        this.plazasLibres = campos.contains(CampoCurso.PLAZAS_LIBRES)
+            ? Math.max(0, curso.getCapacidad() - curso.getInscritos()) : null;
+    }
+
+    /**
+     * Curso con solo los campos indicados
+     */
+    public static CursoJson de(CursoResumen curso, Set<CampoCurso> campos) {
+        return new CursoJson(curso, campos);
+    }
+}
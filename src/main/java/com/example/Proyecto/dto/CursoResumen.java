@@ -0,0 +1,43 @@
+package com.example.Proyecto.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Proyección de solo lectura de un Curso para el catálogo.
+ * Incluye el número de inscritos calculado en la misma consulta,
+ * de modo que la vista nunca inicializa la colección Curso.inscripciones.
+ * Dos resúmenes son iguales si lo son todos sus datos (FragmentosCursos lo usa como versión).
+ */
+@EqualsAndHashCode
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class CursoResumen {
+
+    private final Long id;
+    private final String nombre;
+    private final String instructor;
+    private final int capacidad;
+    private final long inscritos;
+
+    public CursoResumen(Long id, String nombre, String instructor, int capacidad, long inscritos) {
+        this.id = id;
+        this.nombre = nombre;
+        this.instructor = instructor;
+        this.capacidad = capacidad;
+        this.inscritos = inscritos;
+    }
+
+    /**
+     * Copia del resumen con otro número de inscritos
+     */
+    public CursoResumen conInscritos(long inscritos) {
+        return new CursoResumen(id, nombre, instructor, capacidad, inscritos);
+    }
+
+    /**
+     * Porcentaje de ocupación del curso (0-100)
+     */
+    public double getPorcentajeOcupacion() {
+        return capacidad > 0 ? Math.min(100.0, inscritos * 100.0 / capacidad) : 0.0;
+    }
+}
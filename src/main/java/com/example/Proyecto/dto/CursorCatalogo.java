@@ -0,0 +1,56 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición dentro del catálogo paginado por cursor (keyset).
+ * Guarda la clave (nombre, id) de un curso frontera y se transmite en la URL
+ * como una cadena opaca codificada en Base64.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class CursorCatalogo {
+
+    private static final char SEPARADOR = ':';
+
+    private final Long id;
+    private final String nombre;
+
+    public CursorCatalogo(Long id, String nombre) {
+        this.id = id;
+        this.nombre = nombre;
+    }
+
+    /**
+     * Crea el cursor que apunta a un curso del catálogo
+     */
+    public static CursorCatalogo de(CursoResumen curso) {
+        return new CursorCatalogo(curso.getId(), curso.getNombre());
+    }
+
+    /**
+     * Codifica el cursor para usarlo como parámetro de la URL
+     */
+    public String codificar() {
+        String valor = id + String.valueOf(SEPARADOR) + (nombre != null ? nombre : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido en la URL o lanza excepción si no es válido
+     */
+    public static CursorCatalogo decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return new CursorCatalogo(Long.valueOf(valor.substring(0, separador)), valor.substring(separador + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+}
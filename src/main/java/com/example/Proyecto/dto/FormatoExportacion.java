@@ -0,0 +1,39 @@
+package com.example.Proyecto.dto;
+
+/**
+ * Formatos de exportación de la lista de inscritos
+ */
+public enum FormatoExportacion {
+
+    /** Valores separados por comas, con cabecera */
+    CSV("text/csv;charset=UTF-8", "csv"),
+
+    /** Un objeto JSON por línea (JSON Lines) */
+    JSONL("application/x-ndjson;charset=UTF-8", "jsonl");
+
+    private final String tipoContenido;
+    private final String extension;
+
+    FormatoExportacion(String tipoContenido, String extension) {
+        this.tipoContenido = tipoContenido;
+        this.extension = extension;
+    }
+
+    /**
+     * Convierte el parámetro de la petición en un formato, usando CSV por defecto
+     */
+    public static FormatoExportacion desde(String valor) {
+        if (valor != null && (valor.equalsIgnoreCase("jsonl") || valor.equalsIgnoreCase("json"))) {
+            return JSONL;
+        }
+        return CSV;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * Datos mínimos e inmutables que identifican a un usuario autenticado.
+ * Permite trabajar con el usuario de la sesión sin recargar la entidad Usuario.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class IdentidadUsuario implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final String email;
+
+    public IdentidadUsuario(Long id, String username, String email) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura de una inscripción con los datos del usuario y del curso,
+ * obtenida con un join en la misma consulta. No carga entidades Inscripcion ni Usuario.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class InscritoResumen {
+
+    private final Long id;
+    private final Long cursoId;
+    private final String cursoNombre;
+    private final Long usuarioId;
+    private final String username;
+    private final String email;
+    private final LocalDateTime fechaInscripcion;
+
+    public InscritoResumen(Long id, Long cursoId, String cursoNombre, Long usuarioId,
+                           String username, String email, LocalDateTime fechaInscripcion) {
+        this.id = id;
+        this.cursoId = cursoId;
+        this.cursoNombre = cursoNombre;
+        this.usuarioId = usuarioId;
+        this.username = username;
+        this.email = email;
+        this.fechaInscripcion = fechaInscripcion;
+    }
+}
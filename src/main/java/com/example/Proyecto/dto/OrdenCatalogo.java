@@ -0,0 +1,31 @@
+package com.example.Proyecto.dto;
+
+/**
+ * Criterios de ordenación soportados por el catálogo paginado.
+ * Cada criterio define la clave de búsqueda (seek key) usada por la paginación por cursor.
+ */
+public enum OrdenCatalogo {
+
+    /** Orden por identificador: clave (id) */
+    ID,
+
+    /** Orden alfabético por nombre: clave (nombre, id) */
+    NOMBRE;
+
+    /**
+     * Convierte el parámetro de la petición en un criterio, usando ID por defecto
+     */
+    public static OrdenCatalogo desde(String valor) {
+        if (valor != null && valor.equalsIgnoreCase("nombre")) {
+            return NOMBRE;
+        }
+        return ID;
+    }
+
+    /**
+     * Valor usado en los parámetros de la URL
+     */
+    public String getParametro() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página del catálogo obtenida mediante paginación por cursor (keyset).
+ * Contiene los cursos de la página y los cursores para navegar a la página
+ * anterior y a la siguiente.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class PaginaCatalogo {
+
+    private final List<CursoResumen> cursos;
+    private final OrdenCatalogo orden;
+    private final int tamano;
+    private final String cursorAnterior;
+    private final String cursorSiguiente;
+
+    public PaginaCatalogo(List<CursoResumen> cursos, OrdenCatalogo orden, int tamano,
+                          boolean hayAnterior, boolean haySiguiente) {
+        this.cursos = cursos;
+        this.orden = orden;
+        this.tamano = tamano;
+        this.cursorAnterior = hayAnterior && !cursos.isEmpty()
+            ? CursorCatalogo.de(cursos.get(0)).codificar() : null;
+        this.cursorSiguiente = haySiguiente && !cursos.isEmpty()
+            ? CursorCatalogo.de(cursos.get(cursos.size() - 1)).codificar() : null;
+    }
+
+    public boolean isHayAnterior() {
+        return cursorAnterior != null;
+    }
+
+    public boolean isHaySiguiente() {
+        return cursorSiguiente != null;
+    }
+}
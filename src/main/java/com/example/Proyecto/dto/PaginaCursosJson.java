@@ -0,0 +1,44 @@
+package com.example.Proyecto.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Respuesta JSON con una lista de cursos. En el catálogo incluye los cursores de la página
+ * anterior y de la siguiente (los mismos que usa /cursos); en la consulta por IDs van a null.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaCursosJson {
+
+    private final List<CursoJson> cursos;
+    private final String anterior;
+    private final String siguiente;
+
+    private PaginaCursosJson(List<CursoResumen> cursos, Set<CampoCurso> campos, String anterior, String siguiente) {
+        this.cursos = new ArrayList<>(cursos.size());
+        for (CursoResumen curso : cursos) {
+            this.cursos.add(CursoJson.de(curso, campos));
+        }
+        this.anterior = anterior;
+        this.siguiente = siguiente;
+    }
+
+    /**
+     * Página del catálogo con sus cursores de navegación
+     */
+    public static PaginaCursosJson de(PaginaCatalogo pagina, Set<CampoCurso> campos) {
+        return new PaginaCursosJson(pagina.getCursos(), campos, pagina.getCursorAnterior(), pagina.getCursorSiguiente());
+    }
+
+    /**
+     * Lista de cursos sin paginación (consulta por IDs)
+     */
+    public static PaginaCursosJson de(List<CursoResumen> cursos, Set<CampoCurso> campos) {
+        return new PaginaCursosJson(cursos, campos, null, null);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de la lista de inscritos de un curso obtenida mediante paginación por cursor
+ * (keyset) sobre el ID de la inscripción.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class PaginaInscritos {
+
+    private final List<InscritoResumen> inscritos;
+    private final int tamano;
+    private final Long cursorAnterior;
+    private final Long cursorSiguiente;
+
+    public PaginaInscritos(List<InscritoResumen> inscritos, int tamano, boolean hayAnterior, boolean haySiguiente) {
+        this.inscritos = inscritos;
+        this.tamano = tamano;
+        this.cursorAnterior = hayAnterior && !inscritos.isEmpty() ? inscritos.get(0).getId() : null;
+        this.cursorSiguiente = haySiguiente && !inscritos.isEmpty()
+            ? inscritos.get(inscritos.size() - 1).getId() : null;
+    }
+
+    public boolean isHayAnterior() {
+        return cursorAnterior != null;
+    }
+
+    public boolean isHaySiguiente() {
+        return cursorSiguiente != null;
+    }
+}
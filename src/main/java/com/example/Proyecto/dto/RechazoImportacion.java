@@ -0,0 +1,20 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+/**
+ * Fila de un fichero de importación que no se pudo inscribir, con su motivo
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class RechazoImportacion {
+
+    private final int linea;
+    private final String contenido;
+    private final String motivo;
+
+    public RechazoImportacion(int linea, String contenido, String motivo) {
+        this.linea = linea;
+        this.contenido = contenido;
+        this.motivo = motivo;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.Proyecto.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva de inscripciones.
+ * El detalle de rechazos está acotado; rechazadas cuenta todos.
+ */
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+public class ResultadoImportacion {
+
+    private final int leidas;
+    private final int aceptadas;
+    private final int rechazadas;
+    private final List<RechazoImportacion> rechazos;
+    private final long duracionMs;
+
+    public ResultadoImportacion(int leidas, int aceptadas, int rechazadas,
+                                List<RechazoImportacion> rechazos, long duracionMs) {
+        this.leidas = leidas;
+        this.aceptadas = aceptadas;
+        this.rechazadas = rechazadas;
+        this.rechazos = rechazos;
+        this.duracionMs = duracionMs;
+    }
+
+    /**
+     * Filas procesadas por segundo
+     */
+    public long getFilasPorSegundo() {
+        return duracionMs > 0 ? leidas * 1000L / duracionMs : leidas;
+    }
+
+    /**
+     * Indica si hay más rechazos de los que se detallan
+     */
+    public boolean isDetalleTruncado() {
+        return rechazadas > rechazos.size();
+    }
+}
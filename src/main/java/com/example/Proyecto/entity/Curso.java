@@ -14,7 +14,8 @@ import java.util.Set;
  * Esta clase se mapea a la tabla "cursos" en la base de datos.
  */
 @Entity // Indica que esta clase es una entidad JPA
-@Table(name = "cursos") // Define el nombre de la tabla en la base de datos
+@Table(name = "cursos", // Define el nombre de la tabla en la base de datos
+       indexes = @Index(name = "idx_cursos_nombre_id", columnList = "nombre, id")) // Índice para la paginación por cursor ordenada por nombre
 @Getter // Lombok: Genera automáticamente los getters para todos los campos
 @Setter // Lombok: Genera automáticamente los setters para todos los campos
 public class Curso {
@@ -48,26 +49,32 @@ public class Curso {
     @Min(value = 1, message = "La capacidad debe ser al menos 1") // Validación: mínimo valor de 1
     private int capacidad;
 
+    /**
+     * Número de estudiantes inscritos actualmente (contador desnormalizado).
+     * Se mantiene con actualizaciones atómicas condicionales desde InscripcionService,
+     * por lo que nunca se escribe al guardar la entidad (updatable = false) y así
+     * una edición del curso no puede pisar inscripciones concurrentes.
+     */
+    @Column(nullable = false, updatable = false) // Solo se modifica con UPDATE masivos en el repositorio
+    private int inscritos;
+
+    /**
+     * Curso eliminado en modo DIFERIDO: ya no aparece en el catálogo ni admite plazas nuevas,
+     * y sus inscripciones se purgan por lotes antes de borrar la fila (CursoService).
+     */
+    @Column(nullable = false, updatable = false) // Solo se modifica con UPDATE masivos en el repositorio
+    private boolean eliminado;
+
     /**
      * Conjunto de inscripciones asociadas a este curso.
      * Relación One-to-Many: Un curso puede tener muchas inscripciones.
+     * La tabla inscripciones es la única fuente de la relación curso-usuario: los usuarios
+     * de un curso y los cursos de un usuario se obtienen con consultas sobre ella
+     * (ListaInscritosService, InscripcionService.obtenerIdsCursosInscritos).
      * - mappedBy: Indica que la relación es bidireccional y está mapeada por el campo "curso" en Inscripcion
-     * - cascade: Las operaciones en Curso se propagan a las Inscripciones
-     * - orphanRemoval: Si una inscripción se elimina de este Set, se elimina de la BD
+     * - Sin cascade: al eliminar un curso sus inscripciones se borran con DELETE masivos
+     *   (CursoService.eliminarCurso), no cargándolas y borrándolas una a una
      */
-    @OneToMany(mappedBy = "curso", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "curso")
     private Set<Inscripcion> inscripciones = new HashSet<>();
-
-    /**
-     * Conjunto de usuarios inscritos en este curso.
-     * Relación Many-to-Many: Un curso puede tener muchos usuarios y un usuario puede estar en muchos cursos.
-     * Se crea una tabla intermedia "curso_usuario" para gestionar esta relación.
-     */
-    @ManyToMany
-    @JoinTable(
-        name = "curso_usuario", // Nombre de la tabla intermedia
-        joinColumns = @JoinColumn(name = "curso_id"), // Columna que hace referencia a la tabla cursos
-        inverseJoinColumns = @JoinColumn(name = "usuario_id") // Columna que hace referencia a la tabla usuarios
-    )
-    private Set<Usuario> usuarios = new HashSet<>();
 }
@@ -10,19 +10,26 @@ import java.time.LocalDateTime;
  * Entidad que representa una Inscripción de un usuario a un curso.
  * Esta clase se mapea a la tabla "inscripciones" en la base de datos.
  * Actúa como tabla intermedia entre Usuario y Curso, pero con información adicional (fecha).
+ * El esquema y sus índices se definen en las migraciones de db/migration; las anotaciones
+ * de la tabla los documentan y Hibernate solo los valida al arrancar.
  */
 @Entity // Indica que esta clase es una entidad JPA
-@Table(name = "inscripciones") // Define el nombre de la tabla en la base de datos
+@Table(name = "inscripciones", // Define el nombre de la tabla en la base de datos
+       uniqueConstraints = @UniqueConstraint(name = "uk_inscripciones_usuario_curso",
+                                             columnNames = {"usuario_id", "curso_id"}), // Un usuario solo puede inscribirse una vez en cada curso; sirve también a las búsquedas por usuario
+       indexes = @Index(name = "idx_inscripciones_curso_id", columnList = "curso_id, id")) // Inscritos de un curso en orden, para paginar y exportar
 @Getter // Lombok: Genera automáticamente los getters para todos los campos
 @Setter // Lombok: Genera automáticamente los setters para todos los campos
 public class Inscripcion {
     
     /**
      * Identificador único de la inscripción.
-     * Se genera automáticamente con estrategia de auto-incremento.
+     * Se genera con una secuencia que reserva bloques de IDs, de modo que Hibernate
+     * conoce el ID antes del insert y puede agruparlos en lotes JDBC (IDENTITY lo impide).
      */
     @Id // Marca este campo como la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Genera el ID automáticamente (auto-increment en BD)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inscripciones_seq")
+    @SequenceGenerator(name = "inscripciones_seq", sequenceName = "inscripciones_seq", allocationSize = 50) // Un acceso a la secuencia cada 50 IDs
     private Long id;
 
     /**
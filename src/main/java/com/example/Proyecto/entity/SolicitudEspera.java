@@ -0,0 +1,50 @@
+package com.example.Proyecto.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa la solicitud de un usuario en la lista de espera de un curso lleno.
+ * Esta clase se mapea a la tabla "lista_espera" en la base de datos.
+ * El orden de llegada lo da el ID: las solicitudes se promueven a inscripción de menor a mayor.
+ */
+@Entity // Indica que esta clase es una entidad JPA
+@Table(name = "lista_espera", // Define el nombre de la tabla en la base de datos
+       uniqueConstraints = @UniqueConstraint(name = "uk_lista_espera_usuario_curso",
+                                             columnNames = {"usuario_id", "curso_id"}), // Un usuario solo espera una vez por curso
+       indexes = @Index(name = "idx_lista_espera_curso_id", columnList = "curso_id, id")) // Cabeza de la cola de cada curso
+@Getter // Lombok: Genera automáticamente los getters para todos los campos
+@Setter // Lombok: Genera automáticamente los setters para todos los campos
+public class SolicitudEspera {
+
+    /**
+     * Identificador único de la solicitud.
+     * Se genera con una secuencia: crece con el orden de llegada, por lo que sirve como posición en la cola.
+     */
+    @Id // Marca este campo como la clave primaria
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lista_espera_seq")
+    @SequenceGenerator(name = "lista_espera_seq", sequenceName = "lista_espera_seq", allocationSize = 50) // Un acceso a la secuencia cada 50 IDs
+    private Long id;
+
+    /**
+     * Usuario que espera una plaza.
+     */
+    @ManyToOne(fetch = FetchType.LAZY) // Relación muchos a uno: un usuario puede esperar en varios cursos
+    @JoinColumn(name = "usuario_id", nullable = false) // Columna FK en la tabla lista_espera
+    private Usuario usuario;
+
+    /**
+     * Curso lleno en el que se espera plaza.
+     */
+    @ManyToOne(fetch = FetchType.LAZY) // Relación muchos a uno: un curso puede tener muchas solicitudes en espera
+    @JoinColumn(name = "curso_id", nullable = false) // Columna FK en la tabla lista_espera
+    private Curso curso;
+
+    /**
+     * Fecha y hora en que el usuario entró en la lista de espera.
+     */
+    private LocalDateTime fechaSolicitud = LocalDateTime.now();
+}
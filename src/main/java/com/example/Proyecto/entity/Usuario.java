@@ -1,19 +1,27 @@
 package com.example.Proyecto.entity;
 
+import com.example.Proyecto.service.FiltroRegistroListener;
+import com.example.Proyecto.service.InvalidacionIdentidadListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
-import java.util.Set;
 
 /**
  * Entidad que representa un Usuario del sistema.
  * Esta clase se mapea a la tabla "usuarios" en la base de datos.
- * Los usuarios pueden autenticarse y inscribirse en cursos.
+ * Los usuarios pueden autenticarse y inscribirse en cursos; sus inscripciones
+ * se consultan en la tabla inscripciones, sin colección mapeada en la entidad.
  */
 @Entity // Indica que esta clase es una entidad JPA
-@Table(name = "usuarios") // Define el nombre de la tabla en la base de datos
+@Table(name = "usuarios", // Define el nombre de la tabla en la base de datos
+       uniqueConstraints = { // Con nombre, para saber qué campo estaba repetido cuando falla un alta
+           @UniqueConstraint(name = "uk_usuarios_username", columnNames = "username"),
+           @UniqueConstraint(name = "uk_usuarios_email", columnNames = "email")
+       })
+@EntityListeners({InvalidacionIdentidadListener.class, // Invalida la caché de identidades al modificar o borrar el usuario
+                  FiltroRegistroListener.class}) // Anota nombre y correo en los filtros de registro
 @Getter // Lombok: Genera automáticamente los getters para todos los campos
 @Setter // Lombok: Genera automáticamente los setters para todos los campos
 public class Usuario {
@@ -31,8 +39,7 @@ public class Usuario {
      * Debe ser único en todo el sistema y no puede estar vacío.
      */
     @NotBlank(message = "El nombre de usuario es obligatorio") // Validación: no puede ser null, vacío o solo espacios
-    @Column(unique = true) // Restricción en BD: debe ser único
-    private String username;
+    private String username; // Único: restricción uk_usuarios_username
 
     /**
      * Contraseña del usuario (debe estar encriptada).
@@ -47,14 +54,5 @@ public class Usuario {
      */
     @Email(message = "Correo inválido") // Validación: debe tener formato de email válido
     @NotBlank(message = "El correo es obligatorio") // Validación: no puede ser null, vacío o solo espacios
-    @Column(unique = true) // Restricción en BD: debe ser único
-    private String email;
-
-    /**
-     * Conjunto de cursos en los que el usuario está inscrito.
-     * Relación Many-to-Many: Un usuario puede estar inscrito en muchos cursos.
-     * - mappedBy: Indica que la relación es bidireccional y está mapeada por el campo "usuarios" en Curso
-     */
-    @ManyToMany(mappedBy = "usuarios")
-    private Set<Curso> cursosInscritos;
+    private String email; // Único: restricción uk_usuarios_email
 }
@@ -0,0 +1,61 @@
+package com.example.Proyecto.metricas;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * Estadísticas de Hibernate que, además de los totales globales de la SessionFactory,
+ * anotan cada evento en los contadores de la petición del hilo actual (MetricasPeticion).
+ * Solo reciben eventos con hibernate.generate_statistics activado.
+ */
+public class EstadisticasPorPeticion extends StatisticsImpl {
+
+    public EstadisticasPorPeticion(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.sentenciaPreparada();
+        }
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        super.loadEntity(entityName);
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.entidadCargada();
+        }
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        super.fetchEntity(entityName);
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.cargaDiferida(entityName);
+        }
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        super.loadCollection(role);
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.coleccionCargada();
+        }
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        super.fetchCollection(role);
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.cargaDiferida(role);
+        }
+    }
+}
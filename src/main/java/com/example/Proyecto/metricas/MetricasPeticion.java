@@ -0,0 +1,108 @@
+package com.example.Proyecto.metricas;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contadores de acceso a datos de una petición HTTP: sentencias SQL preparadas por Hibernate,
+ * tiempo de ejecución JDBC, entidades y colecciones cargadas, y cargas diferidas (entidades o
+ * colecciones traídas con un SELECT propio) agrupadas por entidad o rol de colección.
+ *
+ * La instancia activa va ligada al hilo que atiende la petición; el trabajo hecho en otros hilos
+ * (pipeline de inscripción, tareas programadas, cuerpos en streaming) no se atribuye a ninguna.
+ */
+public final class MetricasPeticion {
+
+    /** Atributo de la petición donde queda el resultado al terminar */
+    public static final String ATRIBUTO = MetricasPeticion.class.getName();
+
+    private static final ThreadLocal<MetricasPeticion> ACTUAL = new ThreadLocal<>();
+
+    private int sentencias;
+    private long nanosJdbc;
+    private int entidadesCargadas;
+    private int coleccionesCargadas;
+    private final Map<String, Integer> cargasDiferidas = new HashMap<>();
+
+    MetricasPeticion() {
+    }
+
+    /**
+     * Empieza a contar en el hilo actual y devuelve los contadores asociados
+     */
+    public static MetricasPeticion iniciar() {
+        MetricasPeticion metricas = new MetricasPeticion();
+        ACTUAL.set(metricas);
+        return metricas;
+    }
+
+    public static void terminar() {
+        ACTUAL.remove();
+    }
+
+    /**
+     * Contadores de la petición en curso en este hilo, o null si no hay ninguna
+     */
+    public static MetricasPeticion actual() {
+        return ACTUAL.get();
+    }
+
+    void sentenciaPreparada() {
+        sentencias++;
+    }
+
+    void tiempoJdbc(long nanos) {
+        nanosJdbc += nanos;
+    }
+
+    void entidadCargada() {
+        entidadesCargadas++;
+    }
+
+    void coleccionCargada() {
+        coleccionesCargadas++;
+    }
+
+    void cargaDiferida(String entidadORol) {
+        cargasDiferidas.merge(entidadORol, 1, Integer::sum);
+    }
+
+    public int getSentencias() {
+        return sentencias;
+    }
+
+    public long getNanosJdbc() {
+        return nanosJdbc;
+    }
+
+    public int getEntidadesCargadas() {
+        return entidadesCargadas;
+    }
+
+    public int getColeccionesCargadas() {
+        return coleccionesCargadas;
+    }
+
+    public int getTotalCargasDiferidas() {
+        int total = 0;
+        for (int cargas : cargasDiferidas.values()) {
+            total += cargas;
+        }
+        return total;
+    }
+
+    /**
+     * Cargas diferidas por nombre de entidad o rol de colección
+     */
+    public Map<String, Integer> getCargasDiferidas() {
+        return Collections.unmodifiableMap(cargasDiferidas);
+    }
+
+    @Override
+    public String toString() {
+        return sentencias + " sentencias, " + (nanosJdbc / 1_000_000) + " ms JDBC, " +
+               entidadesCargadas + " entidades y " + coleccionesCargadas + " colecciones cargadas, " +
+               "cargas diferidas " + cargasDiferidas;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Proyecto.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abre los contadores de acceso a datos de cada petición (incluida la cadena de seguridad)
+ * y al terminar los publica en Micrometer etiquetados por método y patrón de URI:
+ * <ul>
+ *   <li>peticion.sql.sentencias: sentencias preparadas por Hibernate</li>
+ *   <li>peticion.sql.tiempo: tiempo de ejecución JDBC</li>
+ *   <li>peticion.entidades.cargadas: entidades materializadas</li>
+ *   <li>peticion.cargas.diferidas: entidades y colecciones traídas con un SELECT propio</li>
+ *   <li>peticion.n1.sospechas: peticiones con patrón N+1</li>
+ * </ul>
+ * Se considera sospecha de N+1 que una misma entidad o colección se cargue de forma diferida
+ * al menos cursos.metricas.umbral-n-mas-uno veces en una petición; se registra un aviso en el log.
+ * El resultado queda además en el atributo MetricasPeticion.ATRIBUTO de la petición.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricasPeticionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricasPeticionFilter.class);
+
+    private static final String URI_DESCONOCIDA = "desconocida";
+
+    private final MeterRegistry registro;
+    private final int umbralNMasUno;
+
+    public MetricasPeticionFilter(MeterRegistry registro,
+                                  @Value("${cursos.metricas.umbral-n-mas-uno:10}") int umbralNMasUno) {
+        this.registro = registro;
+        this.umbralNMasUno = umbralNMasUno;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        MetricasPeticion metricas = MetricasPeticion.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MetricasPeticion.terminar();
+            request.setAttribute(MetricasPeticion.ATRIBUTO, metricas);
+            publicar(request, metricas);
+        }
+    }
+
+    private void publicar(HttpServletRequest request, MetricasPeticion metricas) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : URI_DESCONOCIDA;
+        Tags etiquetas = Tags.of("method", request.getMethod(), "uri", uri);
+
+        DistributionSummary.builder("peticion.sql.sentencias")
+            .tags(etiquetas)
+            .publishPercentileHistogram()
+            .register(registro)
+            .record(metricas.getSentencias());
+        Timer.builder("peticion.sql.tiempo")
+            .tags(etiquetas)
+            .publishPercentileHistogram()
+            .register(registro)
+            .record(metricas.getNanosJdbc(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("peticion.entidades.cargadas")
+            .tags(etiquetas)
+            .register(registro)
+            .record(metricas.getEntidadesCargadas());
+        DistributionSummary.builder("peticion.cargas.diferidas")
+            .tags(etiquetas)
+            .register(registro)
+            .record(metricas.getTotalCargasDiferidas());
+
+        for (Map.Entry<String, Integer> carga : metricas.getCargasDiferidas().entrySet()) {
+            if (carga.getValue() >= umbralNMasUno) {
+                Counter.builder("peticion.n1.sospechas").tags(etiquetas).register(registro).increment();
+                log.warn("Posible N+1 en {} {}: {} cargas diferidas de {} ({})",
+                         request.getMethod(), uri, carga.getValue(), carga.getKey(), metricas);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("{} {}: {}", request.getMethod(), uri, metricas);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Proyecto.metricas;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Mide el tiempo de ejecución de sentencias y lotes JDBC de una sesión de Hibernate y lo suma
+ * a la petición del hilo actual. Hibernate crea una instancia por sesión (hibernate.session.events.auto).
+ */
+public class TiempoJdbcListener extends BaseSessionEventListener {
+
+    private long inicio;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        inicio = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        acumular();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        inicio = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        acumular();
+    }
+
+    private void acumular() {
+        MetricasPeticion metricas = MetricasPeticion.actual();
+        if (metricas != null) {
+            metricas.tiempoJdbc(System.nanoTime() - inicio);
+        }
+    }
+}
@@ -1,7 +1,118 @@
 package com.example.Proyecto.repository;
 
+import com.example.Proyecto.dto.CursoResumen;
 import com.example.Proyecto.entity.Curso;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CursoRepository extends JpaRepository<Curso, Long> {
+
+    // El número de inscritos se lee del contador desnormalizado, sin tocar la tabla inscripciones.
+    // Los cursos eliminados pendientes de purga no aparecen en ningún resumen.
+    String SELECT_RESUMEN = "select new com.example.Proyecto.dto.CursoResumen(c.id, c.nombre, c.instructor, c.capacidad, c.inscritos) " +
+                            "from Curso c where c.eliminado = false ";
+
+    @Query(SELECT_RESUMEN + "and c.id in :ids")
+    List<CursoResumen> findResumenesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Recorrido completo para construir el índice de búsqueda, sin cargar la lista en memoria
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(SELECT_RESUMEN + "order by c.id asc")
+    Stream<CursoResumen> streamCatalogo();
+
+    @Query("select c.inscritos from Curso c where c.id = :id")
+    Optional<Integer> findInscritosById(@Param("id") Long id);
+
+    // Paginación por cursor (keyset) con clave (id).
+    // El Pageable solo limita el número de filas; el orden lo define cada consulta.
+
+    @Query(SELECT_RESUMEN + "order by c.id asc")
+    List<CursoResumen> catalogoPorId(Pageable limite);
+
+    @Query(SELECT_RESUMEN + "and c.id > :id order by c.id asc")
+    List<CursoResumen> catalogoPorIdDespuesDe(@Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_RESUMEN + "and c.id < :id order by c.id desc")
+    List<CursoResumen> catalogoPorIdAntesDe(@Param("id") Long id, Pageable limite);
+
+    // Paginación por cursor (keyset) con clave (nombre, id)
+
+    @Query(SELECT_RESUMEN + "order by c.nombre asc, c.id asc")
+    List<CursoResumen> catalogoPorNombre(Pageable limite);
+
+    @Query(SELECT_RESUMEN +
+           "and (c.nombre > :nombre or (c.nombre = :nombre and c.id > :id)) " +
+           "order by c.nombre asc, c.id asc")
+    List<CursoResumen> catalogoPorNombreDespuesDe(@Param("nombre") String nombre, @Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_RESUMEN +
+           "and (c.nombre < :nombre or (c.nombre = :nombre and c.id < :id)) " +
+           "order by c.nombre desc, c.id desc")
+    List<CursoResumen> catalogoPorNombreAntesDe(@Param("nombre") String nombre, @Param("id") Long id, Pageable limite);
+
+    // Contador de inscritos: actualizaciones atómicas de una sola fila
+
+    /**
+     * Reserva una plaza solo si queda capacidad. Devuelve 1 si se reservó y 0 si el curso está lleno
+     * (o eliminado).
+     */
+    @Modifying
+    @Query("update Curso c set c.inscritos = c.inscritos + 1 " +
+           "where c.id = :id and c.inscritos < c.capacidad and c.eliminado = false")
+    int reservarPlaza(@Param("id") Long id);
+
+    /**
+     * Reserva varias plazas de una vez solo si caben todas. Devuelve 1 si se reservaron y 0 en caso contrario.
+     */
+    @Modifying
+    @Query("update Curso c set c.inscritos = c.inscritos + :plazas " +
+           "where c.id = :id and c.inscritos + :plazas <= c.capacidad and c.eliminado = false")
+    int reservarPlazas(@Param("id") Long id, @Param("plazas") int plazas);
+
+    /**
+     * Libera una plaza ocupada. Devuelve 1 si se liberó y 0 si el contador ya estaba a cero.
+     */
+    @Modifying
+    @Query("update Curso c set c.inscritos = c.inscritos - 1 where c.id = :id and c.inscritos > 0")
+    int liberarPlaza(@Param("id") Long id);
+
+    @Query("select c.inscritos < c.capacidad from Curso c where c.id = :id and c.eliminado = false")
+    Optional<Boolean> tieneCapacidadDisponible(@Param("id") Long id);
+
+    /**
+     * Corrige los contadores que no coinciden con las filas reales de inscripciones.
+     * Devuelve el número de cursos reparados.
+     */
+    @Modifying
+    @Query("update Curso c set c.inscritos = (select count(i) from Inscripcion i where i.curso = c) " +
+           "where c.inscritos <> (select count(i) from Inscripcion i where i.curso = c)")
+    int reconciliarInscritos();
+
+    // Eliminación de cursos con sentencias masivas: ni el curso ni sus inscripciones se cargan
+
+    /**
+     * Oculta el curso hasta que se purguen sus inscripciones. Devuelve 0 si no existe o ya estaba oculto.
+     */
+    @Modifying
+    @Query("update Curso c set c.eliminado = true where c.id = :id and c.eliminado = false")
+    int ocultar(@Param("id") Long id);
+
+    @Query("select c.id from Curso c where c.eliminado = true order by c.id")
+    List<Long> findIdsEliminados();
+
+    @Modifying
+    @Query("delete from Curso c where c.id = :id")
+    int eliminarPorId(@Param("id") Long id);
 }
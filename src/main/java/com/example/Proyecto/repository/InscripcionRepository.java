@@ -1,16 +1,95 @@
 package com.example.Proyecto.repository;
 
+import com.example.Proyecto.dto.InscritoResumen;
 import com.example.Proyecto.entity.Inscripcion;
 import com.example.Proyecto.entity.Usuario;
 import com.example.Proyecto.entity.Curso;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InscripcionRepository extends JpaRepository<Inscripcion, Long> {
-    List<Inscripcion> findByUsuario(Usuario usuario);
-    List<Inscripcion> findByCurso(Curso curso);
+
+    // Datos de la inscripción, del usuario y del curso en una sola consulta con join
+    String SELECT_INSCRITO = "select new com.example.Proyecto.dto.InscritoResumen(i.id, c.id, c.nombre, u.id, " +
+                             "u.username, u.email, i.fechaInscripcion) " +
+                             "from Inscripcion i join i.usuario u join i.curso c ";
+
+    // Filas que el driver trae por viaje al recorrer un Stream de exportación
+    String TAMANO_FETCH_EXPORTACION = "500";
+
     Optional<Inscripcion> findByUsuarioAndCurso(Usuario usuario, Curso curso);
-    void deleteByUsuarioAndCurso(Usuario usuario, Curso curso);
+    boolean existsByUsuarioAndCurso(Usuario usuario, Curso curso);
+
+    @Query("select i.curso.id from Inscripcion i where i.usuario.id = :usuarioId")
+    List<Long> findCursoIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("select i.usuario.id from Inscripcion i where i.curso.id = :cursoId and i.usuario.id in :usuarioIds")
+    List<Long> findUsuarioIdsInscritos(@Param("cursoId") Long cursoId, @Param("usuarioIds") Collection<Long> usuarioIds);
+
+    @Query("select i.usuario.id, i.curso.id from Inscripcion i where i.curso.id in :cursoIds")
+    List<Object[]> findParesByCursoIdIn(@Param("cursoIds") Collection<Long> cursoIds);
+
+    // Paginación por cursor (keyset) de los inscritos de un curso con clave (id).
+    // El Pageable solo limita el número de filas; el orden lo define cada consulta.
+
+    @Query(SELECT_INSCRITO + "where c.id = :cursoId order by i.id asc")
+    List<InscritoResumen> inscritosPorCurso(@Param("cursoId") Long cursoId, Pageable limite);
+
+    @Query(SELECT_INSCRITO + "where c.id = :cursoId and i.id > :id order by i.id asc")
+    List<InscritoResumen> inscritosPorCursoDespuesDe(@Param("cursoId") Long cursoId, @Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_INSCRITO + "where c.id = :cursoId and i.id < :id order by i.id desc")
+    List<InscritoResumen> inscritosPorCursoAntesDe(@Param("cursoId") Long cursoId, @Param("id") Long id, Pageable limite);
+
+    // Exportación: se recorren con un Stream dentro de una transacción de solo lectura,
+    // sin cargar la lista completa en memoria
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(SELECT_INSCRITO + "where c.id = :cursoId order by i.id asc")
+    Stream<InscritoResumen> streamInscritosPorCurso(@Param("cursoId") Long cursoId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(SELECT_INSCRITO + "where c.eliminado = false order by c.id asc, i.id asc")
+    Stream<InscritoResumen> streamInscritos();
+
+    // Diario de inscripciones: carga inicial de los modelos de lectura y comprobación al arrancar.
+    // Las inscripciones de cursos eliminados pendientes de purga ya no cuentan.
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select i.usuario.id, c.id from Inscripcion i join i.curso c where c.eliminado = false")
+    Stream<Object[]> streamPares();
+
+    @Query("select c.id, count(i) from Inscripcion i join i.curso c where c.eliminado = false group by c.id")
+    List<Object[]> contarPorCurso();
+
+    @Modifying
+    @Query("delete from Inscripcion i where i.usuario = :usuario and i.curso = :curso")
+    int deleteByUsuarioAndCurso(@Param("usuario") Usuario usuario, @Param("curso") Curso curso);
+
+    // Eliminación de cursos: todas las inscripciones de una vez o, en la purga diferida, por lotes de IDs
+
+    @Modifying
+    @Query("delete from Inscripcion i where i.curso.id = :cursoId")
+    int deleteByCursoId(@Param("cursoId") Long cursoId);
+
+    @Query("select i.id from Inscripcion i where i.curso.id = :cursoId order by i.id asc")
+    List<Long> findIdsByCursoId(@Param("cursoId") Long cursoId, Pageable limite);
+
+    @Modifying
+    @Query("delete from Inscripcion i where i.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
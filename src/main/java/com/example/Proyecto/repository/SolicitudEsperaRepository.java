@@ -0,0 +1,46 @@
+package com.example.Proyecto.repository;
+
+import com.example.Proyecto.entity.SolicitudEspera;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SolicitudEsperaRepository extends JpaRepository<SolicitudEspera, Long> {
+
+    /**
+     * Posición (desde 1) del usuario en la cola del curso, o 0 si no está en ella
+     */
+    @Query("select count(e) from SolicitudEspera e where e.curso.id = :cursoId and e.id <= " +
+           "(select s.id from SolicitudEspera s where s.usuario.id = :usuarioId and s.curso.id = :cursoId)")
+    long posicion(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
+
+    @Query("select e.curso.id from SolicitudEspera e where e.usuario.id = :usuarioId")
+    List<Long> findCursoIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("select distinct e.curso.id from SolicitudEspera e")
+    List<Long> findCursoIdsConEspera();
+
+    /**
+     * Cabeza de la cola de un curso como pares (id de la solicitud, id del usuario) en orden de llegada.
+     * El Pageable solo limita el número de filas.
+     */
+    @Query("select e.id, e.usuario.id from SolicitudEspera e where e.curso.id = :cursoId order by e.id asc")
+    List<Object[]> primerasPorCurso(@Param("cursoId") Long cursoId, Pageable limite);
+
+    @Modifying
+    @Query("delete from SolicitudEspera e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from SolicitudEspera e where e.usuario.id = :usuarioId and e.curso.id = :cursoId")
+    int deleteByUsuarioIdAndCursoId(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
+
+    @Modifying
+    @Query("delete from SolicitudEspera e where e.curso.id = :cursoId")
+    int deleteByCursoId(@Param("cursoId") Long cursoId);
+}
@@ -1,12 +1,39 @@
 package com.example.Proyecto.repository;
 
+import com.example.Proyecto.dto.IdentidadUsuario;
 import com.example.Proyecto.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select new com.example.Proyecto.dto.IdentidadUsuario(u.id, u.username, u.email) " +
+           "from Usuario u where u.username in :usernames")
+    List<IdentidadUsuario> findIdentidadesByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // Recorrido completo para llenar los filtros de registro, sin cargar la lista en memoria
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.example.Proyecto.dto.IdentidadUsuario(u.id, u.username, u.email) from Usuario u")
+    Stream<IdentidadUsuario> streamIdentidades();
+
+    /**
+     * Sustituye el hash de la contraseña (recálculo con el coste configurado al iniciar sesión)
+     */
+    @Modifying
+    @Query("update Usuario u set u.password = :password where u.username = :username")
+    int actualizarPassword(@Param("username") String username, @Param("password") String password);
 }
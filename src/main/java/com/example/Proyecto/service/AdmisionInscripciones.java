@@ -0,0 +1,125 @@
+package com.example.Proyecto.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control de admisión de las peticiones de inscripción y de baja, antes de cualquier consulta.
+ * Al abrirse la matrícula los clics repetidos y los picos de carga se rechazan al momento en
+ * lugar de esperar en el pool de conexiones y degradar la aplicación para todos.
+ *
+ * Dos límites, sin cerrojos:
+ * - Por usuario, un cubo de fichas (cursos.admision.rafaga fichas que se reponen una cada
+ *   cursos.admision.intervalo). El cubo es un solo long con el instante en que volverá a estar
+ *   lleno: gastar una ficha lo adelanta un intervalo con compareAndSet, y el cubo está vacío
+ *   cuando ese instante queda más de (rafaga - 1) intervalos por delante.
+ * - Global, un máximo de peticiones en curso (cursos.admision.max-concurrentes). El hueco se
+ *   ocupa hasta que la inscripción termina, también si se confirma en un lote del pipeline.
+ *
+ * Un cubo sin usar durante rafaga intervalos estaría lleno, así que se puede olvidar: la tabla
+ * de cubos expira por acceso y su tamaño está acotado (cursos.admision.usuarios-maximo).
+ */
+@Component
+public class AdmisionInscripciones {
+
+    /** Reintento sugerido cuando el rechazo se debe a la carga global y no al usuario */
+    private static final Duration REINTENTO_SATURADO = Duration.ofSeconds(1);
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final int maxConcurrentes;
+    /** Origen de los instantes de los cubos, para que sean siempre positivos */
+    private final long origen = System.nanoTime();
+
+    private final Cache<String, AtomicLong> cubos;
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    private final Counter admitidas;
+    private final Counter rechazosUsuario;
+    private final Counter rechazosConcurrencia;
+
+    public AdmisionInscripciones(MeterRegistry registro,
+                                 @Value("${cursos.admision.rafaga:5}") int rafaga,
+                                 @Value("${cursos.admision.intervalo:1s}") Duration intervalo,
+                                 @Value("${cursos.admision.max-concurrentes:20}") int maxConcurrentes,
+                                 @Value("${cursos.admision.usuarios-maximo:100000}") long usuariosMaximo) {
+        int fichas = Math.max(1, rafaga);
+        this.intervaloNanos = Math.max(1, intervalo.toNanos());
+        this.toleranciaNanos = (fichas - 1) * intervaloNanos;
+        this.maxConcurrentes = Math.max(1, maxConcurrentes);
+        this.cubos = Caffeine.newBuilder()
+            .maximumSize(Math.max(1, usuariosMaximo))
+            .expireAfterAccess(Duration.ofNanos(fichas * intervaloNanos))
+            .build();
+
+        this.admitidas = Counter.builder("inscripciones.admision.admitidas").register(registro);
+        this.rechazosUsuario = Counter.builder("inscripciones.admision.rechazos")
+            .tag("motivo", "usuario").register(registro);
+        this.rechazosConcurrencia = Counter.builder("inscripciones.admision.rechazos")
+            .tag("motivo", "concurrencia").register(registro);
+        Gauge.builder("inscripciones.admision.en-curso", enCurso, AtomicInteger::get).register(registro);
+    }
+
+    /**
+     * Admite la petición del usuario o lanza InscripcionesSaturadasException. Tras admitirla
+     * hay que llamar a liberar() cuando termine, haya ido bien o no.
+     */
+    public void admitir(String username) {
+        // Primero el hueco global: una petición rechazada por la carga no gasta ficha del usuario
+        int actuales;
+        do {
+            actuales = enCurso.get();
+            if (actuales >= maxConcurrentes) {
+                rechazosConcurrencia.increment();
+                throw new InscripcionesSaturadasException(
+                    "Hay muchas inscripciones en curso ahora mismo, inténtalo de nuevo en unos segundos",
+                    REINTENTO_SATURADO);
+            }
+        } while (!enCurso.compareAndSet(actuales, actuales + 1));
+        long espera = gastarFicha(username);
+        if (espera > 0) {
+            liberar();
+            rechazosUsuario.increment();
+            throw new InscripcionesSaturadasException(
+                "Demasiadas peticiones seguidas: espera un momento antes de volver a intentarlo",
+                Duration.ofNanos(espera));
+        }
+        admitidas.increment();
+    }
+
+    public void liberar() {
+        enCurso.decrementAndGet();
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    /**
+     * Gasta una ficha del cubo del usuario: 0 si la había, o los nanosegundos que faltan para
+     * la siguiente
+     */
+    private long gastarFicha(String username) {
+        AtomicLong llenoEn = cubos.get(username, u -> new AtomicLong());
+        long ahora = System.nanoTime() - origen;
+        while (true) {
+            long actual = llenoEn.get();
+            long base = Math.max(actual, ahora);
+            if (base - ahora > toleranciaNanos) {
+                return base - ahora - toleranciaNanos;
+            }
+            if (llenoEn.compareAndSet(actual, base + intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CambioPlazas;
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.util.Transacciones;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Avisos en vivo del número de inscritos de los cursos (Server-Sent Events), para que los
+ * clientes mantengan una conexión barata en lugar de recargar el catálogo cada pocos segundos.
+ *
+ * Los cambios se anotan al confirmar cada transacción que mueve plazas y se agrupan por curso
+ * en ventanas (cursos.avisos.ventana): cada ventana produce como mucho un evento con el valor
+ * final de cada curso cambiado, leído de la caché de cursos. La trama se codifica una vez y se
+ * comparte entre todos los suscriptores.
+ *
+ * Las escrituras nunca bloquean: cada suscriptor tiene una cola acotada de tramas pendientes
+ * (cursos.avisos.capacidad-cola) que se vacía mientras su conexión admite datos. Un cliente
+ * que no lee llena su cola y se desconecta; el navegador (EventSource) vuelve a conectar solo.
+ * Así la memoria por suscriptor está acotada y un cliente lento no retrasa a los demás.
+ */
+@Component
+public class AvisosPlazas {
+
+    private static final Logger log = LoggerFactory.getLogger(AvisosPlazas.class);
+
+    /** Primera trama de cada conexión: tiempo de espera del cliente antes de reconectar */
+    private static final byte[] TRAMA_INICIAL = "retry: 5000\n\n".getBytes(StandardCharsets.UTF_8);
+    /** Comentario periódico que mantiene viva la conexión y detecta clientes desaparecidos */
+    private static final byte[] TRAMA_LATIDO = ": latido\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Conexión de un suscriptor. Solo se llama a enviar cuando listo() es true, de modo que
+     * ninguna escritura bloquea; cuando la conexión vuelve a admitir datos debe llamar a
+     * AvisosPlazas.reanudar.
+     */
+    public interface Suscriptor {
+
+        boolean listo() throws IOException;
+
+        void enviar(byte[] trama) throws IOException;
+
+        void cerrar();
+    }
+
+    private final CacheCursos cacheCursos;
+    private final ObjectWriter escritorJson;
+    private final int capacidadCola;
+    private final int maxSuscriptores;
+    private final ScheduledExecutorService temporizador;
+
+    /** Cursos con cambios confirmados desde la última ventana */
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final Counter eventos;
+    private final Counter cursosAvisados;
+    private final Counter descartadosLentos;
+    private final Counter descartadosError;
+    private final Counter rechazados;
+
+    public AvisosPlazas(CacheCursos cacheCursos, ObjectMapper objectMapper, MeterRegistry registro,
+                        @Value("${cursos.avisos.ventana:250ms}") Duration ventana,
+                        @Value("${cursos.avisos.latido:15s}") Duration latido,
+                        @Value("${cursos.avisos.capacidad-cola:32}") int capacidadCola,
+                        @Value("${cursos.avisos.max-suscriptores:20000}") int maxSuscriptores) {
+        this.cacheCursos = cacheCursos;
+        this.escritorJson = objectMapper.writerFor(new TypeReference<List<CambioPlazas>>() { });
+        this.capacidadCola = Math.max(1, capacidadCola);
+        this.maxSuscriptores = maxSuscriptores;
+
+        this.eventos = Counter.builder("avisos.plazas.eventos").register(registro);
+        this.cursosAvisados = Counter.builder("avisos.plazas.cursos").register(registro);
+        this.descartadosLentos = Counter.builder("avisos.plazas.descartados").tag("motivo", "lento").register(registro);
+        this.descartadosError = Counter.builder("avisos.plazas.descartados").tag("motivo", "error").register(registro);
+        this.rechazados = Counter.builder("avisos.plazas.rechazados").register(registro);
+        Gauge.builder("avisos.plazas.suscriptores", suscripciones, Set::size).register(registro);
+
+        // Hilo propio: el reparto no compite con las tareas programadas de la aplicación
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "avisos-plazas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        temporizador.scheduleWithFixedDelay(this::emitirSinFallar, ventana.toMillis(), ventana.toMillis(),
+                                            TimeUnit.MILLISECONDS);
+        temporizador.scheduleWithFixedDelay(this::latido, latido.toMillis(), latido.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Anota que el número de inscritos del curso cambió; se avisa al confirmar la transacción actual
+     */
+    public void cambio(Long cursoId) {
+        Transacciones.alConfirmar(() -> pendientes.add(cursoId));
+    }
+
+    /**
+     * Da de alta un suscriptor. Lanza IllegalStateException si ya se alcanzó el máximo.
+     */
+    public Suscripcion suscribir(Suscriptor destino) {
+        if (suscripciones.size() >= maxSuscriptores) {
+            rechazados.increment();
+            throw new IllegalStateException("Demasiados suscriptores a los avisos de plazas");
+        }
+        Suscripcion suscripcion = new Suscripcion(destino);
+        suscripciones.add(suscripcion);
+        encolar(suscripcion, TRAMA_INICIAL);
+        return suscripcion;
+    }
+
+    /**
+     * La conexión vuelve a admitir datos: se sigue vaciando su cola
+     */
+    public void reanudar(Suscripcion suscripcion) {
+        synchronized (suscripcion) {
+            if (!suscripcion.cerrada) {
+                escribir(suscripcion);
+            }
+        }
+    }
+
+    /**
+     * El cliente se ha desconectado o la conexión ha terminado
+     */
+    public void cancelar(Suscripcion suscripcion) {
+        synchronized (suscripcion) {
+            suscripcion.cerrada = true;
+            suscripcion.cola.clear();
+        }
+        suscripciones.remove(suscripcion);
+    }
+
+    /**
+     * Envía un evento con el número de inscritos actual de los cursos cambiados desde la
+     * ventana anterior. Lo llama el temporizador cada cursos.avisos.ventana.
+     */
+    public void emitir() {
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            // Se retira antes de leer el valor: un cambio posterior vuelve a anotarlo
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty() || suscripciones.isEmpty()) {
+            return;
+        }
+
+        List<CursoResumen> cursos = cacheCursos.resumenes(ids);
+        if (cursos.isEmpty()) {
+            return;
+        }
+        List<CambioPlazas> cambios = new ArrayList<>(cursos.size());
+        for (CursoResumen curso : cursos) {
+            cambios.add(new CambioPlazas(curso.getId(), curso.getInscritos()));
+        }
+        String datos;
+        try {
+            datos = escritorJson.writeValueAsString(cambios);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] trama = ("id: " + secuencia.incrementAndGet() + "\nevent: plazas\ndata: " + datos + "\n\n")
+            .getBytes(StandardCharsets.UTF_8);
+        eventos.increment();
+        cursosAvisados.increment(cambios.size());
+        difundir(trama);
+    }
+
+    /**
+     * Comentario SSE a todos los suscriptores
+     */
+    public void latido() {
+        difundir(TRAMA_LATIDO);
+    }
+
+    public int getSuscriptores() {
+        return suscripciones.size();
+    }
+
+    /**
+     * Descarta los cambios anotados (pensado para pruebas)
+     */
+    public void limpiar() {
+        pendientes.clear();
+    }
+
+    @PreDestroy
+    public void detener() {
+        temporizador.shutdownNow();
+        for (Suscripcion suscripcion : suscripciones) {
+            cancelar(suscripcion);
+            suscripcion.destino.cerrar();
+        }
+    }
+
+    private void emitirSinFallar() {
+        try {
+            emitir();
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría la tarea periódica
+            log.warn("No se pudieron emitir los avisos de plazas", e);
+        }
+    }
+
+    private void difundir(byte[] trama) {
+        for (Suscripcion suscripcion : suscripciones) {
+            encolar(suscripcion, trama);
+        }
+    }
+
+    private void encolar(Suscripcion suscripcion, byte[] trama) {
+        boolean lento;
+        synchronized (suscripcion) {
+            if (suscripcion.cerrada) {
+                return;
+            }
+            lento = suscripcion.cola.size() >= capacidadCola;
+            if (!lento) {
+                suscripcion.cola.add(trama);
+                escribir(suscripcion);
+                return;
+            }
+        }
+        descartadosLentos.increment();
+        descartar(suscripcion);
+    }
+
+    /**
+     * Vacía la cola mientras la conexión admita datos. Debe llamarse con el cerrojo de la suscripción.
+     */
+    private void escribir(Suscripcion suscripcion) {
+        try {
+            while (!suscripcion.cola.isEmpty() && suscripcion.destino.listo()) {
+                suscripcion.destino.enviar(suscripcion.cola.poll());
+            }
+        } catch (IOException | RuntimeException e) {
+            suscripcion.cerrada = true;
+            suscripcion.cola.clear();
+            descartadosError.increment();
+            suscripciones.remove(suscripcion);
+            suscripcion.destino.cerrar();
+        }
+    }
+
+    private void descartar(Suscripcion suscripcion) {
+        cancelar(suscripcion);
+        suscripcion.destino.cerrar();
+    }
+
+    /**
+     * Suscriptor dado de alta con sus tramas pendientes de enviar
+     */
+    public static final class Suscripcion {
+
+        private final Suscriptor destino;
+        private final ArrayDeque<byte[]> cola = new ArrayDeque<>();
+        private boolean cerrada;
+
+        private Suscripcion(Suscriptor destino) {
+            this.destino = destino;
+        }
+
+        /**
+         * Tramas pendientes de enviar
+         */
+        synchronized int pendientes() {
+            return cola.size();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.util.Transacciones;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caché de lectura de cursos delante de CursoService.
+ * <ul>
+ *   <li>cursos: resumen inmutable de cada curso por ID, con tamaño máximo,
+ *       caducidad y expulsión W-TinyLFU (combina frecuencia y recencia).</li>
+ *   <li>catalogo.paginas: solo los IDs de cada página del catálogo, de modo que un
+ *       cambio de plazas no obliga a descartar páginas, solo a actualizar un curso.</li>
+ * </ul>
+ * Las invalidaciones se aplican tras confirmar la transacción que modificó los datos.
+ * Las cargas que no pasan por cursos.get(id, cargador) guardan lo leído solo si ningún curso
+ * de su franja ha cambiado desde que empezó la lectura: así una inscripción confirmada a
+ * mitad de la consulta no deja un número de inscritos antiguo en caché hasta que caduque.
+ * Igual con las páginas de IDs y el total frente a las altas y bajas de cursos.
+ * Publica cache.gets, cache.evictions, cache.load.duration y cache.hit.ratio por caché.
+ */
+@Component
+public class CacheCursos {
+
+    /** Franjas de IDs con su propia marca de cambio; potencia de dos */
+    private static final int FRANJAS = 1024;
+
+    private final CursoRepository cursoRepository;
+    private final Cache<Long, CursoResumen> cursos;
+    private final Cache<String, PaginaIds> paginas;
+    private final AtomicReference<Long> totalCursos = new AtomicReference<>();
+
+    /**
+     * Secuencia de cambios confirmados, y el último de cada franja, de todos los cursos y de la
+     * estructura del catálogo (páginas y total)
+     */
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicLongArray ultimoCambioFranja = new AtomicLongArray(FRANJAS);
+    private final AtomicLong ultimoCambioTodos = new AtomicLong();
+    private final AtomicLong ultimoCambioCatalogo = new AtomicLong();
+
+    public CacheCursos(CursoRepository cursoRepository, MeterRegistry registro,
+                       @Value("${cursos.cache.cursos.tamano-maximo:10000}") long tamanoCursos,
+                       @Value("${cursos.cache.cursos.ttl:10m}") Duration ttlCursos,
+                       @Value("${cursos.cache.paginas.tamano-maximo:1000}") long tamanoPaginas,
+                       @Value("${cursos.cache.paginas.ttl:1m}") Duration ttlPaginas) {
+        this.cursoRepository = cursoRepository;
+        this.cursos = Caffeine.newBuilder()
+            .maximumSize(tamanoCursos)
+            .expireAfterWrite(ttlCursos)
+            .recordStats()
+            .build();
+        this.paginas = Caffeine.newBuilder()
+            .maximumSize(tamanoPaginas)
+            .expireAfterWrite(ttlPaginas)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(registro, cursos, "cursos");
+        CaffeineCacheMetrics.monitor(registro, paginas, "catalogo.paginas");
+        Gauge.builder("cache.hit.ratio", cursos, cache -> cache.stats().hitRate())
+            .tag("cache", "cursos").register(registro);
+        Gauge.builder("cache.hit.ratio", paginas, cache -> cache.stats().hitRate())
+            .tag("cache", "catalogo.paginas").register(registro);
+    }
+
+    /**
+     * Busca el resumen de un curso, cargándolo de la base de datos si no está en caché
+     */
+    public Optional<CursoResumen> buscar(Long id) {
+        return Optional.ofNullable(cursos.get(id, clave -> {
+            List<CursoResumen> encontrados = cursoRepository.findResumenesByIdIn(Collections.singleton(clave));
+            return encontrados.isEmpty() ? null : encontrados.get(0);
+        }));
+    }
+
+    /**
+     * Devuelve una página del catálogo. La primera vez se calcula con el cargador; después
+     * se reconstruye a partir de los IDs guardados y de los resúmenes cacheados por curso.
+     */
+    public PaginaCatalogo pagina(String clave, Supplier<PaginaCatalogo> cargador) {
+        PaginaIds ids = paginas.getIfPresent(clave);
+        if (ids == null) {
+            long inicio = secuencia.get();
+            PaginaCatalogo pagina = cargador.get();
+            for (CursoResumen curso : pagina.getCursos()) {
+                // No se pisan valores más recientes que haya dejado una inscripción confirmada
+                if (cursos.asMap().putIfAbsent(curso.getId(), curso) == null) {
+                    descartarSiCambio(curso, inicio);
+                }
+            }
+            PaginaIds nuevos = new PaginaIds(pagina);
+            paginas.put(clave, nuevos);
+            if (ultimoCambioCatalogo.get() > inicio) {
+                // Un alta o baja confirmada durante la carga: la lista de IDs puede estar incompleta
+                paginas.asMap().remove(clave, nuevos);
+            }
+            return pagina;
+        }
+
+        return new PaginaCatalogo(resumenes(ids.ids), ids.orden, ids.tamano, ids.hayAnterior, ids.haySiguiente);
+    }
+
+    /**
+     * Resúmenes de los cursos indicados en el mismo orden, tomando de la caché los que estén
+     * y cargando el resto en una sola consulta. Los IDs que ya no existen se omiten.
+     */
+    public List<CursoResumen> resumenes(List<Long> ids) {
+        long inicio = secuencia.get();
+        Map<Long, CursoResumen> cargados = new HashMap<>();
+        Map<Long, CursoResumen> resueltos = cursos.getAll(ids, faltan -> {
+            for (CursoResumen curso : cursoRepository.findResumenesByIdIn(new ArrayList<>(faltan))) {
+                cargados.put(curso.getId(), curso);
+            }
+            return cargados;
+        });
+        // getAll ya los ha guardado: se retiran los que un cambio confirmado haya dejado antiguos
+        for (CursoResumen curso : cargados.values()) {
+            descartarSiCambio(curso, inicio);
+        }
+        List<CursoResumen> lista = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CursoResumen curso = resueltos.get(id);
+            if (curso != null) {
+                lista.add(curso);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Devuelve el número total de cursos, cacheado hasta el próximo alta o baja
+     */
+    public long total(Supplier<Long> cargador) {
+        Long total = totalCursos.get();
+        if (total == null) {
+            long inicio = secuencia.get();
+            total = cargador.get();
+            totalCursos.set(total);
+            if (ultimoCambioCatalogo.get() > inicio) {
+                totalCursos.compareAndSet(total, null);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Invalida un curso concreto (datos editados) tras confirmar la transacción
+     */
+    public void invalidarCurso(Long id) {
+        Transacciones.alConfirmar(() -> {
+            marcarCambio(id);
+            cursos.invalidate(id);
+        });
+    }
+
+    /**
+     * Invalida la estructura del catálogo (altas, bajas, cambios de nombre) tras confirmar la transacción
+     */
+    public void invalidarCatalogo() {
+        Transacciones.alConfirmar(() -> {
+            ultimoCambioCatalogo.accumulateAndGet(secuencia.incrementAndGet(), Math::max);
+            paginas.invalidateAll();
+            totalCursos.set(null);
+        });
+    }
+
+    /**
+     * Invalida todos los resúmenes de cursos, por ejemplo tras reconciliar los contadores
+     */
+    public void invalidarCursos() {
+        Transacciones.alConfirmar(() -> {
+            ultimoCambioTodos.accumulateAndGet(secuencia.incrementAndGet(), Math::max);
+            cursos.invalidateAll();
+        });
+    }
+
+    /**
+     * Actualiza el número de inscritos cacheado de un curso con el valor de la transacción
+     * actual, una vez confirmada. Si el curso no está en caché no se consulta nada y solo se
+     * invalida, por si una carga concurrente leyó el valor anterior a la confirmación.
+     * Debe llamarse después de modificar el contador, dentro de la misma transacción.
+     */
+    public void refrescarInscritosAlConfirmar(Long cursoId) {
+        if (cursos.getIfPresent(cursoId) == null) {
+            invalidarCurso(cursoId);
+            return;
+        }
+        Optional<Integer> inscritos = cursoRepository.findInscritosById(cursoId);
+        Transacciones.alConfirmar(() -> {
+            marcarCambio(cursoId);
+            if (inscritos.isPresent()) {
+                // computeIfPresent espera a una carga en curso de la misma clave y la corrige
+                cursos.asMap().computeIfPresent(cursoId, (id, curso) -> curso.conInscritos(inscritos.get()));
+            } else {
+                cursos.invalidate(cursoId);
+            }
+        });
+    }
+
+    public void limpiar() {
+        long cambio = secuencia.incrementAndGet();
+        ultimoCambioTodos.accumulateAndGet(cambio, Math::max);
+        ultimoCambioCatalogo.accumulateAndGet(cambio, Math::max);
+        cursos.invalidateAll();
+        paginas.invalidateAll();
+        totalCursos.set(null);
+    }
+
+    /**
+     * Anota un cambio confirmado del curso. Se llama antes de tocar su entrada en caché.
+     */
+    private void marcarCambio(Long id) {
+        ultimoCambioFranja.accumulateAndGet(franja(id), secuencia.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Retira un resumen recién guardado si su curso pudo cambiar después de que empezara la
+     * lectura que lo produjo. Se comprueba después de guardarlo, de modo que un cambio que
+     * llegue entre medias o bien se ve aquí o bien invalida la entrada por su cuenta.
+     */
+    private void descartarSiCambio(CursoResumen curso, long inicio) {
+        if (ultimoCambioTodos.get() > inicio || ultimoCambioFranja.get(franja(curso.getId())) > inicio) {
+            cursos.asMap().remove(curso.getId(), curso);
+        }
+    }
+
+    private static int franja(Long id) {
+        return Long.hashCode(id) & (FRANJAS - 1);
+    }
+
+    /**
+     * IDs de una página del catálogo junto con su información de navegación
+     */
+    private static final class PaginaIds {
+        private final List<Long> ids;
+        private final OrdenCatalogo orden;
+        private final int tamano;
+        private final boolean hayAnterior;
+        private final boolean haySiguiente;
+
+        private PaginaIds(PaginaCatalogo pagina) {
+            this.ids = new ArrayList<>(pagina.getCursos().size());
+            for (CursoResumen curso : pagina.getCursos()) {
+                ids.add(curso.getId());
+            }
+            this.orden = pagina.getOrden();
+            this.tamano = pagina.getTamano();
+            this.hayAnterior = pagina.isHayAnterior();
+            this.haySiguiente = pagina.isHaySiguiente();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.IdentidadUsuario;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de identidades de usuario indexada por nombre de usuario.
+ * Al superar el tamaño máximo expulsa la entrada usada hace más tiempo (LRU).
+ * Publica las métricas cache.gets (hit/miss), cache.evictions y cache.size
+ * con la etiqueta cache=identidades.
+ */
+@Component
+public class CacheIdentidades {
+
+    private static final String NOMBRE = "identidades";
+
+    private final Map<String, IdentidadUsuario> entradas;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+
+    public CacheIdentidades(@Value("${cursos.cache.identidades.tamano-maximo:10000}") int tamanoMaximo,
+                            MeterRegistry registro) {
+        int maximo = Math.max(1, tamanoMaximo);
+        this.entradas = new LinkedHashMap<String, IdentidadUsuario>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdentidadUsuario> mayor) {
+                boolean expulsar = size() > maximo;
+                if (expulsar) {
+                    expulsiones.increment();
+                }
+                return expulsar;
+            }
+        };
+
+        FunctionCounter.builder("cache.gets", aciertos, LongAdder::sum)
+            .tag("cache", NOMBRE).tag("result", "hit").register(registro);
+        FunctionCounter.builder("cache.gets", fallos, LongAdder::sum)
+            .tag("cache", NOMBRE).tag("result", "miss").register(registro);
+        FunctionCounter.builder("cache.evictions", expulsiones, LongAdder::sum)
+            .tag("cache", NOMBRE).register(registro);
+        Gauge.builder("cache.size", this, CacheIdentidades::getTamano)
+            .tag("cache", NOMBRE).register(registro);
+    }
+
+    /**
+     * Devuelve la identidad cacheada o la carga con la función indicada si no está.
+     * La carga se hace fuera del cerrojo para no bloquear al resto de peticiones.
+     */
+    public IdentidadUsuario obtener(String username, Function<String, IdentidadUsuario> cargador) {
+        IdentidadUsuario identidad;
+        synchronized (entradas) {
+            identidad = entradas.get(username);
+        }
+        if (identidad != null) {
+            aciertos.increment();
+            return identidad;
+        }
+        fallos.increment();
+        identidad = cargador.apply(username);
+        if (identidad != null) {
+            guardar(identidad);
+        }
+        return identidad;
+    }
+
+    /**
+     * Devuelve las identidades de varios nombres de usuario, indexadas por nombre.
+     * Los que no están en caché se cargan de una sola vez con el cargador indicado;
+     * los nombres que no existen no aparecen en el resultado.
+     */
+    public Map<String, IdentidadUsuario> obtenerTodas(Collection<String> usernames,
+                                                      Function<Collection<String>, Collection<IdentidadUsuario>> cargador) {
+        Map<String, IdentidadUsuario> encontradas = new HashMap<>();
+        List<String> faltan = new ArrayList<>();
+        synchronized (entradas) {
+            for (String username : usernames) {
+                IdentidadUsuario identidad = entradas.get(username);
+                if (identidad != null) {
+                    encontradas.put(username, identidad);
+                } else {
+                    faltan.add(username);
+                }
+            }
+        }
+        aciertos.add(encontradas.size());
+        fallos.add(faltan.size());
+        if (!faltan.isEmpty()) {
+            for (IdentidadUsuario identidad : cargador.apply(faltan)) {
+                encontradas.put(identidad.getUsername(), identidad);
+                guardar(identidad);
+            }
+        }
+        return encontradas;
+    }
+
+    public void guardar(IdentidadUsuario identidad) {
+        synchronized (entradas) {
+            entradas.put(identidad.getUsername(), identidad);
+        }
+    }
+
+    /**
+     * Elimina la entrada de un nombre de usuario
+     */
+    public void invalidar(String username) {
+        synchronized (entradas) {
+            entradas.remove(username);
+        }
+    }
+
+    /**
+     * Elimina la entrada de un usuario por su ID (por ejemplo, si cambió su nombre de usuario)
+     */
+    public void invalidarPorId(Long id) {
+        synchronized (entradas) {
+            entradas.values().removeIf(identidad -> identidad.getId().equals(id));
+        }
+    }
+
+    public void limpiar() {
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.Proyecto.service;
+
+/**
+ * Se lanza al editar un curso con una capacidad menor que el número de inscritos que ya
+ * tiene. Permite devolverlo como error del campo capacidad del formulario.
+ */
+public class CapacidadInsuficienteException extends RuntimeException {
+
+    public CapacidadInsuficienteException(int inscritos) {
+        super("La capacidad no puede ser menor que los " + inscritos + " inscritos actuales");
+    }
+}
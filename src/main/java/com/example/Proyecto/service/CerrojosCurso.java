@@ -0,0 +1,54 @@
+package com.example.Proyecto.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos repartidos por curso (lock striping). Las escrituras del mismo curso
+ * esperan aquí, sin ocupar conexiones del pool, en lugar de hacerlo sobre el
+ * bloqueo de fila de la base de datos. Cursos distintos avanzan en paralelo.
+ * Lo comparten el modo síncrono y el pipeline de inscripciones para que sus
+ * confirmaciones sobre un mismo curso queden ordenadas en este nodo.
+ */
+@Component
+public class CerrojosCurso {
+
+    private final Lock[] franjas;
+
+    public CerrojosCurso(@Value("${cursos.inscripcion.franjas:64}") int numeroFranjas) {
+        this.franjas = new Lock[Math.max(1, numeroFranjas)];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Devuelve el cerrojo que protege las escrituras del curso indicado
+     */
+    public Lock de(Long cursoId) {
+        return franjas[Math.floorMod(cursoId.hashCode(), franjas.length)];
+    }
+
+    /**
+     * Devuelve los cerrojos de varios cursos sin repetir y siempre en el mismo orden,
+     * de modo que quien necesite varios a la vez pueda tomarlos sin interbloqueos
+     */
+    public List<Lock> de(Collection<Long> cursoIds) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Long cursoId : cursoIds) {
+            indices.add(Math.floorMod(cursoId.hashCode(), franjas.length));
+        }
+        List<Lock> cerrojos = new ArrayList<>(indices.size());
+        for (int indice : indices) {
+            cerrojos.add(franjas[indice]);
+        }
+        return cerrojos;
+    }
+}
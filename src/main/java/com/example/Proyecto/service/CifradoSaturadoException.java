@@ -0,0 +1,15 @@
+package com.example.Proyecto.service;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * El pool de cifrado de contraseñas está lleno o no respondió a tiempo.
+ * Es una excepción de autenticación para que el inicio de sesión la trate como un fallo
+ * (con su propio mensaje) y no como un error interno.
+ */
+public class CifradoSaturadoException extends AuthenticationServiceException {
+
+    public CifradoSaturadoException(Throwable causa) {
+        super("Hay demasiadas operaciones de contraseña en curso, inténtalo de nuevo en unos segundos", causa);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.Proyecto.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordEncoder BCrypt que calcula los hashes en un pool de hilos propio y acotado.
+ * Así un pico de inicios de sesión o de registros solo ocupa esos hilos de CPU: el resto de
+ * peticiones (catálogo, inscripciones) sigue teniendo procesador. Si el pool y su cola están
+ * llenos, o el resultado tarda más de la espera máxima, se rechaza al momento con
+ * CifradoSaturadoException en lugar de acumular peticiones bloqueadas.
+ *
+ * El coste es configurable; upgradeEncoding avisa de los hashes guardados con otro coste
+ * para que Spring Security los vuelva a calcular al iniciar sesión (UserDetailsServiceImpl).
+ */
+public class CodificadorContrasenas implements PasswordEncoder {
+
+    private static final Pattern PREFIJO_BCRYPT = Pattern.compile("\\A\\$2[abyx]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int coste;
+    private final ThreadPoolExecutor hilos;
+    private final long esperaMaximaNanos;
+
+    private final Timer tiempoCodificar;
+    private final Timer tiempoComprobar;
+    private final Timer tiempoEnCola;
+    private final Counter rechazos;
+
+    public CodificadorContrasenas(int coste, int numeroHilos, int capacidadCola, Duration esperaMaxima,
+                                  MeterRegistry registro) {
+        this.bcrypt = new BCryptPasswordEncoder(coste);
+        this.coste = coste;
+        this.hilos = new ThreadPoolExecutor(Math.max(1, numeroHilos), Math.max(1, numeroHilos),
+                                            0L, TimeUnit.MILLISECONDS,
+                                            new ArrayBlockingQueue<>(Math.max(1, capacidadCola)), r -> {
+            Thread hilo = new Thread(r, "cifrado-contrasenas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+
+        this.tiempoCodificar = Timer.builder("contrasenas.hash.tiempo").tag("operacion", "codificar")
+            .publishPercentileHistogram().register(registro);
+        this.tiempoComprobar = Timer.builder("contrasenas.hash.tiempo").tag("operacion", "comprobar")
+            .publishPercentileHistogram().register(registro);
+        this.tiempoEnCola = Timer.builder("contrasenas.hash.espera").register(registro);
+        this.rechazos = Counter.builder("contrasenas.hash.rechazos").register(registro);
+        Gauge.builder("contrasenas.hash.cola", hilos, pool -> pool.getQueue().size()).register(registro);
+        Gauge.builder("contrasenas.hash.activos", hilos, ThreadPoolExecutor::getActiveCount).register(registro);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(tiempoCodificar, () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(tiempoComprobar, () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * true si el hash se calculó con un coste distinto del configurado (mayor o menor)
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher prefijo = PREFIJO_BCRYPT.matcher(encodedPassword);
+        return prefijo.find() && Integer.parseInt(prefijo.group(1)) != coste;
+    }
+
+    public int getCoste() {
+        return coste;
+    }
+
+    private <T> T ejecutar(Timer tiempo, Callable<T> operacion) {
+        long encolado = System.nanoTime();
+        Future<T> resultado;
+        try {
+            resultado = hilos.submit(() -> {
+                tiempoEnCola.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return tiempo.recordCallable(operacion);
+            });
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new CifradoSaturadoException(e);
+        }
+        try {
+            return resultado.get(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            rechazos.increment();
+            throw new CifradoSaturadoException(e);
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CifradoSaturadoException(e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        hilos.shutdown();
+        hilos.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Proyecto.service;
+
+/**
+ * Se lanza cuando una inscripción no obtiene plaza: el curso está completo o tiene
+ * una lista de espera por delante. Permite apuntar al usuario en la lista de espera
+ * sin depender del texto del mensaje.
+ */
+public class CursoLlenoException extends RuntimeException {
+
+    public CursoLlenoException() {
+        super(InscripcionPipeline.MENSAJE_CURSO_LLENO);
+    }
+}
@@ -1,61 +1,314 @@
 package com.example.Proyecto.service;
 
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.CursorCatalogo;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
 import com.example.Proyecto.entity.Curso;
 import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.InscripcionRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Service
+@Timed(value = "servicio.metodo", histogram = true)
 public class CursoService {
     
     private final CursoRepository cursoRepository;
+    private final CacheCursos cacheCursos;
+    private final VersionesCursos versiones;
+    private final ListaEsperaService listaEspera;
+    private final IndiceBusquedaCursos indiceBusqueda;
+    private final DiarioInscripciones diario;
+    private final InscripcionRepository inscripcionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CerrojosCurso cerrojos;
+    private volatile ModoEliminacion modoEliminacion;
+    private final int tamanoLotePurga;
 
-    public CursoService(CursoRepository cursoRepository) {
+    @Value("${cursos.catalogo.tamano-pagina:20}")
+    private int tamanoPaginaPorDefecto = 20;
+
+    @Value("${cursos.catalogo.tamano-maximo:100}")
+    private int tamanoPaginaMaximo = 100;
+
+    public CursoService(CursoRepository cursoRepository, CacheCursos cacheCursos, VersionesCursos versiones,
+                        ListaEsperaService listaEspera, IndiceBusquedaCursos indiceBusqueda,
+                        DiarioInscripciones diario, InscripcionRepository inscripcionRepository,
+                        PlatformTransactionManager transactionManager, CerrojosCurso cerrojos,
+                        @Value("${cursos.eliminacion.modo:INMEDIATO}") ModoEliminacion modoEliminacion,
+                        @Value("${cursos.eliminacion.tamano-lote:1000}") int tamanoLotePurga) {
         this.cursoRepository = cursoRepository;
+        this.cacheCursos = cacheCursos;
+        this.versiones = versiones;
+        this.listaEspera = listaEspera;
+        this.indiceBusqueda = indiceBusqueda;
+        this.diario = diario;
+        this.inscripcionRepository = inscripcionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cerrojos = cerrojos;
+        this.modoEliminacion = modoEliminacion;
+        this.tamanoLotePurga = Math.max(1, tamanoLotePurga);
+    }
+
+    /**
+     * Obtiene una página del catálogo usando paginación por cursor (keyset).
+     * Si se indica "despues" se devuelve la página siguiente a ese cursor; si se
+     * indica "antes", la página anterior. Cada página cuesta una sola consulta
+     * indexada, independientemente de lo lejos que esté del inicio, y las páginas
+     * ya visitadas se sirven desde la caché de cursos.
+     */
+    public PaginaCatalogo listarCatalogo(OrdenCatalogo orden, Integer tamano, String despues, String antes) {
+        int limite = normalizarTamano(tamano);
+        String clave = orden + "|" + limite + "|" + (despues != null ? despues : "") + "|" + (antes != null ? antes : "");
+        return cacheCursos.pagina(clave, () -> consultarCatalogo(orden, limite, despues, antes));
+    }
+
+    private PaginaCatalogo consultarCatalogo(OrdenCatalogo orden, int limite, String despues, String antes) {
+        // Se pide una fila extra para saber si existe otra página en la dirección recorrida
+        Pageable pagina = PageRequest.of(0, limite + 1);
+
+        if (antes != null && !antes.isEmpty()) {
+            CursorCatalogo cursor = CursorCatalogo.decodificar(antes);
+            List<CursoResumen> filas = orden == OrdenCatalogo.NOMBRE
+                ? cursoRepository.catalogoPorNombreAntesDe(cursor.getNombre(), cursor.getId(), pagina)
+                : cursoRepository.catalogoPorIdAntesDe(cursor.getId(), pagina);
+            boolean hayAnterior = filas.size() > limite;
+            List<CursoResumen> cursos = new ArrayList<>(filas.subList(0, Math.min(limite, filas.size())));
+            Collections.reverse(cursos);
+            return new PaginaCatalogo(cursos, orden, limite, hayAnterior, true);
+        }
+
+        List<CursoResumen> filas;
+        boolean hayAnterior = despues != null && !despues.isEmpty();
+        if (hayAnterior) {
+            CursorCatalogo cursor = CursorCatalogo.decodificar(despues);
+            filas = orden == OrdenCatalogo.NOMBRE
+                ? cursoRepository.catalogoPorNombreDespuesDe(cursor.getNombre(), cursor.getId(), pagina)
+                : cursoRepository.catalogoPorIdDespuesDe(cursor.getId(), pagina);
+        } else {
+            filas = orden == OrdenCatalogo.NOMBRE
+                ? cursoRepository.catalogoPorNombre(pagina)
+                : cursoRepository.catalogoPorId(pagina);
+        }
+        boolean haySiguiente = filas.size() > limite;
+        List<CursoResumen> cursos = haySiguiente ? new ArrayList<>(filas.subList(0, limite)) : filas;
+        return new PaginaCatalogo(cursos, orden, limite, hayAnterior, haySiguiente);
+    }
+
+    /**
+     * Busca cursos por palabras o prefijos de palabras de su nombre e instructor, sin
+     * distinguir tildes ni mayúsculas, en el índice en memoria. Los resultados van en orden
+     * de creación y se paginan por cursor como el catálogo; los resúmenes salen de la caché.
+     */
+    public PaginaCatalogo buscarCursos(String consulta, Integer tamano, String despues, String antes) {
+        int limite = normalizarTamano(tamano);
+        Long despuesId = despues != null && !despues.isEmpty() ? CursorCatalogo.decodificar(despues).getId() : null;
+        Long antesId = antes != null && !antes.isEmpty() ? CursorCatalogo.decodificar(antes).getId() : null;
+        IndiceBusquedaCursos.ResultadoBusqueda resultado = indiceBusqueda.buscar(consulta, despuesId, antesId, limite);
+        return new PaginaCatalogo(cacheCursos.resumenes(resultado.getIds()), OrdenCatalogo.ID, limite,
+                                  resultado.isHayAnterior(), resultado.isHaySiguiente());
+    }
+
+    /**
+     * Cuenta el número total de cursos
+     */
+    public long contarCursos() {
+        return cacheCursos.total(cursoRepository::count);
+    }
+
+    private int normalizarTamano(Integer tamano) {
+        if (tamano == null || tamano < 1) {
+            return tamanoPaginaPorDefecto;
+        }
+        return Math.min(tamano, tamanoPaginaMaximo);
+    }
+
+    /**
+     * Busca el resumen de solo lectura de un curso, servido desde la caché de cursos
+     */
+    public Optional<CursoResumen> buscarResumen(Long id) {
+        return cacheCursos.buscar(id);
+    }
+
+    /**
+     * Resúmenes de varios cursos en el orden pedido. Los que no están en la caché de cursos se
+     * cargan en una sola consulta; los IDs repetidos se resuelven una vez y los inexistentes se omiten.
+     * Se admiten como máximo tantos IDs como cursos caben en una página del catálogo.
+     */
+    public List<CursoResumen> buscarResumenes(List<Long> ids) {
+        List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distintos.size() > tamanoPaginaMaximo) {
+            throw new IllegalArgumentException("Se pueden pedir como máximo " + tamanoPaginaMaximo + " cursos a la vez");
+        }
+        return cacheCursos.resumenes(distintos);
     }
 
     /**
-     * Obtiene todos los cursos disponibles
+     * Devuelve una referencia a un curso existente sin cargar la entidad.
+     * La existencia se comprueba contra la caché de cursos.
      */
-    public List<Curso> listarTodosLosCursos() {
-        return cursoRepository.findAll();
+    public Curso referenciaPorId(Long id) {
+        if (!cacheCursos.buscar(id).isPresent()) {
+            throw new RuntimeException("Curso no encontrado con ID: " + id);
+        }
+        return cursoRepository.getReferenceById(id);
     }
 
     /**
      * Busca un curso por su ID
      */
     public Optional<Curso> buscarPorId(Long id) {
-        return cursoRepository.findById(id);
+        return cursoRepository.findById(id).filter(curso -> !curso.isEliminado());
     }
 
     /**
      * Obtiene un curso por su ID o lanza excepción
      */
     public Curso obtenerPorId(Long id) {
-        return cursoRepository.findById(id)
+        return buscarPorId(id)
             .orElseThrow(() -> new RuntimeException("Curso no encontrado con ID: " + id));
     }
 
     /**
-     * Guarda un nuevo curso
+     * Guarda un nuevo curso. El curso llega enlazado desde el formulario, así que el ID, el
+     * contador de inscritos y la marca de eliminado se fijan aquí y no se toman de la petición.
      */
     public Curso crearCurso(Curso curso) {
-        return cursoRepository.save(curso);
+        curso.setId(null);
+        curso.setInscritos(0);
+        curso.setEliminado(false);
+        Curso creado = cursoRepository.save(curso);
+        cacheCursos.invalidarCatalogo();
+        versiones.cambioCurso(creado.getId());
+        indiceBusqueda.indexarAlConfirmar(creado.getId(), creado.getNombre(), creado.getInstructor());
+        return creado;
     }
 
     /**
-     * Actualiza un curso existente
+     * Actualiza los datos editables de un curso existente.
+     * Se copian sobre la entidad gestionada para no sustituir sus inscripciones
+     * ni su contador de inscritos por los valores vacíos del formulario.
+     * Se hace con el cerrojo del curso para que ninguna inscripción cambie el contador
+     * entre la comprobación de la capacidad y la escritura.
      */
     public Curso actualizarCurso(Curso curso) {
-        return cursoRepository.save(curso);
+        return ejecutarEnCurso(curso.getId(), () -> {
+            Curso existente = obtenerPorId(curso.getId());
+            if (curso.getCapacidad() < existente.getInscritos()) {
+                throw new CapacidadInsuficienteException(existente.getInscritos());
+            }
+            boolean cambiaNombre = !Objects.equals(existente.getNombre(), curso.getNombre());
+            if (cambiaNombre) {
+                // El nombre forma parte del orden y de los cursores del catálogo
+                cacheCursos.invalidarCatalogo();
+            }
+            cacheCursos.invalidarCurso(existente.getId());
+            versiones.cambioCurso(existente.getId());
+            if (cambiaNombre || !Objects.equals(existente.getInstructor(), curso.getInstructor())) {
+                indiceBusqueda.indexarAlConfirmar(existente.getId(), curso.getNombre(), curso.getInstructor());
+            }
+            if (curso.getCapacidad() > existente.getCapacidad()) {
+                // Las plazas nuevas se ofrecen primero a la lista de espera
+                listaEspera.notificarPlazaLibre(existente.getId());
+            }
+            existente.setNombre(curso.getNombre());
+            existente.setInstructor(curso.getInstructor());
+            existente.setCapacidad(curso.getCapacidad());
+            return existente;
+        });
     }
 
     /**
-     * Elimina un curso por su ID
+     * Elimina un curso por su ID junto con su lista de espera y sus inscripciones, con
+     * sentencias masivas: el número de sentencias no depende del número de inscritos.
+     * En modo DIFERIDO el curso solo se oculta y sus inscripciones se borran después por
+     * lotes (purgarEliminados), para no retener cerrojos sobre miles de filas en la petición.
+     * Se hace con el cerrojo del curso, como las inscripciones: ninguna puede insertarse entre
+     * el borrado de las inscripciones y el del curso.
      */
     public void eliminarCurso(Long id) {
-        cursoRepository.deleteById(id);
+        ejecutarEnCurso(id, () -> {
+            listaEspera.eliminarCurso(id);
+            if (modoEliminacion == ModoEliminacion.DIFERIDO) {
+                cursoRepository.ocultar(id);
+            } else {
+                inscripcionRepository.deleteByCursoId(id);
+                cursoRepository.eliminarPorId(id);
+            }
+            cacheCursos.invalidarCurso(id);
+            cacheCursos.invalidarCatalogo();
+            versiones.cambioCurso(id);
+            indiceBusqueda.eliminarAlConfirmar(id);
+            diario.cursoEliminado(id);
+            return null;
+        });
+    }
+
+    public ModoEliminacion getModoEliminacion() {
+        return modoEliminacion;
+    }
+
+    /**
+     * Cambia el modo de eliminación de cursos en caliente
+     */
+    public void setModoEliminacion(ModoEliminacion modoEliminacion) {
+        this.modoEliminacion = modoEliminacion;
+    }
+
+    /**
+     * Borra las inscripciones de los cursos ocultos en lotes de cursos.eliminacion.tamano-lote,
+     * cada uno en su propia transacción, y la fila de cada curso cuando se queda vacío.
+     * Devuelve el número de inscripciones borradas.
+     */
+    public int purgarEliminados() {
+        int total = 0;
+        for (Long cursoId : cursoRepository.findIdsEliminados()) {
+            int borradas;
+            do {
+                borradas = ejecutarEnCurso(cursoId, () -> purgarLote(cursoId));
+                total += borradas;
+            } while (borradas > 0);
+        }
+        return total;
+    }
+
+    /**
+     * Ejecuta una operación sobre un curso en su propia transacción, confirmada antes de soltar
+     * el cerrojo del curso que comparten las inscripciones, la lista de espera y la importación
+     */
+    private <T> T ejecutarEnCurso(Long cursoId, Supplier<T> operacion) {
+        Lock cerrojo = cerrojos.de(cursoId);
+        cerrojo.lock();
+        try {
+            return transactionTemplate.execute(estado -> operacion.get());
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private int purgarLote(Long cursoId) {
+        List<Long> ids = inscripcionRepository.findIdsByCursoId(cursoId, PageRequest.of(0, tamanoLotePurga));
+        if (ids.isEmpty()) {
+            // Sin inscripciones: se borra el curso con lo que quede de su lista de espera
+            listaEspera.eliminarCurso(cursoId);
+            cursoRepository.eliminarPorId(cursoId);
+            return 0;
+        }
+        return inscripcionRepository.deleteByIdIn(ids);
     }
 }
@@ -0,0 +1,376 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.util.ConjuntoIds;
+import com.example.Proyecto.util.DiarioEventos;
+import com.example.Proyecto.util.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Diario de solo anexado de las inscripciones (altas, bajas y cursos borrados) y los modelos
+ * de lectura que se obtienen al reproducirlo: inscritos por curso y cursos de cada usuario.
+ *
+ * La tabla inscripciones sigue siendo la fuente de verdad. Cada evento se anota al confirmar
+ * la transacción que lo produce, dentro del cerrojo del curso, de modo que el diario conserva
+ * el orden de las operaciones de cada curso; quien necesita que el evento esté en disco llama
+ * a sincronizar(), que comparte el fsync con el resto de escritores (DiarioEventos).
+ *
+ * Al arrancar se carga la última instantánea y se reproduce el diario desde su secuencia.
+ * Cada cursos.diario.instantanea-cada eventos se escribe una instantánea en segundo plano y se
+ * borran los segmentos que ya no hacen falta, para que la reproducción siga siendo corta. Si no
+ * hay diario (primer arranque) los modelos se cargan de la base de datos, y si al terminar no
+ * cuadran con ella (un evento perdido en una caída entre el commit y la escritura) se
+ * reconstruyen desde la base de datos con un aviso.
+ *
+ * Solo está activo con cursos.diario.directorio; sin él no se escribe nada.
+ */
+@Component
+public class DiarioInscripciones implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioInscripciones.class);
+
+    private static final String PREFIJO_INSTANTANEA = "instantanea-";
+    private static final String SUFIJO_INSTANTANEA = ".snap";
+    /** Instantáneas que se conservan; la anterior sirve si la última está dañada */
+    private static final int INSTANTANEAS_CONSERVADAS = 2;
+
+    private final InscripcionRepository inscripcionRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final MeterRegistry registro;
+    private final Path directorio;
+    private final int registrosPorSegmento;
+    private final long instantaneaCada;
+
+    private final ProyeccionInscripciones proyeccion = new ProyeccionInscripciones();
+    private final AtomicBoolean instantaneaPendiente = new AtomicBoolean();
+    private final Counter eventos;
+
+    private volatile DiarioEventos diario;
+    private ExecutorService instantaneas;
+    /** Secuencia de la última instantánea; protegida por el cerrojo de esta instancia */
+    private long secuenciaInstantanea;
+
+    public DiarioInscripciones(InscripcionRepository inscripcionRepository, PlatformTransactionManager transactionManager,
+                               MeterRegistry registro,
+                               @Value("${cursos.diario.directorio:}") String directorio,
+                               @Value("${cursos.diario.tamano-segmento:64MB}") DataSize tamanoSegmento,
+                               @Value("${cursos.diario.instantanea-cada:1000000}") long instantaneaCada) {
+        this.inscripcionRepository = inscripcionRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccionLectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.registro = registro;
+        this.directorio = directorio == null || directorio.isBlank() ? null : Paths.get(directorio);
+        this.registrosPorSegmento = (int) Math.max(1, tamanoSegmento.toBytes() / DiarioEventos.TAMANO_REGISTRO);
+        this.instantaneaCada = Math.max(1, instantaneaCada);
+        this.eventos = Counter.builder("diario.inscripciones.eventos").register(registro);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (directorio == null) {
+            return;
+        }
+        instantaneas = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "diario-instantaneas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        abrir();
+        DiarioEventos abierto = diario;
+        FunctionCounter.builder("diario.inscripciones.sincronizaciones", abierto, DiarioEventos::getSincronizaciones)
+            .register(registro);
+        Gauge.builder("diario.inscripciones.pendientes", abierto, d -> d.getEscritos() - d.getDurables())
+            .register(registro);
+        Gauge.builder("diario.inscripciones.pares", proyeccion, ProyeccionInscripciones::getPares).register(registro);
+    }
+
+    public boolean isActivo() {
+        return diario != null;
+    }
+
+    /**
+     * Anota la inscripción de un usuario en un curso; se escribe al confirmar la transacción actual
+     */
+    public void alta(Long usuarioId, Long cursoId) {
+        registrarAlConfirmar(ProyeccionInscripciones.ALTA, List.of(usuarioId), cursoId);
+    }
+
+    /**
+     * Anota la inscripción de varios usuarios en un curso (lotes del pipeline, importación, lista de espera)
+     */
+    public void altas(Long cursoId, Collection<Long> usuarioIds) {
+        if (!usuarioIds.isEmpty()) {
+            registrarAlConfirmar(ProyeccionInscripciones.ALTA, List.copyOf(usuarioIds), cursoId);
+        }
+    }
+
+    public void baja(Long usuarioId, Long cursoId) {
+        registrarAlConfirmar(ProyeccionInscripciones.BAJA, List.of(usuarioId), cursoId);
+    }
+
+    /**
+     * Anota que se borró un curso con todas sus inscripciones
+     */
+    public void cursoEliminado(Long cursoId) {
+        registrarAlConfirmar(ProyeccionInscripciones.CURSO_ELIMINADO, List.of(0L), cursoId);
+    }
+
+    /**
+     * Espera a que los eventos anotados hasta ahora estén en disco. Debe llamarse fuera del
+     * cerrojo del curso para que las operaciones de otros cursos compartan el mismo fsync.
+     */
+    public void sincronizar() {
+        DiarioEventos actual = diario;
+        if (actual != null) {
+            actual.sincronizar();
+        }
+    }
+
+    /**
+     * IDs de los cursos en los que está inscrito el usuario, según el diario
+     */
+    public ConjuntoIds cursosDe(Long usuarioId) {
+        return proyeccion.cursosDe(usuarioId);
+    }
+
+    /**
+     * Número de inscritos del curso según el diario
+     */
+    public long inscritos(Long cursoId) {
+        return proyeccion.inscritos(cursoId);
+    }
+
+    /**
+     * Número de eventos escritos desde el principio del diario
+     */
+    public long getSecuencia() {
+        DiarioEventos actual = diario;
+        return actual != null ? actual.getEscritos() : 0;
+    }
+
+    /**
+     * Escribe una instantánea de los modelos con la secuencia actual y borra las instantáneas
+     * y segmentos que ya no hacen falta
+     */
+    public void instantanea() {
+        DiarioEventos actual = diario;
+        if (actual == null) {
+            return;
+        }
+        long secuencia;
+        long[] volcado;
+        synchronized (this) {
+            secuencia = actual.getEscritos();
+            volcado = proyeccion.volcar();
+        }
+        try {
+            // La instantánea no puede ir por delante de lo que el diario tiene en disco
+            actual.sincronizar();
+            long inicio = System.nanoTime();
+            ProyeccionInscripciones.guardarInstantanea(directorio.resolve(nombreInstantanea(secuencia)), secuencia, volcado);
+            synchronized (this) {
+                secuenciaInstantanea = Math.max(secuenciaInstantanea, secuencia);
+            }
+
+            List<Long> secuencias = secuenciasInstantaneas();
+            for (Long antigua : secuencias.subList(Math.min(INSTANTANEAS_CONSERVADAS, secuencias.size()), secuencias.size())) {
+                Files.deleteIfExists(directorio.resolve(nombreInstantanea(antigua)));
+            }
+            int segmentos = actual.truncarHasta(secuencias.get(Math.min(INSTANTANEAS_CONSERVADAS, secuencias.size()) - 1));
+            log.info("Instantánea del diario de inscripciones en la secuencia {} ({} pares) en {} ms; {} segmentos borrados",
+                     secuencia, proyeccion.getPares(), (System.nanoTime() - inicio) / 1_000_000, segmentos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la instantánea del diario de inscripciones", e);
+        }
+    }
+
+    /**
+     * Vuelve a cargar los modelos desde la tabla inscripciones y escribe una instantánea.
+     * Los eventos que se anoten mientras tanto se aplican después y son idempotentes.
+     */
+    public void reconstruir() {
+        if (diario == null) {
+            return;
+        }
+        synchronized (this) {
+            proyeccion.limpiar();
+            cargarDesdeBaseDeDatos();
+        }
+        instantanea();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException, IOException {
+        DiarioEventos actual = diario;
+        if (actual == null) {
+            return;
+        }
+        instantaneas.shutdown();
+        instantaneas.awaitTermination(30, TimeUnit.SECONDS);
+        try {
+            // Arranque siguiente sin nada que reproducir
+            instantanea();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo escribir la instantánea final del diario de inscripciones", e);
+        }
+        diario = null;
+        actual.close();
+    }
+
+    private void abrir() throws IOException {
+        long inicio = System.nanoTime();
+        long desde = -1;
+        for (Long secuencia : secuenciasInstantaneas()) {
+            try {
+                desde = proyeccion.cargarInstantanea(directorio.resolve(nombreInstantanea(secuencia)));
+                break;
+            } catch (IOException e) {
+                log.warn("Instantánea del diario de inscripciones no válida, se prueba la anterior", e);
+            }
+        }
+
+        boolean inicial = desde < 0 && !hayDiario();
+        if (inicial) {
+            // Primer arranque con el diario: se parte del estado actual de la base de datos
+            cargarDesdeBaseDeDatos();
+        }
+        try {
+            diario = DiarioEventos.abrir(directorio, registrosPorSegmento, Math.max(0, desde), proyeccion);
+        } catch (IllegalStateException e) {
+            log.warn("Diario de inscripciones dañado en {}; se aparta y se empieza otro desde la base de datos",
+                     directorio, e);
+            Files.move(directorio, directorio.resolveSibling(directorio.getFileName() + ".danado-" + System.currentTimeMillis()));
+            proyeccion.limpiar();
+            cargarDesdeBaseDeDatos();
+            inicial = true;
+            diario = DiarioEventos.abrir(directorio, registrosPorSegmento, 0, proyeccion);
+        }
+        log.info("Diario de inscripciones abierto en {}: {} eventos, {} reproducidos, {} pares, en {} ms",
+                 directorio, diario.getEscritos(), diario.getEscritos() - Math.max(0, desde), proyeccion.getPares(),
+                 (System.nanoTime() - inicio) / 1_000_000);
+
+        if (inicial) {
+            instantanea();
+        } else if (!cuadraConBaseDeDatos()) {
+            log.warn("El diario de inscripciones no cuadra con la tabla inscripciones; se reconstruye");
+            reconstruir();
+        } else {
+            secuenciaInstantanea = Math.max(0, desde);
+        }
+    }
+
+    private void registrarAlConfirmar(int tipo, List<Long> usuarioIds, Long cursoId) {
+        if (diario != null) {
+            Transacciones.alConfirmar(() -> registrar(tipo, usuarioIds, cursoId));
+        }
+    }
+
+    private void registrar(int tipo, List<Long> usuarioIds, long cursoId) {
+        DiarioEventos actual = diario;
+        if (actual == null) {
+            return;
+        }
+        boolean tocaInstantanea;
+        try {
+            synchronized (this) {
+                for (Long usuarioId : usuarioIds) {
+                    actual.anadir(tipo, usuarioId, cursoId);
+                    proyeccion.aplicar(tipo, usuarioId, cursoId);
+                }
+                tocaInstantanea = actual.getEscritos() - secuenciaInstantanea >= instantaneaCada;
+            }
+        } catch (RuntimeException e) {
+            // La transacción ya está confirmada: el descuadre se corrige al arrancar
+            log.error("No se pudo anotar en el diario de inscripciones el evento {} del curso {}", tipo, cursoId, e);
+            return;
+        }
+        eventos.increment(usuarioIds.size());
+        if (tocaInstantanea && instantaneaPendiente.compareAndSet(false, true)) {
+            instantaneas.execute(() -> {
+                try {
+                    instantanea();
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo escribir la instantánea del diario de inscripciones", e);
+                } finally {
+                    instantaneaPendiente.set(false);
+                }
+            });
+        }
+    }
+
+    private void cargarDesdeBaseDeDatos() {
+        transaccionLectura.executeWithoutResult(estado -> {
+            try (Stream<Object[]> pares = inscripcionRepository.streamPares()) {
+                pares.forEach(par -> proyeccion.aplicar(ProyeccionInscripciones.ALTA, (Long) par[0], (Long) par[1]));
+            }
+        });
+    }
+
+    private boolean cuadraConBaseDeDatos() {
+        Map<Long, Long> enBaseDeDatos = new HashMap<>();
+        for (Object[] fila : inscripcionRepository.contarPorCurso()) {
+            enBaseDeDatos.put((Long) fila[0], (Long) fila[1]);
+        }
+        return enBaseDeDatos.equals(proyeccion.inscritosPorCurso());
+    }
+
+    private boolean hayDiario() throws IOException {
+        if (!Files.isDirectory(directorio)) {
+            return false;
+        }
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            return ficheros.anyMatch(fichero -> fichero.getFileName().toString().endsWith(".seg"));
+        }
+    }
+
+    /**
+     * Secuencias de las instantáneas del directorio, de la más reciente a la más antigua
+     */
+    private List<Long> secuenciasInstantaneas() throws IOException {
+        List<Long> secuencias = new ArrayList<>();
+        if (Files.isDirectory(directorio)) {
+            try (Stream<Path> ficheros = Files.list(directorio)) {
+                ficheros.map(fichero -> fichero.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO_INSTANTANEA) && nombre.endsWith(SUFIJO_INSTANTANEA))
+                    .forEach(nombre -> secuencias.add(Long.parseLong(
+                        nombre.substring(PREFIJO_INSTANTANEA.length(), nombre.length() - SUFIJO_INSTANTANEA.length()))));
+            }
+        }
+        secuencias.sort((a, b) -> Long.compare(b, a));
+        return secuencias;
+    }
+
+    private static String nombreInstantanea(long secuencia) {
+        return PREFIJO_INSTANTANEA + String.format("%020d", secuencia) + SUFIJO_INSTANTANEA;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Proyecto.service;
+
+/**
+ * Resultado de una solicitud de inscripción que admite lista de espera.
+ */
+public enum EstadoInscripcion {
+
+    /** El usuario obtuvo plaza */
+    INSCRITO,
+
+    /** El curso no tenía plaza libre y el usuario quedó en su lista de espera */
+    EN_ESPERA
+}
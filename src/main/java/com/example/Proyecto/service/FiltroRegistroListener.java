@@ -0,0 +1,29 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Usuario;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Listener JPA de Usuario que anota en los filtros de registro cada nombre y correo
+ * insertado o modificado, sea cual sea el código que lo guarde.
+ * Se ejecuta al emitir la sentencia, antes de confirmar: si la transacción se deshace
+ * el filtro conserva el valor, lo que solo supone un falso positivo.
+ * Hibernate lo crea a través del contenedor de beans de Spring; el filtro se resuelve
+ * en el primer uso porque para llenarse necesita el repositorio, que depende de Hibernate.
+ */
+public class FiltroRegistroListener {
+
+    private final ObjectProvider<FiltroRegistroUsuarios> filtro;
+
+    public FiltroRegistroListener(ObjectProvider<FiltroRegistroUsuarios> filtro) {
+        this.filtro = filtro;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void anotar(Usuario usuario) {
+        filtro.getObject().anadir(usuario.getUsername(), usuario.getEmail());
+    }
+}
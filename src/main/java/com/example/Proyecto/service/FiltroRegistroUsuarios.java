@@ -0,0 +1,142 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.IdentidadUsuario;
+import com.example.Proyecto.repository.UsuarioRepository;
+import com.example.Proyecto.util.FiltroBloom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Filtros de Bloom de los nombres de usuario y correos registrados, para que el registro
+ * de un nombre nuevo (el caso habitual) no tenga que consultar la base de datos antes del
+ * insert. Un "no está" es definitivo; un "puede que esté" se confirma con la consulta exacta.
+ *
+ * Se llenan al arrancar recorriendo la tabla usuarios y se mantienen con cada alta o cambio
+ * (FiltroRegistroListener). Las bajas no se quitan: solo dejan falsos positivos, que cuestan
+ * una consulta. La unicidad real la garantizan las restricciones únicas de la tabla.
+ */
+@Component
+public class FiltroRegistroUsuarios implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroRegistroUsuarios.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final MeterRegistry registro;
+    private final long capacidad;
+    private final double probabilidadFalsoPositivo;
+
+    private volatile FiltroBloom usernames;
+    private volatile FiltroBloom emails;
+
+    private final Counter usernamesDescartados;
+    private final Counter emailsDescartados;
+    private final Counter usernamesFalsosPositivos;
+    private final Counter emailsFalsosPositivos;
+
+    public FiltroRegistroUsuarios(UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager,
+                                  MeterRegistry registro,
+                                  @Value("${cursos.registro.filtro.capacidad:100000}") long capacidad,
+                                  @Value("${cursos.registro.filtro.falsos-positivos:0.01}") double probabilidadFalsoPositivo) {
+        this.usuarioRepository = usuarioRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccionLectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.registro = registro;
+        this.capacidad = capacidad;
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+
+        this.usernamesDescartados = Counter.builder("usuarios.registro.filtro.descartados")
+            .tag("campo", "username").register(registro);
+        this.emailsDescartados = Counter.builder("usuarios.registro.filtro.descartados")
+            .tag("campo", "email").register(registro);
+        this.usernamesFalsosPositivos = Counter.builder("usuarios.registro.filtro.falsos.positivos")
+            .tag("campo", "username").register(registro);
+        this.emailsFalsosPositivos = Counter.builder("usuarios.registro.filtro.falsos.positivos")
+            .tag("campo", "email").register(registro);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reconstruir();
+        Gauge.builder("usuarios.registro.filtro.ocupacion", this, filtro -> filtro.usernames.getOcupacion())
+            .register(registro);
+    }
+
+    /**
+     * Vuelve a llenar los filtros desde la tabla usuarios. Se dimensionan para el doble de
+     * los usuarios actuales (como mínimo la capacidad configurada) para admitir altas
+     * sin que crezca la tasa de falsos positivos.
+     */
+    public void reconstruir() {
+        long existentes = usuarioRepository.count();
+        long elementos = Math.max(capacidad, existentes * 2);
+        FiltroBloom nuevosUsernames = FiltroBloom.paraElementos(elementos, probabilidadFalsoPositivo);
+        FiltroBloom nuevosEmails = FiltroBloom.paraElementos(elementos, probabilidadFalsoPositivo);
+        transaccionLectura.executeWithoutResult(estado -> {
+            try (Stream<IdentidadUsuario> identidades = usuarioRepository.streamIdentidades()) {
+                identidades.forEach(identidad -> {
+                    nuevosUsernames.anadir(identidad.getUsername());
+                    nuevosEmails.anadir(identidad.getEmail());
+                });
+            }
+        });
+        usernames = nuevosUsernames;
+        emails = nuevosEmails;
+        log.info("Filtros de registro cargados con {} usuarios ({} bits y {} funciones por filtro)",
+                 existentes, nuevosUsernames.getNumeroBits(), nuevosUsernames.getFunciones());
+    }
+
+    /**
+     * Anota un usuario dado de alta o modificado
+     */
+    public void anadir(String username, String email) {
+        if (username != null) {
+            usernames.anadir(username);
+        }
+        if (email != null) {
+            emails.anadir(email);
+        }
+    }
+
+    /**
+     * false si el nombre seguro que no está registrado; true si hay que comprobarlo
+     */
+    public boolean podriaExistirUsername(String username) {
+        boolean posible = username != null && usernames.podriaContener(username);
+        if (!posible) {
+            usernamesDescartados.increment();
+        }
+        return posible;
+    }
+
+    /**
+     * false si el correo seguro que no está registrado; true si hay que comprobarlo
+     */
+    public boolean podriaExistirEmail(String email) {
+        boolean posible = email != null && emails.podriaContener(email);
+        if (!posible) {
+            emailsDescartados.increment();
+        }
+        return posible;
+    }
+
+    void falsoPositivoUsername() {
+        usernamesFalsosPositivos.increment();
+    }
+
+    void falsoPositivoEmail() {
+        emailsFalsosPositivos.increment();
+    }
+}
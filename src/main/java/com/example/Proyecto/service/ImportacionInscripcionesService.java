@@ -0,0 +1,303 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.IdentidadUsuario;
+import com.example.Proyecto.dto.RechazoImportacion;
+import com.example.Proyecto.dto.ResultadoImportacion;
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Inscripcion;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Importación masiva de inscripciones desde un CSV con filas "username,curso_id".
+ * El fichero se lee en streaming y se procesa por bloques, cada uno en su propia
+ * transacción: una consulta de usuarios (solo los que no están en la caché de
+ * identidades), una de cursos, una de inscripciones existentes, una reserva de
+ * plazas por curso y los inserts en lotes JDBC.
+ */
+@Service
+public class ImportacionInscripcionesService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionInscripcionesService.class);
+
+    static final String MENSAJE_FORMATO = "Formato inválido, se esperaba username,curso_id";
+    static final String MENSAJE_USUARIO = "Usuario no encontrado";
+    static final String MENSAJE_CURSO = "Curso no encontrado";
+
+    private final UsuarioRepository usuarioRepository;
+    private final CursoRepository cursoRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CerrojosCurso cerrojos;
+    private final CacheCursos cacheCursos;
+    private final VersionesCursos versiones;
+    private final AvisosPlazas avisosPlazas;
+    private final DiarioInscripciones diario;
+    private final ListaEsperaService listaEspera;
+    private final CacheIdentidades cacheIdentidades;
+    private final int tamanoBloque;
+    private final int maxRechazosDetalle;
+
+    public ImportacionInscripcionesService(UsuarioRepository usuarioRepository, CursoRepository cursoRepository,
+                                           InscripcionRepository inscripcionRepository, EntityManager entityManager,
+                                           PlatformTransactionManager transactionManager,
+                                           CerrojosCurso cerrojos, CacheCursos cacheCursos, VersionesCursos versiones,
+                                           AvisosPlazas avisosPlazas, DiarioInscripciones diario,
+                                           ListaEsperaService listaEspera, CacheIdentidades cacheIdentidades,
+                                           @Value("${cursos.importacion.tamano-bloque:1000}") int tamanoBloque,
+                                           @Value("${cursos.importacion.max-rechazos-detalle:100}") int maxRechazosDetalle) {
+        this.usuarioRepository = usuarioRepository;
+        this.cursoRepository = cursoRepository;
+        this.inscripcionRepository = inscripcionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cerrojos = cerrojos;
+        this.cacheCursos = cacheCursos;
+        this.versiones = versiones;
+        this.avisosPlazas = avisosPlazas;
+        this.diario = diario;
+        this.listaEspera = listaEspera;
+        this.cacheIdentidades = cacheIdentidades;
+        this.tamanoBloque = Math.max(1, tamanoBloque);
+        this.maxRechazosDetalle = Math.max(0, maxRechazosDetalle);
+    }
+
+    /**
+     * Importa las inscripciones del CSV. Solo se mantiene en memoria un bloque de filas;
+     * los bloques ya confirmados no se deshacen si uno posterior falla.
+     */
+    public ResultadoImportacion importar(Reader origen) {
+        long inicio = System.nanoTime();
+        Progreso progreso = new Progreso();
+        List<Fila> bloque = new ArrayList<>(tamanoBloque);
+
+        try (BufferedReader lector = new BufferedReader(origen)) {
+            String linea;
+            int numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (linea.trim().isEmpty() || (numero == 1 && esCabecera(linea))) {
+                    continue;
+                }
+                progreso.leidas++;
+                Fila fila = Fila.leer(numero, linea);
+                if (fila == null) {
+                    progreso.rechazar(new RechazoImportacion(numero, linea, MENSAJE_FORMATO));
+                    continue;
+                }
+                bloque.add(fila);
+                if (bloque.size() == tamanoBloque) {
+                    procesarBloque(bloque, progreso);
+                    bloque.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer el fichero de importación", e);
+        }
+        if (!bloque.isEmpty()) {
+            procesarBloque(bloque, progreso);
+        }
+        diario.sincronizar();
+
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        return new ResultadoImportacion(progreso.leidas, progreso.aceptadas, progreso.rechazadas,
+                                        progreso.detalle, duracionMs);
+    }
+
+    private void procesarBloque(List<Fila> bloque, Progreso progreso) {
+        Set<Long> cursoIds = new HashSet<>();
+        for (Fila fila : bloque) {
+            cursoIds.add(fila.cursoId);
+        }
+
+        // Los mismos cerrojos que el resto de escrituras de inscripciones, tomados en orden fijo
+        List<Lock> cerrojosBloque = cerrojos.de(cursoIds);
+        cerrojosBloque.forEach(Lock::lock);
+        try {
+            List<RechazoImportacion> rechazos = transactionTemplate.execute(estado -> escribirBloque(bloque, cursoIds));
+            progreso.aceptadas += bloque.size() - rechazos.size();
+            rechazos.forEach(progreso::rechazar);
+        } catch (RuntimeException e) {
+            log.error("Error importando un bloque de {} inscripciones", bloque.size(), e);
+            for (Fila fila : bloque) {
+                progreso.rechazar(new RechazoImportacion(fila.linea, fila.contenido, "Error al guardar el bloque"));
+            }
+        } finally {
+            for (int i = cerrojosBloque.size() - 1; i >= 0; i--) {
+                cerrojosBloque.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Escribe un bloque en la transacción actual y devuelve las filas rechazadas
+     */
+    private List<RechazoImportacion> escribirBloque(List<Fila> bloque, Set<Long> cursoIds) {
+        List<RechazoImportacion> rechazos = new ArrayList<>();
+
+        Set<String> usernames = new HashSet<>();
+        for (Fila fila : bloque) {
+            usernames.add(fila.username);
+        }
+        // Un mismo alumno suele aparecer en varios cursos: solo se consultan los que no están en caché
+        Map<String, IdentidadUsuario> usuarios =
+            cacheIdentidades.obtenerTodas(usernames, usuarioRepository::findIdentidadesByUsernameIn);
+        Map<Long, CursoResumen> cursos = new HashMap<>();
+        for (CursoResumen curso : cursoRepository.findResumenesByIdIn(cursoIds)) {
+            cursos.put(curso.getId(), curso);
+        }
+        // Los inscritos de cada curso están acotados por su capacidad: se leen todos por el
+        // índice de curso en lugar de filtrar por una lista larga de usuarios
+        Map<Long, Set<Long>> inscritosPorCurso = new HashMap<>();
+        if (!usuarios.isEmpty() && !cursos.isEmpty()) {
+            for (Object[] par : inscripcionRepository.findParesByCursoIdIn(cursos.keySet())) {
+                inscritosPorCurso.computeIfAbsent((Long) par[1], id -> new HashSet<>()).add((Long) par[0]);
+            }
+        }
+
+        // Validación fila a fila, conservando el orden del fichero dentro de cada curso
+        Map<Long, List<Fila>> candidatasPorCurso = new LinkedHashMap<>();
+        for (Fila fila : bloque) {
+            IdentidadUsuario usuario = usuarios.get(fila.username);
+            if (usuario == null) {
+                rechazos.add(new RechazoImportacion(fila.linea, fila.contenido, MENSAJE_USUARIO));
+            } else if (!cursos.containsKey(fila.cursoId)) {
+                rechazos.add(new RechazoImportacion(fila.linea, fila.contenido, MENSAJE_CURSO));
+            } else if (!inscritosPorCurso.computeIfAbsent(fila.cursoId, id -> new HashSet<>()).add(usuario.getId())) {
+                rechazos.add(new RechazoImportacion(fila.linea, fila.contenido, InscripcionPipeline.MENSAJE_YA_INSCRITO));
+            } else {
+                fila.usuarioId = usuario.getId();
+                candidatasPorCurso.computeIfAbsent(fila.cursoId, id -> new ArrayList<>()).add(fila);
+            }
+        }
+
+        // Capacidad: una reserva de plazas por curso, las filas sobrantes se rechazan.
+        // Si el curso tiene lista de espera las plazas son de quien ya espera.
+        List<Inscripcion> nuevas = new ArrayList<>();
+        for (Map.Entry<Long, List<Fila>> entrada : candidatasPorCurso.entrySet()) {
+            Long cursoId = entrada.getKey();
+            List<Fila> candidatas = entrada.getValue();
+            CursoResumen curso = cursos.get(cursoId);
+            long libres = listaEspera.tieneEspera(cursoId) ? 0 : curso.getCapacidad() - curso.getInscritos();
+            int aceptadas = (int) Math.max(0, Math.min(candidatas.size(), libres));
+            while (aceptadas > 0 && cursoRepository.reservarPlazas(cursoId, aceptadas) == 0) {
+                aceptadas--;
+            }
+            for (Fila fila : candidatas.subList(aceptadas, candidatas.size())) {
+                rechazos.add(new RechazoImportacion(fila.linea, fila.contenido, InscripcionPipeline.MENSAJE_CURSO_LLENO));
+            }
+            // Referencias sin consulta: los IDs ya se han validado arriba
+            Curso referencia = entityManager.getReference(Curso.class, cursoId);
+            List<Long> usuarioIds = new ArrayList<>(aceptadas);
+            for (Fila fila : candidatas.subList(0, aceptadas)) {
+                usuarioIds.add(fila.usuarioId);
+                Inscripcion inscripcion = new Inscripcion();
+                inscripcion.setUsuario(entityManager.getReference(Usuario.class, fila.usuarioId));
+                inscripcion.setCurso(referencia);
+                nuevas.add(inscripcion);
+            }
+            if (aceptadas > 0) {
+                cacheCursos.refrescarInscritosAlConfirmar(cursoId);
+                versiones.cambioCurso(cursoId);
+                avisosPlazas.cambio(cursoId);
+                diario.altas(cursoId, usuarioIds);
+            }
+        }
+
+        // Los inserts se agrupan en lotes JDBC al hacer flush en el commit (hibernate.jdbc.batch_size)
+        inscripcionRepository.saveAll(nuevas);
+        return rechazos;
+    }
+
+    private static boolean esCabecera(String linea) {
+        String normalizada = linea.trim().toLowerCase();
+        return normalizada.startsWith("username") || normalizada.startsWith("\"username\"");
+    }
+
+    /**
+     * Contadores de la importación y detalle acotado de rechazos
+     */
+    private final class Progreso {
+        private int leidas;
+        private int aceptadas;
+        private int rechazadas;
+        private final List<RechazoImportacion> detalle = new ArrayList<>();
+
+        private void rechazar(RechazoImportacion rechazo) {
+            rechazadas++;
+            if (detalle.size() < maxRechazosDetalle) {
+                detalle.add(rechazo);
+            }
+        }
+    }
+
+    /**
+     * Fila válida del CSV
+     */
+    private static final class Fila {
+        private final int linea;
+        private final String contenido;
+        private final String username;
+        private final Long cursoId;
+        private Long usuarioId;
+
+        private Fila(int linea, String contenido, String username, Long cursoId) {
+            this.linea = linea;
+            this.contenido = contenido;
+            this.username = username;
+            this.cursoId = cursoId;
+        }
+
+        /**
+         * Interpreta una línea "username,curso_id"; devuelve null si no tiene ese formato
+         */
+        private static Fila leer(int linea, String contenido) {
+            String[] campos = contenido.split("[,;]", -1);
+            if (campos.length != 2) {
+                return null;
+            }
+            String username = sinComillas(campos[0]);
+            String cursoId = sinComillas(campos[1]);
+            if (username.isEmpty()) {
+                return null;
+            }
+            try {
+                return new Fila(linea, contenido, username, Long.valueOf(cursoId));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String sinComillas(String campo) {
+            String limpio = campo.trim();
+            if (limpio.length() >= 2 && limpio.startsWith("\"") && limpio.endsWith("\"")) {
+                limpio = limpio.substring(1, limpio.length() - 1).trim();
+            }
+            return limpio;
+        }
+    }
+}
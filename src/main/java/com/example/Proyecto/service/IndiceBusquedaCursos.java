@@ -0,0 +1,435 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.util.Transacciones;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria sobre el nombre y el instructor de los cursos.
+ *
+ * Los textos se normalizan sin tildes ni mayúsculas ("Programación" y "programacion" son
+ * iguales) y se parten en palabras. Cada palabra se indexa por todos sus prefijos (n-gramas
+ * de borde) de hasta {@value #LONGITUD_MAXIMA_PREFIJO} caracteres, de modo que buscar un prefijo
+ * es un acceso directo a su lista de IDs; las palabras de consulta más largas se buscan por su
+ * prefijo indexado y se comprueban contra las palabras guardadas del curso.
+ *
+ * Una consulta con varias palabras devuelve los cursos que contienen todas (intersección de
+ * listas ordenadas por id, avanzando con búsqueda exponencial), en orden de id y paginada por
+ * cursor, sin recorrer más que las listas implicadas.
+ *
+ * Se construye una vez al arrancar y después se mantiene de forma incremental desde
+ * CursoService (alta, edición y baja) cuando la transacción se confirma.
+ */
+@Component
+public class IndiceBusquedaCursos implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaCursos.class);
+
+    static final int LONGITUD_MAXIMA_PREFIJO = 10;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] SIN_PALABRAS = new String[0];
+
+    private final CursoRepository cursoRepository;
+    private final TransactionTemplate transaccionLectura;
+
+    /** Prefijo de palabra -> IDs de los cursos que lo contienen, ordenados */
+    private final Map<String, ListaIds> terminos = new HashMap<>();
+    /** Palabras normalizadas de cada curso, para comprobar consultas largas y desindexar */
+    private final Map<Long, String[]> documentos = new HashMap<>();
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    public IndiceBusquedaCursos(CursoRepository cursoRepository, PlatformTransactionManager transactionManager,
+                                MeterRegistry registro) {
+        this.cursoRepository = cursoRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccionLectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("cursos.busqueda.documentos", this, IndiceBusquedaCursos::getDocumentos).register(registro);
+        Gauge.builder("cursos.busqueda.terminos", this, IndiceBusquedaCursos::getTerminos).register(registro);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reconstruir();
+    }
+
+    /**
+     * Vuelve a indexar todos los cursos recorriendo la tabla una vez. Solo se usa al arrancar
+     * (y en pruebas que cargan cursos sin pasar por CursoService); los cambios posteriores se
+     * aplican uno a uno.
+     */
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        cerrojo.writeLock().lock();
+        try {
+            terminos.clear();
+            documentos.clear();
+            // Los cursos llegan en orden de id, así que cada inserción es un añadido al final
+            transaccionLectura.executeWithoutResult(estado -> {
+                try (Stream<CursoResumen> cursos = cursoRepository.streamCatalogo()) {
+                    cursos.forEach(curso -> indexarSinCerrojo(curso.getId(), curso.getNombre(), curso.getInstructor()));
+                }
+            });
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda de cursos construido: {} cursos, {} términos en {} ms",
+                 getDocumentos(), getTerminos(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Indexa un curso nuevo o reindexa uno editado cuando se confirme la transacción actual
+     */
+    public void indexarAlConfirmar(Long id, String nombre, String instructor) {
+        Transacciones.alConfirmar(() -> indexar(id, nombre, instructor));
+    }
+
+    /**
+     * Quita un curso del índice cuando se confirme la transacción actual
+     */
+    public void eliminarAlConfirmar(Long id) {
+        Transacciones.alConfirmar(() -> eliminar(id));
+    }
+
+    /**
+     * Indexa un curso; si ya estaba indexado, solo se tocan los prefijos que cambian
+     */
+    public void indexar(Long id, String nombre, String instructor) {
+        cerrojo.writeLock().lock();
+        try {
+            indexarSinCerrojo(id, nombre, instructor);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long id) {
+        cerrojo.writeLock().lock();
+        try {
+            String[] palabras = documentos.remove(id);
+            if (palabras != null) {
+                for (String prefijo : prefijos(palabras)) {
+                    quitar(prefijo, id);
+                }
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los cursos que contienen todas las palabras de la consulta (como palabra o
+     * prefijo de palabra), ordenados por id. Con "despues" devuelve los siguientes a ese id
+     * y con "antes" los anteriores; como máximo "limite" IDs e indicando si hay más.
+     */
+    public ResultadoBusqueda buscar(String consulta, Long despues, Long antes, int limite) {
+        String[] palabras = palabras(consulta);
+        if (palabras.length == 0) {
+            return ResultadoBusqueda.VACIO;
+        }
+        cerrojo.readLock().lock();
+        try {
+            ListaIds[] listas = new ListaIds[palabras.length];
+            boolean comprobar = false;
+            for (int i = 0; i < palabras.length; i++) {
+                String palabra = palabras[i];
+                listas[i] = terminos.get(palabra.length() > LONGITUD_MAXIMA_PREFIJO
+                                         ? palabra.substring(0, LONGITUD_MAXIMA_PREFIJO) : palabra);
+                if (listas[i] == null) {
+                    return ResultadoBusqueda.VACIO;
+                }
+                comprobar |= palabra.length() > LONGITUD_MAXIMA_PREFIJO;
+            }
+            // Se recorre la lista más corta y se comprueba cada candidato en las demás
+            Arrays.sort(listas, (a, b) -> Integer.compare(a.tamano, b.tamano));
+            return antes != null
+                ? recorrerHaciaAtras(listas, palabras, comprobar, antes, limite)
+                : recorrerHaciaDelante(listas, palabras, comprobar, despues, limite);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private ResultadoBusqueda recorrerHaciaDelante(ListaIds[] listas, String[] palabras, boolean comprobar,
+                                                   Long despues, int limite) {
+        ListaIds guia = listas[0];
+        int[] posiciones = new int[listas.length];
+        int inicio = despues != null ? guia.primeraPosicionMayorQue(despues) : 0;
+        List<Long> ids = new ArrayList<>(limite);
+        boolean haySiguiente = false;
+        for (int i = inicio; i < guia.tamano; i++) {
+            long id = guia.ids[i];
+            if (enTodas(listas, posiciones, id) && (!comprobar || coincide(id, palabras))) {
+                if (ids.size() == limite) {
+                    haySiguiente = true;
+                    break;
+                }
+                ids.add(id);
+            }
+        }
+        return new ResultadoBusqueda(ids, despues != null, haySiguiente);
+    }
+
+    private ResultadoBusqueda recorrerHaciaAtras(ListaIds[] listas, String[] palabras, boolean comprobar,
+                                                 Long antes, int limite) {
+        ListaIds guia = listas[0];
+        List<Long> ids = new ArrayList<>(limite);
+        boolean hayAnterior = false;
+        for (int i = guia.primeraPosicionMayorQue(antes - 1) - 1; i >= 0; i--) {
+            long id = guia.ids[i];
+            if (enTodas(listas, id) && (!comprobar || coincide(id, palabras))) {
+                if (ids.size() == limite) {
+                    hayAnterior = true;
+                    break;
+                }
+                ids.add(id);
+            }
+        }
+        Collections.reverse(ids);
+        return new ResultadoBusqueda(ids, hayAnterior, true);
+    }
+
+    /**
+     * Comprueba si el id está en las demás listas. Como los candidatos llegan en orden
+     * creciente, cada lista avanza desde donde quedó con búsqueda exponencial.
+     */
+    private static boolean enTodas(ListaIds[] listas, int[] posiciones, long id) {
+        for (int j = 1; j < listas.length; j++) {
+            posiciones[j] = listas[j].avanzarHasta(posiciones[j], id);
+            if (posiciones[j] >= listas[j].tamano || listas[j].ids[posiciones[j]] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean enTodas(ListaIds[] listas, long id) {
+        for (int j = 1; j < listas.length; j++) {
+            if (!listas[j].contiene(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cada palabra de la consulta debe ser prefijo de alguna palabra del curso
+     */
+    private boolean coincide(long id, String[] consulta) {
+        String[] palabras = documentos.get(id);
+        for (String buscada : consulta) {
+            boolean encontrada = false;
+            for (String palabra : palabras) {
+                if (palabra.startsWith(buscada)) {
+                    encontrada = true;
+                    break;
+                }
+            }
+            if (!encontrada) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void indexarSinCerrojo(Long id, String nombre, String instructor) {
+        String[] nuevas = palabras((nombre != null ? nombre : "") + " " + (instructor != null ? instructor : ""));
+        String[] anteriores = documentos.put(id, nuevas);
+        Set<String> prefijosNuevos = prefijos(nuevas);
+        if (anteriores != null) {
+            for (String prefijo : prefijos(anteriores)) {
+                if (!prefijosNuevos.remove(prefijo)) {
+                    quitar(prefijo, id);
+                }
+            }
+        }
+        for (String prefijo : prefijosNuevos) {
+            terminos.computeIfAbsent(prefijo, clave -> new ListaIds()).anadir(id);
+        }
+    }
+
+    private void quitar(String prefijo, Long id) {
+        ListaIds lista = terminos.get(prefijo);
+        if (lista != null && lista.quitar(id) && lista.tamano == 0) {
+            terminos.remove(prefijo);
+        }
+    }
+
+    private static Set<String> prefijos(String[] palabras) {
+        Set<String> prefijos = new LinkedHashSet<>();
+        for (String palabra : palabras) {
+            int longitud = Math.min(palabra.length(), LONGITUD_MAXIMA_PREFIJO);
+            for (int i = 1; i <= longitud; i++) {
+                prefijos.add(palabra.substring(0, i));
+            }
+        }
+        return prefijos;
+    }
+
+    /**
+     * Palabras distintas del texto en minúsculas y sin tildes ni otras marcas diacríticas
+     */
+    static String[] palabras(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return SIN_PALABRAS;
+        }
+        String normalizado = MARCAS_DIACRITICAS
+            .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        Set<String> palabras = new LinkedHashSet<>();
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras.toArray(SIN_PALABRAS);
+    }
+
+    public int getDocumentos() {
+        cerrojo.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public int getTerminos() {
+        cerrojo.readLock().lock();
+        try {
+            return terminos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de una página de resultados junto con su información de navegación
+     */
+    public static final class ResultadoBusqueda {
+
+        static final ResultadoBusqueda VACIO = new ResultadoBusqueda(Collections.emptyList(), false, false);
+
+        private final List<Long> ids;
+        private final boolean hayAnterior;
+        private final boolean haySiguiente;
+
+        ResultadoBusqueda(List<Long> ids, boolean hayAnterior, boolean haySiguiente) {
+            this.ids = ids;
+            this.hayAnterior = hayAnterior;
+            this.haySiguiente = haySiguiente;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public boolean isHayAnterior() {
+            return hayAnterior;
+        }
+
+        public boolean isHaySiguiente() {
+            return haySiguiente;
+        }
+    }
+
+    /**
+     * Lista ordenada de IDs sobre un long[] que crece por duplicación. Los cursos nuevos
+     * tienen el id más alto, por lo que el caso habitual es añadir al final.
+     */
+    private static final class ListaIds {
+
+        private long[] ids = new long[4];
+        private int tamano;
+
+        void anadir(long id) {
+            if (tamano > 0 && ids[tamano - 1] >= id) {
+                int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+                if (posicion >= 0) {
+                    return;
+                }
+                insertar(-posicion - 1, id);
+                return;
+            }
+            insertar(tamano, id);
+        }
+
+        private void insertar(int posicion, long id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano++;
+        }
+
+        boolean quitar(long id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            tamano--;
+            return true;
+        }
+
+        boolean contiene(long id) {
+            return Arrays.binarySearch(ids, 0, tamano, id) >= 0;
+        }
+
+        /**
+         * Primera posición cuyo id es mayor que el dado
+         */
+        int primeraPosicionMayorQue(long id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            return posicion >= 0 ? posicion + 1 : -posicion - 1;
+        }
+
+        /**
+         * Primera posición desde "desde" cuyo id es mayor o igual que el dado, saltando en
+         * potencias de dos y terminando con una búsqueda binaria en el último tramo
+         */
+        int avanzarHasta(int desde, long id) {
+            if (desde >= tamano || ids[desde] >= id) {
+                return desde;
+            }
+            int salto = 1;
+            int anterior = desde;
+            int actual = desde + 1;
+            while (actual < tamano && ids[actual] < id) {
+                anterior = actual;
+                salto <<= 1;
+                actual = desde + salto;
+            }
+            int posicion = Arrays.binarySearch(ids, anterior + 1, Math.min(actual + 1, tamano), id);
+            return posicion >= 0 ? posicion : -posicion - 1;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Inscripcion;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Procesa las inscripciones en modo pipeline.
+ * Las solicitudes se encolan por curso y cada cola la vacía un único escritor que
+ * agrupa varias solicitudes en una sola transacción: una consulta de duplicados,
+ * una reserva de plazas y un insert por lotes JDBC (hibernate.jdbc.batch_size). Los resultados se entregan
+ * mediante CompletableFuture una vez confirmada la transacción.
+ */
+@Component
+public class InscripcionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(InscripcionPipeline.class);
+
+    static final String MENSAJE_YA_INSCRITO = "El usuario ya está inscrito en este curso";
+    static final String MENSAJE_CURSO_LLENO = "El curso ha alcanzado su capacidad máxima";
+    static final String MENSAJE_REINTENTAR = "Hay demasiadas inscripciones en curso, inténtalo de nuevo";
+
+    private final InscripcionRepository inscripcionRepository;
+    private final CursoRepository cursoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CerrojosCurso cerrojos;
+    private final CacheCursos cacheCursos;
+    private final VersionesCursos versiones;
+    private final AvisosPlazas avisosPlazas;
+    private final DiarioInscripciones diario;
+    private final ListaEsperaService listaEspera;
+    private final ScheduledExecutorService escritores;
+    private final Map<Long, ColaCurso> colas = new ConcurrentHashMap<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private volatile boolean detenido;
+    private final int tamanoLote;
+    private final int capacidadCola;
+    private final long esperaLoteMicros;
+
+    public InscripcionPipeline(InscripcionRepository inscripcionRepository, CursoRepository cursoRepository,
+                               UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager,
+                               CerrojosCurso cerrojos, CacheCursos cacheCursos, VersionesCursos versiones,
+                               AvisosPlazas avisosPlazas, DiarioInscripciones diario,
+                               ListaEsperaService listaEspera,
+                               @Value("${cursos.inscripcion.pipeline.hilos:4}") int hilos,
+                               @Value("${cursos.inscripcion.pipeline.tamano-lote:100}") int tamanoLote,
+                               @Value("${cursos.inscripcion.pipeline.capacidad-cola:10000}") int capacidadCola,
+                               @Value("${cursos.inscripcion.pipeline.espera-lote-us:2000}") long esperaLoteMicros) {
+        this.inscripcionRepository = inscripcionRepository;
+        this.cursoRepository = cursoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cerrojos = cerrojos;
+        this.cacheCursos = cacheCursos;
+        this.versiones = versiones;
+        this.avisosPlazas = avisosPlazas;
+        this.diario = diario;
+        this.listaEspera = listaEspera;
+        ScheduledThreadPoolExecutor escritores = new ScheduledThreadPoolExecutor(Math.max(1, hilos), r -> {
+            Thread hilo = new Thread(r, "inscripcion-pipeline");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Al detenerse no se arrancan lotes nuevos: lo que siga encolado se rechaza en detener()
+        escritores.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.escritores = escritores;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.capacidadCola = Math.max(1, capacidadCola);
+        this.esperaLoteMicros = Math.max(0, esperaLoteMicros);
+    }
+
+    /**
+     * Encola una solicitud de inscripción. El futuro se completa cuando el lote que la
+     * contiene se confirma, o falla con el mismo mensaje que el modo síncrono.
+     */
+    public CompletableFuture<Void> encolar(Long usuarioId, Curso curso) {
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        if (pendientes.incrementAndGet() > capacidadCola) {
+            pendientes.decrementAndGet();
+            resultado.completeExceptionally(new RuntimeException(MENSAJE_REINTENTAR));
+            return resultado;
+        }
+        ColaCurso cola = colas.computeIfAbsent(curso.getId(), ColaCurso::new);
+        cola.solicitudes.add(new Solicitud(usuarioId, resultado));
+        programar(cola);
+        if (detenido) {
+            // Se comprueba después de encolar: o la ve aquí, o la vacía detener()
+            rechazarPendientes(cola);
+        }
+        return resultado;
+    }
+
+    /**
+     * Número de solicitudes encoladas pendientes de procesar
+     */
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Número de cursos con cola abierta; las colas vacías se retiran al terminar su escritor
+     */
+    public int getColas() {
+        return colas.size();
+    }
+
+    private void programar(ColaCurso cola) {
+        // Solo un escritor por curso: quien cambia la marca a true lanza el vaciado.
+        // La breve espera deja que se acumulen más solicitudes en el mismo lote.
+        if (!cola.solicitudes.isEmpty() && cola.programada.compareAndSet(false, true)) {
+            try {
+                escritores.schedule(() -> vaciar(cola), esperaLoteMicros, TimeUnit.MICROSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Aplicación deteniéndose: no habrá escritor que vacíe la cola
+                rechazarPendientes(cola);
+            }
+        }
+    }
+
+    private void vaciar(ColaCurso cola) {
+        try {
+            List<Solicitud> lote = new ArrayList<>(tamanoLote);
+            Solicitud solicitud;
+            while (lote.size() < tamanoLote && (solicitud = cola.solicitudes.poll()) != null) {
+                lote.add(solicitud);
+            }
+            if (!lote.isEmpty()) {
+                pendientes.addAndGet(-lote.size());
+                // Mismo cerrojo que el modo síncrono: las confirmaciones del curso quedan ordenadas
+                Lock cerrojo = cerrojos.de(cola.cursoId);
+                Map<Solicitud, RuntimeException> fallos;
+                cerrojo.lock();
+                try {
+                    fallos = procesarLote(cola.cursoId, lote);
+                } finally {
+                    cerrojo.unlock();
+                }
+                // Ya sin el cerrojo: el fsync del diario se comparte con otros cursos y lo que
+                // se encadena a los futuros (lista de espera, redirecciones, admisión) no
+                // retiene al resto de escrituras del curso
+                try {
+                    diario.sincronizar();
+                } catch (RuntimeException e) {
+                    log.error("Error sincronizando el diario tras un lote del curso {}", cola.cursoId, e);
+                    for (Solicitud pendiente : lote) {
+                        fallos.put(pendiente, e);
+                    }
+                }
+                completar(lote, fallos);
+            }
+        } finally {
+            // Se retira la cola vacía con la marca aún tomada: quien la siga usando la hará
+            // programar de nuevo más abajo y la siguiente solicitud del curso abrirá otra
+            if (cola.solicitudes.isEmpty()) {
+                colas.remove(cola.cursoId, cola);
+            }
+            cola.programada.set(false);
+            // Se vuelve a programar si llegaron solicitudes mientras se procesaba el lote
+            programar(cola);
+        }
+    }
+
+    /**
+     * Escribe el lote con el cerrojo del curso ya tomado y devuelve el error de cada solicitud
+     * rechazada; las que no aparecen quedaron inscritas
+     */
+    private Map<Solicitud, RuntimeException> procesarLote(Long cursoId, List<Solicitud> lote) {
+        Map<Solicitud, RuntimeException> fallos = new HashMap<>();
+        try {
+            Map<Solicitud, String> rechazos = transactionTemplate.execute(estado -> escribirLote(cursoId, lote));
+            for (Map.Entry<Solicitud, String> rechazo : rechazos.entrySet()) {
+                fallos.put(rechazo.getKey(), MENSAJE_CURSO_LLENO.equals(rechazo.getValue())
+                    ? new CursoLlenoException() : new RuntimeException(rechazo.getValue()));
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (lote.size() == 1) {
+                fallos.put(lote.get(0), new RuntimeException(MENSAJE_YA_INSCRITO, e));
+                return fallos;
+            }
+            // Una inscripción síncrona concurrente chocó con el lote: se procesa de uno en uno
+            for (Solicitud solicitud : lote) {
+                fallos.putAll(procesarLote(cursoId, List.of(solicitud)));
+            }
+        } catch (RuntimeException e) {
+            log.error("Error procesando lote de inscripciones del curso {}", cursoId, e);
+            for (Solicitud solicitud : lote) {
+                fallos.put(solicitud, e);
+            }
+        }
+        return fallos;
+    }
+
+    private static void completar(List<Solicitud> lote, Map<Solicitud, RuntimeException> fallos) {
+        for (Solicitud solicitud : lote) {
+            RuntimeException fallo = fallos.get(solicitud);
+            if (fallo == null) {
+                solicitud.resultado.complete(null);
+            } else {
+                solicitud.resultado.completeExceptionally(fallo);
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote en la transacción actual y devuelve las solicitudes rechazadas con su motivo
+     */
+    private Map<Solicitud, String> escribirLote(Long cursoId, List<Solicitud> lote) {
+        Map<Solicitud, String> rechazos = new HashMap<>();
+
+        // Duplicados: ya inscritos en base de datos o repetidos dentro del lote
+        Set<Long> usuarioIds = new HashSet<>();
+        for (Solicitud solicitud : lote) {
+            usuarioIds.add(solicitud.usuarioId);
+        }
+        Set<Long> inscritos = new HashSet<>(inscripcionRepository.findUsuarioIdsInscritos(cursoId, usuarioIds));
+        List<Solicitud> candidatas = new ArrayList<>();
+        for (Solicitud solicitud : lote) {
+            if (!inscritos.add(solicitud.usuarioId)) {
+                rechazos.put(solicitud, MENSAJE_YA_INSCRITO);
+            } else {
+                candidatas.add(solicitud);
+            }
+        }
+
+        // Un curso borrado (u oculto a la espera de su purga) no se da por lleno: así nadie
+        // acaba en la lista de espera de un curso que ya no existe
+        List<CursoResumen> encontrados = cursoRepository.findResumenesByIdIn(Collections.singleton(cursoId));
+        if (encontrados.isEmpty()) {
+            for (Solicitud solicitud : candidatas) {
+                rechazos.put(solicitud, "Curso no encontrado con ID: " + cursoId);
+            }
+            return rechazos;
+        }
+        CursoResumen curso = encontrados.get(0);
+
+        // Capacidad: se reservan de una vez las plazas que quedan libres, por orden de llegada.
+        // Si el curso tiene lista de espera las plazas son de quien ya espera.
+        long libres = listaEspera.tieneEspera(cursoId) ? 0 : curso.getCapacidad() - curso.getInscritos();
+        int aceptadas = (int) Math.max(0, Math.min(candidatas.size(), libres));
+        while (aceptadas > 0 && cursoRepository.reservarPlazas(cursoId, aceptadas) == 0) {
+            // Otra escritura cambió el contador entre la lectura y la reserva
+            aceptadas--;
+        }
+        if (aceptadas > 0) {
+            cacheCursos.refrescarInscritosAlConfirmar(cursoId);
+            versiones.cambioCurso(cursoId);
+            avisosPlazas.cambio(cursoId);
+        }
+        for (Solicitud solicitud : candidatas.subList(aceptadas, candidatas.size())) {
+            rechazos.put(solicitud, MENSAJE_CURSO_LLENO);
+        }
+
+        // Insert por lotes JDBC en la misma transacción: los IDs salen de la secuencia en bloques
+        Curso referencia = cursoRepository.getReferenceById(cursoId);
+        List<Inscripcion> nuevas = new ArrayList<>(aceptadas);
+        List<Long> nuevosUsuarioIds = new ArrayList<>(aceptadas);
+        for (Solicitud solicitud : candidatas.subList(0, aceptadas)) {
+            nuevosUsuarioIds.add(solicitud.usuarioId);
+            Inscripcion inscripcion = new Inscripcion();
+            inscripcion.setUsuario(usuarioRepository.getReferenceById(solicitud.usuarioId));
+            inscripcion.setCurso(referencia);
+            nuevas.add(inscripcion);
+        }
+        if (!nuevas.isEmpty()) {
+            inscripcionRepository.saveAll(nuevas);
+            inscripcionRepository.flush();
+            diario.altas(cursoId, nuevosUsuarioIds);
+        }
+        return rechazos;
+    }
+
+    /**
+     * Deja terminar los lotes en marcha y rechaza lo que quede encolado, para que ningún
+     * futuro (ni la petición asíncrona y el hueco de admisión que esperan por él) quede
+     * pendiente para siempre
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        detenido = true;
+        escritores.shutdown();
+        escritores.awaitTermination(10, TimeUnit.SECONDS);
+        for (ColaCurso cola : colas.values()) {
+            rechazarPendientes(cola);
+        }
+    }
+
+    private void rechazarPendientes(ColaCurso cola) {
+        Solicitud solicitud;
+        while ((solicitud = cola.solicitudes.poll()) != null) {
+            pendientes.decrementAndGet();
+            solicitud.resultado.completeExceptionally(new RuntimeException(MENSAJE_REINTENTAR));
+        }
+    }
+
+    private static final class ColaCurso {
+        private final Long cursoId;
+        private final ConcurrentLinkedQueue<Solicitud> solicitudes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean programada = new AtomicBoolean();
+
+        private ColaCurso(Long cursoId) {
+            this.cursoId = cursoId;
+        }
+    }
+
+    private static final class Solicitud {
+        private final Long usuarioId;
+        private final CompletableFuture<Void> resultado;
+
+        private Solicitud(Long usuarioId, CompletableFuture<Void> resultado) {
+            this.usuarioId = usuarioId;
+            this.resultado = resultado;
+        }
+    }
+}
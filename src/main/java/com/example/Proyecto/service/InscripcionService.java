@@ -3,90 +3,258 @@ package com.example.Proyecto.service;
 import com.example.Proyecto.entity.Curso;
 import com.example.Proyecto.entity.Inscripcion;
 import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
 import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.util.ConjuntoIds;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Service
+@Timed(value = "servicio.metodo", histogram = true)
 public class InscripcionService {
     
     private final InscripcionRepository inscripcionRepository;
+    private final CursoRepository cursoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CerrojosCurso cerrojos;
+    private final CacheCursos cacheCursos;
+    private final VersionesCursos versiones;
+    private final AvisosPlazas avisosPlazas;
+    private final DiarioInscripciones diario;
+    private final int maxReintentos;
+    private final InscripcionPipeline pipeline;
+    private final ListaEsperaService listaEspera;
+    private volatile ModoInscripcion modo;
 
-    public InscripcionService(InscripcionRepository inscripcionRepository) {
+    public InscripcionService(InscripcionRepository inscripcionRepository, CursoRepository cursoRepository,
+                              PlatformTransactionManager transactionManager, CerrojosCurso cerrojos,
+                              CacheCursos cacheCursos, VersionesCursos versiones, AvisosPlazas avisosPlazas,
+                              DiarioInscripciones diario, InscripcionPipeline pipeline,
+                              ListaEsperaService listaEspera,
+                              @Value("${cursos.inscripcion.max-reintentos:5}") int maxReintentos,
+                              @Value("${cursos.inscripcion.modo:SINCRONO}") ModoInscripcion modo) {
         this.inscripcionRepository = inscripcionRepository;
+        this.cursoRepository = cursoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cerrojos = cerrojos;
+        this.cacheCursos = cacheCursos;
+        this.versiones = versiones;
+        this.avisosPlazas = avisosPlazas;
+        this.diario = diario;
+        this.pipeline = pipeline;
+        this.listaEspera = listaEspera;
+        this.modo = modo;
+        this.maxReintentos = Math.max(1, maxReintentos);
     }
 
     /**
-     * Obtiene todas las inscripciones de un usuario
+     * Obtiene los IDs de los cursos en los que está inscrito un usuario.
+     * Se consulta solo la columna curso_id y se devuelve como conjunto compacto
+     * para comprobar la pertenencia en O(1) desde las vistas.
      */
-    public List<Inscripcion> listarInscripcionesPorUsuario(Usuario usuario) {
-        return inscripcionRepository.findByUsuario(usuario);
+    public ConjuntoIds obtenerIdsCursosInscritos(Usuario usuario) {
+        return obtenerIdsCursosInscritos(usuario.getId());
+    }
+
+    public ConjuntoIds obtenerIdsCursosInscritos(Long usuarioId) {
+        if (diario.isActivo()) {
+            // Modelo de lectura del diario: sin consulta
+            return diario.cursosDe(usuarioId);
+        }
+        return ConjuntoIds.de(inscripcionRepository.findCursoIdsByUsuarioId(usuarioId));
     }
 
     /**
-     * Obtiene todas las inscripciones de un curso
+     * Verifica si un usuario ya está inscrito en un curso
      */
-    public List<Inscripcion> listarInscripcionesPorCurso(Curso curso) {
-        return inscripcionRepository.findByCurso(curso);
+    public boolean estaInscrito(Usuario usuario, Curso curso) {
+        return inscripcionRepository.existsByUsuarioAndCurso(usuario, curso);
     }
 
     /**
-     * Cuenta el número de inscritos en un curso
+     * Verifica si un curso tiene capacidad disponible según su contador de inscritos
      */
-    public long contarInscritosPorCurso(Curso curso) {
-        return inscripcionRepository.findByCurso(curso).size();
+    public boolean tieneCapacidadDisponible(Curso curso) {
+        return cursoRepository.tieneCapacidadDisponible(curso.getId()).orElse(false);
     }
 
     /**
-     * Verifica si un usuario ya está inscrito en un curso
+     * Inscribe a un usuario en un curso validando las condiciones.
+     * Es seguro bajo concurrencia: la comprobación y el alta se hacen con el cerrojo del
+     * curso, así que en este nodo dos peticiones del mismo usuario no se cruzan, y la plaza se
+     * reserva con un UPDATE condicional. La restricción única (usuario_id, curso_id) queda
+     * como red de seguridad para escrituras de fuera de la aplicación.
      */
-    public boolean estaInscrito(Usuario usuario, Curso curso) {
-        return inscripcionRepository.findByUsuarioAndCurso(usuario, curso).isPresent();
+    public Inscripcion inscribirUsuario(Usuario usuario, Curso curso) {
+        return ejecutarEnCurso(curso, () -> {
+            // Validación: ya está inscrito
+            if (estaInscrito(usuario, curso)) {
+                throw new RuntimeException("El usuario ya está inscrito en este curso");
+            }
+
+            // Validación: capacidad completa. La reserva es un UPDATE condicional atómico,
+            // si la inscripción falla después la transacción devuelve la plaza.
+            // Con lista de espera las plazas libres son de quien ya espera.
+            if (listaEspera.tieneEspera(curso.getId()) || cursoRepository.reservarPlaza(curso.getId()) == 0) {
+                throw new CursoLlenoException();
+            }
+
+            cacheCursos.refrescarInscritosAlConfirmar(curso.getId());
+            versiones.cambioCurso(curso.getId());
+            avisosPlazas.cambio(curso.getId());
+
+            // Crear y guardar la inscripción
+            Inscripcion inscripcion = new Inscripcion();
+            inscripcion.setUsuario(usuario);
+            inscripcion.setCurso(curso);
+            inscripcion.setFechaInscripcion(LocalDateTime.now());
+
+            // El insert se envía en el commit: la secuencia asigna el ID sin ir a la base de datos
+            Inscripcion guardada = inscripcionRepository.save(inscripcion);
+            diario.alta(usuario.getId(), curso.getId());
+            return guardada;
+        });
     }
 
     /**
-     * Verifica si un curso tiene capacidad disponible
+     * Inscribe a un usuario en un curso sin bloquear al llamador.
+     * En modo SINCRONO la inscripción se hace en el hilo actual y el futuro ya viene completado;
+     * en modo PIPELINE se encola y se resuelve cuando el escritor del curso confirma su lote.
      */
-    public boolean tieneCapacidadDisponible(Curso curso) {
-        long inscritos = contarInscritosPorCurso(curso);
-        return inscritos < curso.getCapacidad();
+    public CompletableFuture<Void> inscribirUsuarioAsync(Usuario usuario, Curso curso) {
+        if (modo == ModoInscripcion.PIPELINE) {
+            return pipeline.encolar(usuario.getId(), curso);
+        }
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        try {
+            inscribirUsuario(usuario, curso);
+            resultado.complete(null);
+        } catch (RuntimeException e) {
+            resultado.completeExceptionally(e);
+        }
+        return resultado;
     }
 
     /**
-     * Inscribe a un usuario en un curso validando las condiciones
+     * Inscribe a un usuario en un curso o, si no hay plaza para él, lo apunta al final de
+     * la lista de espera. Si el curso ya tiene cola no se intenta la inscripción: los
+     * reintentos sobre un curso lleno cuestan una consulta en lugar de una transacción.
      */
-    @Transactional
-    public Inscripcion inscribirUsuario(Usuario usuario, Curso curso) {
-        // Validación: ya está inscrito
-        if (estaInscrito(usuario, curso)) {
-            throw new RuntimeException("El usuario ya está inscrito en este curso");
+    public CompletableFuture<EstadoInscripcion> inscribirOEsperar(Usuario usuario, Curso curso) {
+        if (listaEspera.tieneEspera(curso.getId())) {
+            CompletableFuture<EstadoInscripcion> resultado = new CompletableFuture<>();
+            try {
+                listaEspera.apuntar(usuario.getId(), curso.getId());
+                resultado.complete(EstadoInscripcion.EN_ESPERA);
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+            }
+            return resultado;
         }
+        return inscribirUsuarioAsync(usuario, curso).handle((inscrito, error) -> {
+            if (error == null) {
+                return EstadoInscripcion.INSCRITO;
+            }
+            Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (causa instanceof CursoLlenoException) {
+                listaEspera.apuntar(usuario.getId(), curso.getId());
+                return EstadoInscripcion.EN_ESPERA;
+            }
+            throw causa instanceof RuntimeException ? (RuntimeException) causa : new CompletionException(causa);
+        });
+    }
+
+    public ModoInscripcion getModo() {
+        return modo;
+    }
 
-        // Validación: capacidad completa
-        if (!tieneCapacidadDisponible(curso)) {
-            throw new RuntimeException("El curso ha alcanzado su capacidad máxima");
+    /**
+     * Cambia el modo de procesamiento de las inscripciones en caliente
+     */
+    public void setModo(ModoInscripcion modo) {
+        this.modo = modo;
+    }
+
+    /**
+     * Remueve la inscripción de un usuario en un curso.
+     * La plaza liberada se ofrece a la lista de espera después, en segundo plano.
+     */
+    public void removerInscripcion(Usuario usuario, Curso curso) {
+        ejecutarEnCurso(curso, () -> {
+            if (inscripcionRepository.deleteByUsuarioAndCurso(usuario, curso) == 0) {
+                throw new RuntimeException("El usuario no está inscrito en este curso");
+            }
+            cursoRepository.liberarPlaza(curso.getId());
+            cacheCursos.refrescarInscritosAlConfirmar(curso.getId());
+            versiones.cambioCurso(curso.getId());
+            avisosPlazas.cambio(curso.getId());
+            diario.baja(usuario.getId(), curso.getId());
+            listaEspera.notificarPlazaLibre(curso.getId());
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta una operación sobre un curso en su propia transacción, serializada con el
+     * resto de operaciones del mismo curso en este nodo (incluidos los lotes del pipeline),
+     * de modo que las actualizaciones de la caché de cursos y el diario se aplican en orden. Si la base de datos informa de
+     * un conflicto de concurrencia (bloqueo agotado, interbloqueo) se reintenta con una
+     * espera aleatoria creciente en lugar de fallar la petición.
+     * Al terminar, ya fuera del cerrojo, espera a que el evento del diario esté en disco.
+     */
+    private <T> T ejecutarEnCurso(Curso curso, Supplier<T> operacion) {
+        Lock franja = cerrojos.de(curso.getId());
+        T resultado;
+        for (int intento = 1; ; intento++) {
+            franja.lock();
+            try {
+                resultado = transactionTemplate.execute(estado -> operacion.get());
+                break;
+            } catch (ConcurrencyFailureException e) {
+                if (intento >= maxReintentos) {
+                    throw e;
+                }
+            } finally {
+                franja.unlock();
+            }
+            esperarAntesDeReintentar(intento);
         }
+        diario.sincronizar();
+        return resultado;
+    }
 
-        // Crear y guardar la inscripción
-        Inscripcion inscripcion = new Inscripcion();
-        inscripcion.setUsuario(usuario);
-        inscripcion.setCurso(curso);
-        inscripcion.setFechaInscripcion(LocalDateTime.now());
-        
-        return inscripcionRepository.save(inscripcion);
+    private static void esperarAntesDeReintentar(int intento) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L << intento));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Inscripción interrumpida", e);
+        }
     }
 
     /**
-     * Remueve la inscripción de un usuario en un curso
+     * Repara los contadores de inscritos que se hayan desviado de la tabla de inscripciones.
+     * Devuelve el número de cursos corregidos.
      */
     @Transactional
-    public void removerInscripcion(Usuario usuario, Curso curso) {
-        if (!estaInscrito(usuario, curso)) {
-            throw new RuntimeException("El usuario no está inscrito en este curso");
+    public int reconciliarContadores() {
+        int reparados = cursoRepository.reconciliarInscritos();
+        if (reparados > 0) {
+            cacheCursos.invalidarCursos();
+            versiones.cambioTodos();
         }
-        inscripcionRepository.deleteByUsuarioAndCurso(usuario, curso);
+        return reparados;
     }
 }
@@ -0,0 +1,21 @@
+package com.example.Proyecto.service;
+
+import java.time.Duration;
+
+/**
+ * La petición de inscripción o de baja no se admite: el usuario ha agotado su ráfaga o ya hay
+ * demasiadas en curso. Lleva el tiempo tras el que tiene sentido volver a intentarlo.
+ */
+public class InscripcionesSaturadasException extends RuntimeException {
+
+    private final Duration reintentarEn;
+
+    public InscripcionesSaturadasException(String mensaje, Duration reintentarEn) {
+        super(mensaje);
+        this.reintentarEn = reintentarEn;
+    }
+
+    public Duration getReintentarEn() {
+        return reintentarEn;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Usuario;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Listener JPA de Usuario que invalida la caché de identidades cuando un
+ * usuario se modifica o se elimina, sea cual sea el código que lo cambie.
+ * Hibernate lo crea a través del contenedor de beans de Spring.
+ */
+public class InvalidacionIdentidadListener {
+
+    private final CacheIdentidades cacheIdentidades;
+
+    public InvalidacionIdentidadListener(CacheIdentidades cacheIdentidades) {
+        this.cacheIdentidades = cacheIdentidades;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidar(Usuario usuario) {
+        cacheIdentidades.invalidarPorId(usuario.getId());
+    }
+}
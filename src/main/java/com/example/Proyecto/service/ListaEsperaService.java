@@ -0,0 +1,339 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Inscripcion;
+import com.example.Proyecto.entity.SolicitudEspera;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.repository.SolicitudEsperaRepository;
+import com.example.Proyecto.util.ConjuntoIds;
+import com.example.Proyecto.util.Transacciones;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Lista de espera FIFO de los cursos llenos.
+ * Cancelar una inscripción solo libera la plaza y marca el curso como pendiente; la
+ * promoción de los usuarios en espera la hace después, fuera del hilo de la petición,
+ * {@link PromocionListaEsperaJob}, que rellena las plazas libres de cada curso por lotes.
+ * Mientras un curso tenga cola, las inscripciones directas se apuntan al final de ella
+ * en lugar de adelantarse a quien ya espera.
+ */
+@Service
+public class ListaEsperaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListaEsperaService.class);
+
+    private final SolicitudEsperaRepository solicitudEsperaRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final CursoRepository cursoRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CerrojosCurso cerrojos;
+    private final CacheCursos cacheCursos;
+    private final VersionesCursos versiones;
+    private final AvisosPlazas avisosPlazas;
+    private final DiarioInscripciones diario;
+    private final Counter promovidas;
+    private final int tamanoLote;
+
+    /** Cursos con al menos un usuario en espera. Solo cambia al confirmar, para que un rollback no lo desvíe */
+    private final Set<Long> cursosConEspera = ConcurrentHashMap.newKeySet();
+
+    /** Cursos con plazas liberadas que aún no se han ofrecido a su lista de espera */
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    public ListaEsperaService(SolicitudEsperaRepository solicitudEsperaRepository,
+                              InscripcionRepository inscripcionRepository, CursoRepository cursoRepository,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager,
+                              CerrojosCurso cerrojos, CacheCursos cacheCursos, VersionesCursos versiones,
+                              AvisosPlazas avisosPlazas, DiarioInscripciones diario, MeterRegistry registro,
+                              @Value("${cursos.espera.tamano-lote:100}") int tamanoLote) {
+        this.solicitudEsperaRepository = solicitudEsperaRepository;
+        this.inscripcionRepository = inscripcionRepository;
+        this.cursoRepository = cursoRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cerrojos = cerrojos;
+        this.cacheCursos = cacheCursos;
+        this.versiones = versiones;
+        this.avisosPlazas = avisosPlazas;
+        this.diario = diario;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.promovidas = Counter.builder("cursos.espera.promovidas").register(registro);
+        Gauge.builder("cursos.espera.cursos.pendientes", pendientes, Set::size).register(registro);
+    }
+
+    /**
+     * Indica si el curso tiene usuarios esperando plaza. Es una consulta en memoria,
+     * apta para la ruta caliente de la inscripción.
+     */
+    public boolean tieneEspera(Long cursoId) {
+        return cursosConEspera.contains(cursoId);
+    }
+
+    /**
+     * Apunta al usuario al final de la lista de espera del curso y devuelve su posición (desde 1).
+     * Si ya estaba en la lista conserva su sitio.
+     */
+    public long apuntar(Long usuarioId, Long cursoId) {
+        // Mismo cerrojo que las inscripciones del curso: la cola y la promoción no se cruzan
+        Lock cerrojo = cerrojos.de(cursoId);
+        cerrojo.lock();
+        try {
+            return transactionTemplate.execute(estado -> {
+                long posicion = solicitudEsperaRepository.posicion(usuarioId, cursoId);
+                if (posicion > 0) {
+                    return posicion;
+                }
+                if (!inscripcionRepository.findUsuarioIdsInscritos(cursoId, Collections.singleton(usuarioId)).isEmpty()) {
+                    throw new RuntimeException("El usuario ya está inscrito en este curso");
+                }
+                SolicitudEspera solicitud = new SolicitudEspera();
+                solicitud.setUsuario(entityManager.getReference(Usuario.class, usuarioId));
+                solicitud.setCurso(entityManager.getReference(Curso.class, cursoId));
+                solicitudEsperaRepository.save(solicitud);
+                versiones.cambioCurso(cursoId);
+                // Puede haber plazas libres si la cola desvió una inscripción directa
+                Transacciones.alConfirmar(() -> {
+                    cursosConEspera.add(cursoId);
+                    pendientes.add(cursoId);
+                });
+                return solicitudEsperaRepository.posicion(usuarioId, cursoId);
+            });
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Saca al usuario de la lista de espera del curso
+     */
+    public void salir(Long usuarioId, Long cursoId) {
+        Lock cerrojo = cerrojos.de(cursoId);
+        cerrojo.lock();
+        try {
+            transactionTemplate.execute(estado -> {
+                if (solicitudEsperaRepository.deleteByUsuarioIdAndCursoId(usuarioId, cursoId) == 0) {
+                    throw new RuntimeException("El usuario no está en la lista de espera de este curso");
+                }
+                versiones.cambioCurso(cursoId);
+                return null;
+            });
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Posición (desde 1) del usuario en la lista de espera del curso, o 0 si no está en ella
+     */
+    public long posicion(Long usuarioId, Long cursoId) {
+        return solicitudEsperaRepository.posicion(usuarioId, cursoId);
+    }
+
+    /**
+     * Obtiene los IDs de los cursos en cuya lista de espera está el usuario
+     */
+    public ConjuntoIds obtenerIdsCursosEnEspera(Long usuarioId) {
+        return ConjuntoIds.de(solicitudEsperaRepository.findCursoIdsByUsuarioId(usuarioId));
+    }
+
+    /**
+     * Avisa de que el curso tiene una plaza libre más. Se llama dentro de la transacción
+     * que la libera y es O(1): la promoción se hace tras confirmar, en segundo plano.
+     */
+    public void notificarPlazaLibre(Long cursoId) {
+        if (cursosConEspera.contains(cursoId)) {
+            Transacciones.alConfirmar(() -> pendientes.add(cursoId));
+        }
+    }
+
+    /**
+     * Borra la lista de espera de un curso que se va a eliminar, dentro de la transacción actual
+     */
+    public void eliminarCurso(Long cursoId) {
+        solicitudEsperaRepository.deleteByCursoId(cursoId);
+        Transacciones.alConfirmar(() -> {
+            cursosConEspera.remove(cursoId);
+            pendientes.remove(cursoId);
+        });
+    }
+
+    /**
+     * Ofrece las plazas libres de los cursos pendientes a sus listas de espera, en orden
+     * de llegada y por lotes. Devuelve el número de usuarios inscritos.
+     */
+    public int promoverPendientes() {
+        int total = 0;
+        for (Long cursoId : new ArrayList<>(pendientes)) {
+            // Se desmarca antes de leer el curso: una plaza liberada a partir de aquí lo vuelve a marcar
+            pendientes.remove(cursoId);
+            total += promoverCurso(cursoId);
+        }
+        return total;
+    }
+
+    /**
+     * Vuelve a marcar como pendientes los cursos con cola, por si alguna plaza no llegó a
+     * notificarse (reinicio del nodo, aumento de capacidad, cambios fuera de la aplicación)
+     */
+    public void barrer() {
+        cursosConEspera.addAll(solicitudEsperaRepository.findCursoIdsConEspera());
+        // Los cursos llenos se descartan con una consulta; los marcados en memoria sin cola
+        // en base de datos se desmarcan en su promoción
+        pendientes.addAll(cursosConEspera);
+    }
+
+    public int getCursosPendientes() {
+        return pendientes.size();
+    }
+
+    public void limpiar() {
+        cursosConEspera.clear();
+        pendientes.clear();
+    }
+
+    /**
+     * Rellena las plazas libres del curso lote a lote, soltando el cerrojo entre lotes
+     * para no retener las cancelaciones e inscripciones del curso
+     */
+    private int promoverCurso(Long cursoId) {
+        int total = 0;
+        Lock cerrojo = cerrojos.de(cursoId);
+        try {
+            Lote lote;
+            do {
+                cerrojo.lock();
+                try {
+                    lote = transactionTemplate.execute(estado -> promoverLote(cursoId));
+                } finally {
+                    cerrojo.unlock();
+                }
+                total += lote.promovidas;
+            } while (lote.hayMas);
+        } catch (RuntimeException e) {
+            // El barrido periódico lo volverá a intentar
+            log.error("Error promoviendo la lista de espera del curso {}", cursoId, e);
+        }
+        return total;
+    }
+
+    /**
+     * Inscribe, en la transacción actual, a los primeros de la cola que quepan en las plazas libres
+     */
+    private Lote promoverLote(Long cursoId) {
+        List<CursoResumen> cursos = cursoRepository.findResumenesByIdIn(Collections.singleton(cursoId));
+        if (cursos.isEmpty()) {
+            Transacciones.alConfirmar(() -> cursosConEspera.remove(cursoId));
+            return Lote.VACIO;
+        }
+        CursoResumen curso = cursos.get(0);
+        long libres = curso.getCapacidad() - curso.getInscritos();
+        if (libres <= 0) {
+            // Sigue lleno: la cola espera a la próxima plaza liberada
+            return Lote.VACIO;
+        }
+
+        int limite = (int) Math.min(libres, tamanoLote);
+        List<Object[]> cabeza = solicitudEsperaRepository.primerasPorCurso(cursoId, PageRequest.of(0, limite));
+        if (cabeza.isEmpty()) {
+            // Cola vacía: las inscripciones directas vuelven a tener vía libre
+            Transacciones.alConfirmar(() -> cursosConEspera.remove(cursoId));
+            return Lote.VACIO;
+        }
+
+        // Solicitudes de usuarios que ya se inscribieron por otra vía: se descartan sin ocupar plaza
+        List<Long> usuarioIds = new ArrayList<>(cabeza.size());
+        for (Object[] solicitud : cabeza) {
+            usuarioIds.add((Long) solicitud[1]);
+        }
+        Set<Long> inscritos = new HashSet<>(inscripcionRepository.findUsuarioIdsInscritos(cursoId, usuarioIds));
+        int candidatas = 0;
+        for (Long usuarioId : usuarioIds) {
+            if (!inscritos.contains(usuarioId)) {
+                candidatas++;
+            }
+        }
+
+        int aceptadas = candidatas;
+        while (aceptadas > 0 && cursoRepository.reservarPlazas(cursoId, aceptadas) == 0) {
+            // Otra escritura cambió el contador entre la lectura y la reserva
+            aceptadas--;
+        }
+
+        // Se consumen, en orden, las solicitudes descartadas y las promovidas hasta agotar las plazas
+        List<Long> consumidas = new ArrayList<>(cabeza.size());
+        List<Inscripcion> nuevas = new ArrayList<>(aceptadas);
+        List<Long> promovidos = new ArrayList<>(aceptadas);
+        Curso referencia = entityManager.getReference(Curso.class, cursoId);
+        for (Object[] solicitud : cabeza) {
+            Long usuarioId = (Long) solicitud[1];
+            if (!inscritos.contains(usuarioId)) {
+                if (nuevas.size() == aceptadas) {
+                    break;
+                }
+                Inscripcion inscripcion = new Inscripcion();
+                inscripcion.setUsuario(entityManager.getReference(Usuario.class, usuarioId));
+                inscripcion.setCurso(referencia);
+                nuevas.add(inscripcion);
+                promovidos.add(usuarioId);
+            }
+            consumidas.add((Long) solicitud[0]);
+        }
+
+        // Inserts en lotes JDBC al hacer flush en el commit (hibernate.jdbc.batch_size)
+        inscripcionRepository.saveAll(nuevas);
+        solicitudEsperaRepository.deleteByIdIn(consumidas);
+        if (!consumidas.isEmpty()) {
+            versiones.cambioCurso(cursoId);
+        }
+        if (!nuevas.isEmpty()) {
+            cacheCursos.refrescarInscritosAlConfirmar(cursoId);
+            avisosPlazas.cambio(cursoId);
+            diario.altas(cursoId, promovidos);
+            int promovidasLote = nuevas.size();
+            Transacciones.alConfirmar(() -> promovidas.increment(promovidasLote));
+        }
+        if (cabeza.size() < limite && consumidas.size() == cabeza.size()) {
+            // Se ha vaciado la cola
+            Transacciones.alConfirmar(() -> cursosConEspera.remove(cursoId));
+        }
+        // Si la cabeza llenó el lote puede quedar cola y plazas: se pide otra vuelta
+        return new Lote(nuevas.size(), cabeza.size() == limite && consumidas.size() == cabeza.size());
+    }
+
+    /**
+     * Resultado de un lote de promoción
+     */
+    private static final class Lote {
+        private static final Lote VACIO = new Lote(0, false);
+
+        private final int promovidas;
+        private final boolean hayMas;
+
+        private Lote(int promovidas, boolean hayMas) {
+            this.promovidas = promovidas;
+            this.hayMas = hayMas;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.FormatoExportacion;
+import com.example.Proyecto.dto.InscritoResumen;
+import com.example.Proyecto.dto.PaginaInscritos;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lista de inscritos de los cursos: paginada por cursor para la vista de detalle y
+ * exportada en streaming (CSV o JSON Lines) para cursos grandes o para todos a la vez.
+ * Ninguna de las dos carga la lista completa de inscripciones en memoria.
+ */
+@Service
+public class ListaInscritosService {
+
+    private static final String CABECERA_CSV = "curso_id,curso,usuario_id,username,email,fecha_inscripcion";
+
+    private final InscripcionRepository inscripcionRepository;
+    private final ObjectWriter escritorJson;
+    private final int tamanoPagina;
+
+    public ListaInscritosService(InscripcionRepository inscripcionRepository, ObjectMapper objectMapper,
+                                 @Value("${cursos.detalle.inscritos-por-pagina:25}") int tamanoPagina) {
+        this.inscripcionRepository = inscripcionRepository;
+        this.escritorJson = objectMapper.writerFor(InscritoResumen.class);
+        this.tamanoPagina = Math.max(1, tamanoPagina);
+    }
+
+    /**
+     * Devuelve una página de inscritos de un curso, en orden de inscripción.
+     * Sin cursores devuelve la primera página; con "despues" la siguiente al ID indicado
+     * y con "antes" la anterior.
+     */
+    public PaginaInscritos listarPorCurso(Long cursoId, Long despues, Long antes) {
+        // Se pide una fila extra para saber si existe otra página en la dirección recorrida
+        Pageable pagina = PageRequest.of(0, tamanoPagina + 1);
+
+        if (antes != null) {
+            List<InscritoResumen> filas = inscripcionRepository.inscritosPorCursoAntesDe(cursoId, antes, pagina);
+            boolean hayAnterior = filas.size() > tamanoPagina;
+            List<InscritoResumen> inscritos = new ArrayList<>(filas.subList(0, Math.min(tamanoPagina, filas.size())));
+            Collections.reverse(inscritos);
+            return new PaginaInscritos(inscritos, tamanoPagina, hayAnterior, true);
+        }
+
+        List<InscritoResumen> filas = despues != null
+            ? inscripcionRepository.inscritosPorCursoDespuesDe(cursoId, despues, pagina)
+            : inscripcionRepository.inscritosPorCurso(cursoId, pagina);
+        boolean haySiguiente = filas.size() > tamanoPagina;
+        List<InscritoResumen> inscritos = haySiguiente ? new ArrayList<>(filas.subList(0, tamanoPagina)) : filas;
+        return new PaginaInscritos(inscritos, tamanoPagina, despues != null, haySiguiente);
+    }
+
+    /**
+     * Escribe los inscritos de un curso en la salida indicada
+     */
+    @Transactional(readOnly = true)
+    public void exportarCurso(Long cursoId, FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (Stream<InscritoResumen> inscritos = inscripcionRepository.streamInscritosPorCurso(cursoId)) {
+            escribir(inscritos, formato, salida);
+        }
+    }
+
+    /**
+     * Escribe los inscritos de todos los cursos en la salida indicada, agrupados por curso
+     */
+    @Transactional(readOnly = true)
+    public void exportarTodos(FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (Stream<InscritoResumen> inscritos = inscripcionRepository.streamInscritos()) {
+            escribir(inscritos, formato, salida);
+        }
+    }
+
+    private void escribir(Stream<InscritoResumen> inscritos, FormatoExportacion formato, OutputStream salida)
+            throws IOException {
+        // Solo se retiene el búfer de escritura y las filas de un viaje del driver
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (formato == FormatoExportacion.CSV) {
+            escritor.write(CABECERA_CSV);
+            escritor.write('\n');
+        }
+        Iterator<InscritoResumen> iterador = inscritos.iterator();
+        while (iterador.hasNext()) {
+            InscritoResumen inscrito = iterador.next();
+            if (formato == FormatoExportacion.JSONL) {
+                escritor.write(escritorJson.writeValueAsString(inscrito));
+            } else {
+                escritor.write(String.valueOf(inscrito.getCursoId()));
+                escritor.write(',');
+                escritor.write(campoCsv(inscrito.getCursoNombre()));
+                escritor.write(',');
+                escritor.write(String.valueOf(inscrito.getUsuarioId()));
+                escritor.write(',');
+                escritor.write(campoCsv(inscrito.getUsername()));
+                escritor.write(',');
+                escritor.write(campoCsv(inscrito.getEmail()));
+                escritor.write(',');
+                escritor.write(inscrito.getFechaInscripcion() != null ? inscrito.getFechaInscripcion().toString() : "");
+            }
+            escritor.write('\n');
+        }
+        // La salida pertenece a la respuesta HTTP: se vacía el búfer pero no se cierra
+        escritor.flush();
+    }
+
+    /**
+     * Entrecomilla un campo CSV si contiene separadores, comillas o saltos de línea
+     */
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.Proyecto.service;
+
+/**
+ * Modos de eliminación de cursos.
+ */
+public enum ModoEliminacion {
+
+    /** El curso, su lista de espera y sus inscripciones se borran con DELETE masivos en una transacción */
+    INMEDIATO,
+
+    /** El curso se oculta al momento y sus inscripciones se purgan por lotes en segundo plano */
+    DIFERIDO
+}
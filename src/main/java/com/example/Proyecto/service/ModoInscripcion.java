@@ -0,0 +1,13 @@
+package com.example.Proyecto.service;
+
+/**
+ * Modos de procesamiento de las inscripciones.
+ */
+public enum ModoInscripcion {
+
+    /** Cada petición abre su propia transacción y espera el resultado */
+    SINCRONO,
+
+    /** Las peticiones se encolan por curso y un único escritor las agrupa en lotes */
+    PIPELINE
+}
@@ -0,0 +1,38 @@
+package com.example.Proyecto.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tareas periódicas de la lista de espera: promueve a los usuarios en espera a las
+ * plazas liberadas desde la última ejecución y, con menos frecuencia, vuelve a revisar
+ * todos los cursos con cola por si alguna plaza libre no llegó a notificarse.
+ */
+@Component
+public class PromocionListaEsperaJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PromocionListaEsperaJob.class);
+
+    private final ListaEsperaService listaEsperaService;
+
+    public PromocionListaEsperaJob(ListaEsperaService listaEsperaService) {
+        this.listaEsperaService = listaEsperaService;
+    }
+
+    @Scheduled(initialDelayString = "${cursos.espera.promocion-inicial-ms:1000}",
+               fixedDelayString = "${cursos.espera.promocion-ms:200}")
+    public void promover() {
+        int promovidos = listaEsperaService.promoverPendientes();
+        if (promovidos > 0) {
+            log.debug("Lista de espera: {} usuarios inscritos", promovidos);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${cursos.espera.barrido-inicial-ms:0}",
+               fixedDelayString = "${cursos.espera.barrido-ms:60000}")
+    public void barrer() {
+        listaEsperaService.barrer();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.util.ConjuntoIds;
+import com.example.Proyecto.util.DiarioEventos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Modelos de lectura que se obtienen reproduciendo el diario de inscripciones: número de
+ * inscritos por curso y cursos de cada usuario.
+ *
+ * Los eventos se aplican desde un solo hilo a la vez (el que escribe en el diario) y se leen
+ * desde cualquiera. Los cursos de cada usuario son un array ordenado que se sustituye entero
+ * en cada cambio: sin cajas por curso, y quien lee nunca ve un array a medio modificar. Aplicar es idempotente: un alta repetida o una baja de algo que no existe
+ * no cambia nada, así que reproducir de más tras una instantánea no descuadra los contadores.
+ *
+ * Las instantáneas guardan los cursos de cada usuario junto con la secuencia del diario que
+ * cubren; los contadores por curso se recalculan al cargarlas.
+ */
+public final class ProyeccionInscripciones implements DiarioEventos.Consumidor {
+
+    public static final int ALTA = 1;
+    public static final int BAJA = 2;
+    /** Se borra el curso con todas sus inscripciones; el primer long no se usa */
+    public static final int CURSO_ELIMINADO = 3;
+
+    private static final int MAGIA_INSTANTANEA = 0x44494E53;
+    private static final int VERSION_INSTANTANEA = 1;
+
+    private static final long[] SIN_CURSOS = new long[0];
+
+    private final Map<Long, long[]> cursosPorUsuario = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> inscritosPorCurso = new ConcurrentHashMap<>();
+    private final AtomicLong pares = new AtomicLong();
+
+    @Override
+    public void aplicar(int tipo, long usuarioId, long cursoId) {
+        if (tipo == ALTA) {
+            long[] cursos = cursosPorUsuario.getOrDefault(usuarioId, SIN_CURSOS);
+            int posicion = Arrays.binarySearch(cursos, cursoId);
+            if (posicion < 0) {
+                cursosPorUsuario.put(usuarioId, conCurso(cursos, -posicion - 1, cursoId));
+                inscritosPorCurso.computeIfAbsent(cursoId, id -> new AtomicLong()).incrementAndGet();
+                pares.incrementAndGet();
+            }
+        } else if (tipo == BAJA) {
+            long[] cursos = cursosPorUsuario.get(usuarioId);
+            int posicion = cursos != null ? Arrays.binarySearch(cursos, cursoId) : -1;
+            if (posicion >= 0) {
+                quitarCurso(usuarioId, cursos, posicion);
+                inscritosPorCurso.get(cursoId).decrementAndGet();
+                pares.decrementAndGet();
+            }
+        } else if (tipo == CURSO_ELIMINADO) {
+            if (inscritosPorCurso.remove(cursoId) != null) {
+                // Los borrados de cursos son raros: se recorren los cursos de todos los usuarios
+                for (Map.Entry<Long, long[]> entrada : cursosPorUsuario.entrySet()) {
+                    int posicion = Arrays.binarySearch(entrada.getValue(), cursoId);
+                    if (posicion >= 0) {
+                        quitarCurso(entrada.getKey(), entrada.getValue(), posicion);
+                        pares.decrementAndGet();
+                    }
+                }
+            }
+        } else {
+            throw new IllegalStateException("Tipo de evento desconocido en el diario: " + tipo);
+        }
+    }
+
+    private static long[] conCurso(long[] cursos, int posicion, long cursoId) {
+        long[] nuevos = new long[cursos.length + 1];
+        System.arraycopy(cursos, 0, nuevos, 0, posicion);
+        nuevos[posicion] = cursoId;
+        System.arraycopy(cursos, posicion, nuevos, posicion + 1, cursos.length - posicion);
+        return nuevos;
+    }
+
+    private void quitarCurso(long usuarioId, long[] cursos, int posicion) {
+        if (cursos.length == 1) {
+            cursosPorUsuario.remove(usuarioId);
+            return;
+        }
+        long[] nuevos = new long[cursos.length - 1];
+        System.arraycopy(cursos, 0, nuevos, 0, posicion);
+        System.arraycopy(cursos, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        cursosPorUsuario.put(usuarioId, nuevos);
+    }
+
+    public long inscritos(long cursoId) {
+        AtomicLong inscritos = inscritosPorCurso.get(cursoId);
+        return inscritos != null ? inscritos.get() : 0;
+    }
+
+    public ConjuntoIds cursosDe(long usuarioId) {
+        long[] cursos = cursosPorUsuario.get(usuarioId);
+        return cursos != null ? ConjuntoIds.de(cursos) : ConjuntoIds.vacio();
+    }
+
+    /**
+     * Número de pares usuario-curso inscritos
+     */
+    public long getPares() {
+        return pares.get();
+    }
+
+    /**
+     * Número de inscritos de cada curso con al menos uno
+     */
+    public Map<Long, Long> inscritosPorCurso() {
+        Map<Long, Long> copia = new HashMap<>();
+        inscritosPorCurso.forEach((cursoId, inscritos) -> {
+            if (inscritos.get() > 0) {
+                copia.put(cursoId, inscritos.get());
+            }
+        });
+        return copia;
+    }
+
+    public void limpiar() {
+        cursosPorUsuario.clear();
+        inscritosPorCurso.clear();
+        pares.set(0);
+    }
+
+    /**
+     * Copia compacta del estado para escribir una instantánea fuera del cerrojo del diario:
+     * usuarioId, número de cursos y los cursos, usuario tras usuario
+     */
+    public long[] volcar() {
+        long[] volcado = new long[(int) (pares.get() + 2L * cursosPorUsuario.size())];
+        int i = 0;
+        for (Map.Entry<Long, long[]> entrada : cursosPorUsuario.entrySet()) {
+            long[] cursos = entrada.getValue();
+            volcado[i++] = entrada.getKey();
+            volcado[i++] = cursos.length;
+            System.arraycopy(cursos, 0, volcado, i, cursos.length);
+            i += cursos.length;
+        }
+        return volcado;
+    }
+
+    /**
+     * Escribe una instantánea de forma atómica: a un temporal que se fuerza a disco y se renombra
+     */
+    public static void guardarInstantanea(Path fichero, long secuencia, long[] volcado) throws IOException {
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream salida = Files.newOutputStream(temporal);
+             DataOutputStream datos = new DataOutputStream(
+                 new BufferedOutputStream(new CheckedOutputStream(salida, crc), 1 << 16))) {
+            datos.writeInt(MAGIA_INSTANTANEA);
+            datos.writeInt(VERSION_INSTANTANEA);
+            datos.writeLong(secuencia);
+            datos.writeInt(volcado.length);
+            for (long valor : volcado) {
+                datos.writeLong(valor);
+            }
+            datos.flush();
+            datos.writeLong(crc.getValue());
+        }
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporal, fichero, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Sustituye el estado por el de la instantánea y devuelve la secuencia del diario que cubre.
+     * Lanza IOException si el fichero está incompleto o no pasa la comprobación de CRC.
+     */
+    public long cargarInstantanea(Path fichero) throws IOException {
+        limpiar();
+        CRC32 crc = new CRC32();
+        try (DataInputStream datos = new DataInputStream(
+                 new CheckedInputStream(new BufferedInputStream(Files.newInputStream(fichero), 1 << 16), crc))) {
+            if (datos.readInt() != MAGIA_INSTANTANEA || datos.readInt() != VERSION_INSTANTANEA) {
+                throw new IOException("No es una instantánea del diario de inscripciones: " + fichero);
+            }
+            long secuencia = datos.readLong();
+            int longitud = datos.readInt();
+            for (int i = 0; i < longitud; ) {
+                long usuarioId = datos.readLong();
+                int cursos = (int) datos.readLong();
+                long[] conjunto = new long[cursos];
+                for (int j = 0; j < cursos; j++) {
+                    long cursoId = datos.readLong();
+                    conjunto[j] = cursoId;
+                    inscritosPorCurso.computeIfAbsent(cursoId, id -> new AtomicLong()).incrementAndGet();
+                }
+                // Las instantáneas ya salen ordenadas, pero no cuesta asegurarlo
+                Arrays.sort(conjunto);
+                cursosPorUsuario.put(usuarioId, conjunto);
+                pares.addAndGet(cursos);
+                i += 2 + cursos;
+            }
+            // El CRC se lee sin pasar por el CheckedInputStream
+            long esperado = crc.getValue();
+            if (datos.readLong() != esperado) {
+                throw new IOException("Instantánea dañada: " + fichero);
+            }
+            return secuencia;
+        } catch (IOException e) {
+            limpiar();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Proyecto.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea periódica de la eliminación diferida de cursos: borra por lotes las inscripciones de
+ * los cursos ocultos y, al vaciarlos, la fila del curso.
+ */
+@Component
+public class PurgaCursosEliminadosJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PurgaCursosEliminadosJob.class);
+
+    private final CursoService cursoService;
+
+    public PurgaCursosEliminadosJob(CursoService cursoService) {
+        this.cursoService = cursoService;
+    }
+
+    @Scheduled(initialDelayString = "${cursos.eliminacion.purga-inicial-ms:10000}",
+               fixedDelayString = "${cursos.eliminacion.purga-ms:5000}")
+    public void purgar() {
+        int borradas = cursoService.purgarEliminados();
+        if (borradas > 0) {
+            log.info("Purga de cursos eliminados: {} inscripciones borradas", borradas);
+        }
+    }
+}
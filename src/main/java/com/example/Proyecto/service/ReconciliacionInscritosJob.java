@@ -0,0 +1,32 @@
+package com.example.Proyecto.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea periódica que corrige la deriva entre el contador Curso.inscritos
+ * y las filas reales de la tabla inscripciones (por ejemplo, tras cargas
+ * manuales de datos o borrados hechos fuera de la aplicación).
+ */
+@Component
+public class ReconciliacionInscritosJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliacionInscritosJob.class);
+
+    private final InscripcionService inscripcionService;
+
+    public ReconciliacionInscritosJob(InscripcionService inscripcionService) {
+        this.inscripcionService = inscripcionService;
+    }
+
+    @Scheduled(initialDelayString = "${cursos.inscritos.reconciliacion-inicial-ms:60000}",
+               fixedDelayString = "${cursos.inscritos.reconciliacion-ms:600000}")
+    public void reconciliar() {
+        int reparados = inscripcionService.reconciliarContadores();
+        if (reparados > 0) {
+            log.warn("Reconciliación de inscritos: {} cursos corregidos", reparados);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Proyecto.service;
+
+/**
+ * El alta de un usuario violó la restricción única del nombre de usuario o del correo.
+ * Indica qué campos estaban repetidos para devolverlos como errores del formulario.
+ */
+public class RegistroDuplicadoException extends RuntimeException {
+
+    private final boolean usernameDuplicado;
+    private final boolean emailDuplicado;
+
+    public RegistroDuplicadoException(boolean usernameDuplicado, boolean emailDuplicado, Throwable causa) {
+        super("El nombre de usuario o el correo ya están registrados", causa);
+        this.usernameDuplicado = usernameDuplicado;
+        this.emailDuplicado = emailDuplicado;
+    }
+
+    public boolean isUsernameDuplicado() {
+        return usernameDuplicado;
+    }
+
+    public boolean isEmailDuplicado() {
+        return emailDuplicado;
+    }
+}
@@ -1,30 +1,51 @@
 package com.example.Proyecto.service;
 
+import com.example.Proyecto.dto.IdentidadUsuario;
 import com.example.Proyecto.entity.Usuario;
 import com.example.Proyecto.repository.UsuarioRepository;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UsuarioRepository usuarioRepository;
+    private final CacheIdentidades cacheIdentidades;
 
-    public UserDetailsServiceImpl(UsuarioRepository repo) {
+    public UserDetailsServiceImpl(UsuarioRepository repo, CacheIdentidades cacheIdentidades) {
         this.usuarioRepository = repo;
+        this.cacheIdentidades = cacheIdentidades;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Usuario usuario = usuarioRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
-        return new User(
-                usuario.getUsername(),
+        // El principal conserva el ID para no tener que volver a buscar al usuario en cada petición
+        IdentidadUsuario identidad = new IdentidadUsuario(usuario.getId(), usuario.getUsername(), usuario.getEmail());
+        cacheIdentidades.guardar(identidad);
+        return new UsuarioPrincipal(
+                identidad,
                 usuario.getPassword(),
                 Collections.singleton(new SimpleGrantedAuthority("USER"))
         );
     }
+
+    /**
+     * Spring Security la llama tras un inicio de sesión correcto cuando el hash guardado
+     * se calculó con otro coste (CodificadorContrasenas.upgradeEncoding)
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        usuarioRepository.actualizarPassword(user.getUsername(), newPassword);
+        if (user instanceof UsuarioPrincipal) {
+            return new UsuarioPrincipal(((UsuarioPrincipal) user).getIdentidad(), newPassword, user.getAuthorities());
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
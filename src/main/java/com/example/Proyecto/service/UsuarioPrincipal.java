@@ -0,0 +1,32 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.IdentidadUsuario;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal de Spring Security que conserva la identidad del usuario autenticado.
+ * Así los controladores obtienen el ID del usuario desde la sesión sin consultar la base de datos.
+ */
+public class UsuarioPrincipal extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IdentidadUsuario identidad;
+
+    public UsuarioPrincipal(IdentidadUsuario identidad, String password,
+                            Collection<? extends GrantedAuthority> authorities) {
+        super(identidad.getUsername(), password, authorities);
+        this.identidad = identidad;
+    }
+
+    public IdentidadUsuario getIdentidad() {
+        return identidad;
+    }
+
+    public Long getId() {
+        return identidad.getId();
+    }
+}
@@ -1,43 +1,99 @@
 package com.example.Proyecto.service;
 
+import com.example.Proyecto.dto.IdentidadUsuario;
 import com.example.Proyecto.entity.Usuario;
 import com.example.Proyecto.repository.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
+@Timed(value = "servicio.metodo", histogram = true)
 public class UsuarioService {
     
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheIdentidades cacheIdentidades;
+    private final FiltroRegistroUsuarios filtroRegistro;
 
-    public UsuarioService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                          CacheIdentidades cacheIdentidades, FiltroRegistroUsuarios filtroRegistro) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cacheIdentidades = cacheIdentidades;
+        this.filtroRegistro = filtroRegistro;
     }
 
     /**
-     * Verifica si un nombre de usuario ya existe
+     * Verifica si un nombre de usuario ya existe.
+     * Si el filtro de registro lo descarta no se consulta la base de datos.
      */
     public boolean existeUsername(String username) {
-        return usuarioRepository.existsByUsername(username);
+        if (!filtroRegistro.podriaExistirUsername(username)) {
+            return false;
+        }
+        boolean existe = usuarioRepository.existsByUsername(username);
+        if (!existe) {
+            filtroRegistro.falsoPositivoUsername();
+        }
+        return existe;
     }
 
     /**
-     * Verifica si un email ya existe
+     * Verifica si un email ya existe.
+     * Si el filtro de registro lo descarta no se consulta la base de datos.
      */
     public boolean existeEmail(String email) {
-        return usuarioRepository.existsByEmail(email);
+        if (!filtroRegistro.podriaExistirEmail(email)) {
+            return false;
+        }
+        boolean existe = usuarioRepository.existsByEmail(email);
+        if (!existe) {
+            filtroRegistro.falsoPositivoEmail();
+        }
+        return existe;
     }
 
     /**
-     * Registra un nuevo usuario encriptando su contraseña
+     * Registra un nuevo usuario encriptando su contraseña.
+     * La unicidad la garantizan las restricciones de la tabla: si otro registro se adelanta
+     * entre la comprobación previa y el insert, se lanza RegistroDuplicadoException indicando
+     * qué campo estaba repetido y el usuario conserva su contraseña sin encriptar.
      */
     public Usuario registrarUsuario(Usuario usuario) {
-        usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
-        return usuarioRepository.save(usuario);
+        String password = usuario.getPassword();
+        usuario.setPassword(passwordEncoder.encode(password));
+        cacheIdentidades.invalidar(usuario.getUsername());
+        try {
+            return usuarioRepository.saveAndFlush(usuario);
+        } catch (DataIntegrityViolationException e) {
+            usuario.setId(null);
+            usuario.setPassword(password);
+            throw duplicado(usuario, e);
+        }
+    }
+
+    /**
+     * Traduce la violación de la restricción única al campo repetido, por el nombre de la
+     * restricción; si el mensaje no lo permite se comprueba cada campo con una consulta
+     */
+    private RegistroDuplicadoException duplicado(Usuario usuario, DataIntegrityViolationException e) {
+        String mensaje = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        boolean username = mensaje.contains("uk_usuarios_username");
+        boolean email = mensaje.contains("uk_usuarios_email");
+        if (!username && !email) {
+            username = usuarioRepository.existsByUsername(usuario.getUsername());
+            email = usuarioRepository.existsByEmail(usuario.getEmail());
+        }
+        if (!username && !email) {
+            throw e;
+        }
+        return new RegistroDuplicadoException(username, email, e);
     }
 
     /**
@@ -54,4 +110,33 @@ public class UsuarioService {
         return usuarioRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + username));
     }
+
+    /**
+     * Obtiene la identidad del usuario autenticado.
+     * Si el principal ya la contiene no se consulta nada; si no, se usa la caché de identidades.
+     */
+    public IdentidadUsuario obtenerIdentidad(UserDetails userDetails) {
+        if (userDetails instanceof UsuarioPrincipal) {
+            return ((UsuarioPrincipal) userDetails).getIdentidad();
+        }
+        return obtenerIdentidad(userDetails.getUsername());
+    }
+
+    /**
+     * Obtiene la identidad de un usuario por su nombre, pasando por la caché de identidades
+     */
+    public IdentidadUsuario obtenerIdentidad(String username) {
+        return cacheIdentidades.obtener(username, nombre -> {
+            Usuario usuario = obtenerPorUsername(nombre);
+            return new IdentidadUsuario(usuario.getId(), usuario.getUsername(), usuario.getEmail());
+        });
+    }
+
+    /**
+     * Devuelve una referencia al usuario sin cargarlo de la base de datos.
+     * Basta para asociarlo a inscripciones o usarlo como parámetro de consultas.
+     */
+    public Usuario referenciaPorId(Long id) {
+        return usuarioRepository.getReferenceById(id);
+    }
 }
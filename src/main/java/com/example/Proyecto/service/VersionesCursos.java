@@ -0,0 +1,63 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.util.Transacciones;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versiones en memoria del catálogo y de cada curso, para validar en las páginas con ETag
+ * si algo cambió desde la última visita sin consultar la base de datos.
+ *
+ * Cualquier cambio de un curso (datos, inscripciones, lista de espera) incrementa su versión
+ * y la del catálogo. Los incrementos se aplican tras confirmar la transacción: una petición
+ * que lea la versión nueva ve siempre los datos nuevos. Las versiones llevan delante la marca
+ * del arranque, de modo que tras reiniciar no coinciden con las emitidas antes.
+ * Las entradas de los cursos eliminados se conservan para que su versión no vuelva a empezar.
+ */
+@Component
+public class VersionesCursos {
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogo = new AtomicLong();
+    /** Cambios que afectan a todos los cursos a la vez (reconciliación de contadores) */
+    private final AtomicLong todos = new AtomicLong();
+    private final Map<Long, AtomicLong> cursos = new ConcurrentHashMap<>();
+
+    /**
+     * Versión del catálogo: cambia con cualquier cambio de cualquier curso
+     */
+    public String catalogo() {
+        return arranque + "." + catalogo.get();
+    }
+
+    /**
+     * Versión de un curso: solo cambia con los cambios de ese curso
+     */
+    public String curso(Long cursoId) {
+        AtomicLong version = cursos.get(cursoId);
+        return arranque + "." + todos.get() + "." + (version != null ? version.get() : 0);
+    }
+
+    /**
+     * Registra un cambio del curso, que se publica al confirmar la transacción actual
+     */
+    public void cambioCurso(Long cursoId) {
+        Transacciones.alConfirmar(() -> {
+            cursos.computeIfAbsent(cursoId, id -> new AtomicLong()).incrementAndGet();
+            catalogo.incrementAndGet();
+        });
+    }
+
+    /**
+     * Registra un cambio que puede afectar a cualquier curso
+     */
+    public void cambioTodos() {
+        Transacciones.alConfirmar(() -> {
+            todos.incrementAndGet();
+            catalogo.incrementAndGet();
+        });
+    }
+}
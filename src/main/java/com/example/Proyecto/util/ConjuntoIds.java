@@ -0,0 +1,129 @@
+package com.example.Proyecto.util;
+
+import java.util.Collection;
+
+/**
+ * Conjunto compacto de identificadores long sin boxing.
+ * Usa direccionamiento abierto con sondeo lineal sobre un long[], de modo que
+ * la comprobación de pertenencia es O(1) y ocupa unos 16 bytes por elemento.
+ * Se construye una vez y es de solo lectura, por lo que puede compartirse entre hilos.
+ */
+public final class ConjuntoIds {
+
+    private static final ConjuntoIds VACIO = new ConjuntoIds(new long[0], false, 0);
+
+    /** 0 marca una celda libre; el id 0, si aparece, se guarda aparte */
+    private final long[] tabla;
+    private final boolean contieneCero;
+    private final int tamano;
+
+    private ConjuntoIds(long[] tabla, boolean contieneCero, int tamano) {
+        this.tabla = tabla;
+        this.contieneCero = contieneCero;
+        this.tamano = tamano;
+    }
+
+    public static ConjuntoIds vacio() {
+        return VACIO;
+    }
+
+    public static ConjuntoIds de(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return VACIO;
+        }
+        // Factor de carga máximo del 50% para mantener sondeos cortos
+        long[] tabla = new long[Integer.highestOneBit(Math.max(2, ids.size()) * 2 - 1) << 1];
+        boolean contieneCero = false;
+        int tamano = 0;
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (id == 0L) {
+                if (!contieneCero) {
+                    contieneCero = true;
+                    tamano++;
+                }
+                continue;
+            }
+            if (insertar(tabla, id)) {
+                tamano++;
+            }
+        }
+        return new ConjuntoIds(tabla, contieneCero, tamano);
+    }
+
+    public static ConjuntoIds de(long[] ids) {
+        if (ids.length == 0) {
+            return VACIO;
+        }
+        long[] tabla = new long[Integer.highestOneBit(Math.max(2, ids.length) * 2 - 1) << 1];
+        boolean contieneCero = false;
+        int tamano = 0;
+        for (long id : ids) {
+            if (id == 0L) {
+                if (!contieneCero) {
+                    contieneCero = true;
+                    tamano++;
+                }
+            } else if (insertar(tabla, id)) {
+                tamano++;
+            }
+        }
+        return new ConjuntoIds(tabla, contieneCero, tamano);
+    }
+
+    /**
+     * Indica si el identificador pertenece al conjunto
+     */
+    public boolean contiene(Long id) {
+        return id != null && contiene(id.longValue());
+    }
+
+    public boolean contiene(long id) {
+        if (id == 0L) {
+            return contieneCero;
+        }
+        if (tabla.length == 0) {
+            return false;
+        }
+        int posicion = posicion(id, tabla.length);
+        long valor;
+        while ((valor = tabla[posicion]) != 0L) {
+            if (valor == id) {
+                return true;
+            }
+            posicion = (posicion + 1) & (tabla.length - 1);
+        }
+        return false;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public boolean isVacio() {
+        return tamano == 0;
+    }
+
+    private static boolean insertar(long[] tabla, long id) {
+        int posicion = posicion(id, tabla.length);
+        while (tabla[posicion] != 0L && tabla[posicion] != id) {
+            posicion = (posicion + 1) & (tabla.length - 1);
+        }
+        if (tabla[posicion] != 0L) {
+            return false;
+        }
+        tabla[posicion] = id;
+        return true;
+    }
+
+    private static int posicion(long id, int longitud) {
+        // Mezcla de bits (fmix64 de MurmurHash3) para repartir ids consecutivos
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (longitud - 1);
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.Proyecto.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de eventos de solo anexado sobre ficheros mapeados en memoria.
+ *
+ * Cada evento es un registro de 24 bytes (tipo, dos long y el CRC32C de los anteriores) y se
+ * numera con una secuencia global. El diario se reparte en segmentos de tamaño fijo; el
+ * fichero de cada uno se llama con la secuencia de su primer registro, de modo que los
+ * segmentos ya cubiertos por una instantánea se pueden borrar enteros.
+ *
+ * Añadir un evento es copiar 24 bytes en memoria. La durabilidad la da sincronizar(), que
+ * espera a que el hilo del diario haga force() del tramo escrito: las llamadas que llegan
+ * mientras hay un force() en curso se cubren todas con el siguiente (commit en grupo), así que
+ * el número de fsync no crece con el número de escritores. Sin llamadas a sincronizar() el
+ * hilo fuerza igualmente lo pendiente cada pocos milisegundos.
+ *
+ * Al abrir se reproducen los eventos desde una secuencia dada. Un registro incompleto o con
+ * CRC incorrecto marca el final del diario (escritura cortada por una caída) y el resto del
+ * último segmento se pone a cero antes de seguir escribiendo.
+ */
+public final class DiarioEventos implements Closeable {
+
+    public static final int TAMANO_REGISTRO = 24;
+
+    private static final String PREFIJO = "diario-";
+    private static final String SUFIJO = ".seg";
+    /** Espera máxima del hilo del diario entre dos force() si nadie llama a sincronizar() */
+    private static final long INTERVALO_FORZADO_MS = 20;
+
+    /**
+     * Recibe los eventos al reproducir el diario
+     */
+    @FunctionalInterface
+    public interface Consumidor {
+        void aplicar(int tipo, long a, long b);
+    }
+
+    private final Path directorio;
+    private final int registrosPorSegmento;
+    private final CRC32C crc = new CRC32C();
+    private final byte[] registro = new byte[TAMANO_REGISTRO];
+    private final Object monitor = new Object();
+    private final Thread hiloForzado;
+
+    /** Segmento en el que se escribe; protegido por el cerrojo de esta instancia */
+    private Segmento actual;
+    private volatile long escritos;
+    private volatile long durables;
+    private volatile long sincronizaciones;
+    private volatile boolean cerrado;
+
+    private DiarioEventos(Path directorio, int registrosPorSegmento, Segmento actual, long escritos) {
+        this.directorio = directorio;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.actual = actual;
+        this.escritos = escritos;
+        this.durables = escritos;
+        this.hiloForzado = new Thread(this::forzarPendientes, "diario-" + directorio.getFileName());
+        this.hiloForzado.setDaemon(true);
+        this.hiloForzado.start();
+    }
+
+    /**
+     * Abre (o crea) el diario del directorio y pasa al consumidor los eventos a partir de la
+     * secuencia desde, en orden. Después de abrir se sigue escribiendo tras el último evento válido.
+     */
+    public static DiarioEventos abrir(Path directorio, int registrosPorSegmento, long desde,
+                                      Consumidor consumidor) throws IOException {
+        if (registrosPorSegmento <= 0) {
+            throw new IllegalArgumentException("Registros por segmento no válidos: " + registrosPorSegmento);
+        }
+        Files.createDirectories(directorio);
+        TreeMap<Long, Path> segmentos = segmentos(directorio);
+
+        long fin = desde;
+        Segmento ultimo = null;
+        CRC32C crc = new CRC32C();
+        byte[] registro = new byte[TAMANO_REGISTRO];
+        List<Long> bases = new ArrayList<>(segmentos.keySet());
+        for (int i = 0; i < bases.size(); i++) {
+            long base = bases.get(i);
+            boolean esUltimo = i == bases.size() - 1;
+            if (base + registrosPorSegmento <= desde && !esUltimo) {
+                // Ya cubierto por la instantánea
+                continue;
+            }
+            if (base > fin) {
+                throw new IllegalStateException("Diario incompleto: falta el tramo " + fin + "-" + base + " en " + directorio);
+            }
+            Segmento segmento = Segmento.mapear(segmentos.get(base), base, registrosPorSegmento);
+            int leidos = segmento.reproducir(Math.max(0, desde - base), consumidor, registro, crc);
+            fin = base + leidos;
+            if (!esUltimo) {
+                if (leidos < registrosPorSegmento) {
+                    throw new IllegalStateException("Segmento del diario dañado: " + segmentos.get(base));
+                }
+                segmento.cerrar();
+            } else {
+                ultimo = segmento;
+            }
+        }
+
+        if (fin < desde) {
+            throw new IllegalStateException("El diario termina en " + fin + " y se pedía reproducir desde " + desde);
+        }
+        if (ultimo != null && ultimo.usados == registrosPorSegmento) {
+            ultimo.cerrar();
+            ultimo = null;
+        }
+        if (ultimo == null) {
+            ultimo = Segmento.mapear(directorio.resolve(nombre(fin)), fin, registrosPorSegmento);
+        } else {
+            // Lo que queda tras el último registro válido puede tener restos de una escritura cortada
+            ultimo.ponerACero();
+        }
+        return new DiarioEventos(directorio, registrosPorSegmento, ultimo, fin);
+    }
+
+    /**
+     * Añade un evento y devuelve su secuencia (la del primero es 0). No espera a que sea durable.
+     */
+    public synchronized long anadir(int tipo, long a, long b) {
+        if (cerrado) {
+            throw new IllegalStateException("Diario cerrado: " + directorio);
+        }
+        if (tipo == 0) {
+            throw new IllegalArgumentException("El tipo 0 marca el final del diario");
+        }
+        if (actual.usados == registrosPorSegmento) {
+            cambiarSegmento();
+        }
+        actual.escribir(tipo, a, b, registro, crc);
+        return escritos++;
+    }
+
+    /**
+     * Espera a que todos los eventos añadidos hasta ahora estén en disco
+     */
+    public void sincronizar() {
+        long objetivo = escritos;
+        if (durables >= objetivo) {
+            return;
+        }
+        synchronized (monitor) {
+            monitor.notifyAll();
+            while (durables < objetivo && !cerrado) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Sincronización del diario interrumpida", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Borra los segmentos cuyos eventos son todos anteriores a la secuencia dada
+     */
+    public synchronized int truncarHasta(long secuencia) throws IOException {
+        int borrados = 0;
+        for (Map.Entry<Long, Path> segmento : segmentos(directorio).entrySet()) {
+            long base = segmento.getKey();
+            if (base != actual.base && base + registrosPorSegmento <= secuencia) {
+                Files.deleteIfExists(segmento.getValue());
+                borrados++;
+            }
+        }
+        return borrados;
+    }
+
+    /**
+     * Número de eventos escritos, que es también la secuencia del siguiente
+     */
+    public long getEscritos() {
+        return escritos;
+    }
+
+    public long getDurables() {
+        return durables;
+    }
+
+    /**
+     * Número de force() hechos desde que se abrió el diario
+     */
+    public long getSincronizaciones() {
+        return sincronizaciones;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+        }
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        try {
+            hiloForzado.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            actual.buffer.force();
+            durables = escritos;
+            actual.cerrar();
+        }
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Segmento lleno: se fuerza entero y se continúa en uno nuevo
+     */
+    private void cambiarSegmento() {
+        try {
+            actual.buffer.force();
+            actual.forzados = actual.usados;
+            actual.cerrar();
+            actual = Segmento.mapear(directorio.resolve(nombre(escritos)), escritos, registrosPorSegmento);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un segmento del diario en " + directorio, e);
+        }
+    }
+
+    /**
+     * Bucle del hilo del diario: fuerza a disco lo escrito y despierta a quien lo espera
+     */
+    private void forzarPendientes() {
+        while (true) {
+            synchronized (monitor) {
+                if (cerrado) {
+                    return;
+                }
+                if (durables == escritos) {
+                    try {
+                        monitor.wait(INTERVALO_FORZADO_MS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            Segmento segmento;
+            int desde;
+            int hasta;
+            long objetivo;
+            synchronized (this) {
+                if (cerrado) {
+                    return;
+                }
+                segmento = actual;
+                desde = segmento.forzados;
+                hasta = segmento.usados;
+                objetivo = escritos;
+            }
+            if (objetivo == durables) {
+                continue;
+            }
+            if (hasta > desde) {
+                // Solo el tramo nuevo; los segmentos anteriores se forzaron al cambiar de segmento
+                segmento.buffer.force(desde * TAMANO_REGISTRO, (hasta - desde) * TAMANO_REGISTRO);
+                segmento.forzados = hasta;
+            }
+            sincronizaciones++;
+            synchronized (monitor) {
+                durables = objetivo;
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    private static TreeMap<Long, Path> segmentos(Path directorio) throws IOException {
+        TreeMap<Long, Path> segmentos = new TreeMap<>();
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            ficheros.forEach(fichero -> {
+                String nombre = fichero.getFileName().toString();
+                if (nombre.startsWith(PREFIJO) && nombre.endsWith(SUFIJO)) {
+                    segmentos.put(Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length())),
+                                  fichero);
+                }
+            });
+        }
+        return segmentos;
+    }
+
+    private static String nombre(long base) {
+        return PREFIJO + String.format("%020d", base) + SUFIJO;
+    }
+
+    /**
+     * Un fichero del diario mapeado entero en memoria
+     */
+    private static final class Segmento {
+
+        private final long base;
+        private final FileChannel canal;
+        private final MappedByteBuffer buffer;
+        /** Registros escritos; solo cambia con el cerrojo del diario */
+        private int usados;
+        /** Registros ya forzados a disco */
+        private volatile int forzados;
+
+        private Segmento(long base, FileChannel canal, MappedByteBuffer buffer) {
+            this.base = base;
+            this.canal = canal;
+            this.buffer = buffer;
+        }
+
+        static Segmento mapear(Path fichero, long base, int registros) throws IOException {
+            FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                 StandardOpenOption.WRITE);
+            // Al mapear más allá del final el fichero crece (disperso, sin escribir ceros)
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) registros * TAMANO_REGISTRO);
+            return new Segmento(base, canal, buffer);
+        }
+
+        /**
+         * Pasa al consumidor los registros válidos desde la posición dada y devuelve cuántos
+         * registros válidos tiene el segmento
+         */
+        int reproducir(long desde, Consumidor consumidor, byte[] registro, CRC32C crc) {
+            int registros = buffer.capacity() / TAMANO_REGISTRO;
+            int i = 0;
+            for (; i < registros; i++) {
+                int posicion = i * TAMANO_REGISTRO;
+                int tipo = buffer.getInt(posicion);
+                if (tipo == 0) {
+                    break;
+                }
+                buffer.get(posicion, registro, 0, 20);
+                crc.reset();
+                crc.update(registro, 0, 20);
+                if ((int) crc.getValue() != buffer.getInt(posicion + 20)) {
+                    break;
+                }
+                if (i >= desde) {
+                    consumidor.aplicar(tipo, buffer.getLong(posicion + 4), buffer.getLong(posicion + 12));
+                }
+            }
+            usados = i;
+            forzados = i;
+            return i;
+        }
+
+        void escribir(int tipo, long a, long b, byte[] registro, CRC32C crc) {
+            ByteBuffer datos = ByteBuffer.wrap(registro);
+            datos.putInt(0, tipo).putLong(4, a).putLong(12, b);
+            crc.reset();
+            crc.update(registro, 0, 20);
+            datos.putInt(20, (int) crc.getValue());
+            buffer.put(usados * TAMANO_REGISTRO, registro);
+            usados++;
+        }
+
+        /**
+         * Pone a cero lo que queda tras el último registro válido y lo fuerza a disco
+         */
+        void ponerACero() {
+            int desde = usados * TAMANO_REGISTRO;
+            int hasta = desde;
+            for (int posicion = desde; posicion < buffer.capacity(); posicion += 8) {
+                if (buffer.getLong(posicion) != 0L) {
+                    buffer.putLong(posicion, 0L);
+                    hasta = posicion + 8;
+                }
+            }
+            if (hasta > desde) {
+                buffer.force(desde, hasta - desde);
+            }
+        }
+
+        void cerrar() throws IOException {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Proyecto.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas sobre un array de bits atómico.
+ * Responde "seguro que no está" o "puede que esté": nunca da falsos negativos y la
+ * probabilidad de falso positivo depende del número de elementos frente al tamaño elegido.
+ * Las k posiciones de cada elemento se derivan de dos hashes de 64 bits (doble hashing de
+ * Kirsch-Mitzenmacher). Admite altas y consultas concurrentes sin bloqueos; no admite bajas.
+ */
+public final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int funciones;
+
+    private FiltroBloom(long numeroBits, int funciones) {
+        this.bits = new AtomicLongArray((int) ((numeroBits + 63) >>> 6));
+        this.numeroBits = numeroBits;
+        this.funciones = funciones;
+    }
+
+    /**
+     * Crea un filtro dimensionado para el número de elementos esperado y la
+     * probabilidad de falso positivo deseada con ese número de elementos
+     */
+    public static FiltroBloom paraElementos(long esperados, double probabilidadFalsoPositivo) {
+        if (esperados < 1 || probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Parámetros del filtro de Bloom no válidos: " + esperados +
+                                               " elementos, " + probabilidadFalsoPositivo);
+        }
+        double ln2 = Math.log(2);
+        long numeroBits = Math.max(64, (long) Math.ceil(-esperados * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2)));
+        int funciones = Math.max(1, (int) Math.round((double) numeroBits / esperados * ln2));
+        return new FiltroBloom(numeroBits, funciones);
+    }
+
+    public void anadir(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < funciones; i++) {
+            long posicion = Math.floorMod(h1 + i * h2, numeroBits);
+            int palabra = (int) (posicion >>> 6);
+            long mascara = 1L << posicion;
+            if ((bits.get(palabra) & mascara) == 0) {
+                bits.getAndAccumulate(palabra, mascara, (actual, bit) -> actual | bit);
+            }
+        }
+    }
+
+    public boolean podriaContener(String valor) {
+        long h1 = hash(valor, 0x9E3779B97F4A7C15L);
+        long h2 = hash(valor, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < funciones; i++) {
+            long posicion = Math.floorMod(h1 + i * h2, numeroBits);
+            if ((bits.get((int) (posicion >>> 6)) & (1L << posicion)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getNumeroBits() {
+        return numeroBits;
+    }
+
+    public int getFunciones() {
+        return funciones;
+    }
+
+    /**
+     * Proporción de bits activos; con un filtro bien dimensionado ronda el 50%
+     */
+    public double getOcupacion() {
+        long activos = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            activos += Long.bitCount(bits.get(i));
+        }
+        return (double) activos / numeroBits;
+    }
+
+    /**
+     * Hash de 64 bits de los bytes UTF-8 de la cadena (FNV-1a con semilla y mezcla final de MurmurHash3)
+     */
+    private static long hash(String valor, long semilla) {
+        long h = 0xCBF29CE484222325L ^ semilla;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Proyecto.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para encadenar trabajo en memoria (cachés, índices, avisos) al resultado de la
+ * transacción en curso, de modo que un rollback no deje rastro fuera de la base de datos.
+ */
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual se confirme, o al momento si no hay
+     * ninguna activa. Si la transacción se deshace la acción no llega a ejecutarse.
+     */
+    public static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+-- Esquema inicial: usuarios, cursos, inscripciones y lista de espera.
+-- Las entidades JPA se validan contra este esquema al arrancar (ddl-auto=validate).
+-- Las claves foráneas se añaden al final; H2 crea para cada una un índice propio sobre su columna.
+
+create sequence inscripciones_seq start with 1 increment by 50;
+create sequence lista_espera_seq start with 1 increment by 50;
+
+create table usuarios (
+    id bigint generated by default as identity,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    email varchar(255) not null,
+    constraint pk_usuarios primary key (id),
+    constraint uk_usuarios_username unique (username),
+    constraint uk_usuarios_email unique (email)
+);
+
+create table cursos (
+    id bigint generated by default as identity,
+    nombre varchar(255) not null,
+    instructor varchar(255) not null,
+    capacidad integer not null,
+    inscritos integer default 0 not null,
+    constraint pk_cursos primary key (id),
+    constraint ck_cursos_capacidad check (capacidad >= 1)
+);
+
+-- Paginación por cursor del catálogo ordenado por nombre
+create index idx_cursos_nombre_id on cursos (nombre, id);
+
+create table inscripciones (
+    id bigint not null,
+    usuario_id bigint not null,
+    curso_id bigint not null,
+    fecha_inscripcion timestamp(6),
+    constraint pk_inscripciones primary key (id)
+);
+
+-- Un usuario solo se inscribe una vez en cada curso. Con usuario_id delante el índice sirve
+-- a findByUsuarioAndCurso, deleteByUsuarioAndCurso, existsByUsuarioAndCurso y
+-- findUsuarioIdsInscritos (igualdad en las dos columnas, cubriente) y a findByUsuario /
+-- findCursoIdsByUsuarioId (prefijo usuario_id)
+create unique index uk_inscripciones_usuario_curso on inscripciones (usuario_id, curso_id);
+
+-- Inscritos de un curso en orden de id: findByCurso, countByCurso, paginación por cursor y exportación
+create index idx_inscripciones_curso_id on inscripciones (curso_id, id);
+
+create table lista_espera (
+    id bigint not null,
+    usuario_id bigint not null,
+    curso_id bigint not null,
+    fecha_solicitud timestamp(6),
+    constraint pk_lista_espera primary key (id)
+);
+
+create unique index uk_lista_espera_usuario_curso on lista_espera (usuario_id, curso_id);
+
+-- Cabeza de la cola de cada curso
+create index idx_lista_espera_curso_id on lista_espera (curso_id, id);
+
+alter table inscripciones add constraint fk_inscripciones_usuario foreign key (usuario_id) references usuarios (id);
+alter table inscripciones add constraint fk_inscripciones_curso foreign key (curso_id) references cursos (id);
+alter table lista_espera add constraint fk_lista_espera_usuario foreign key (usuario_id) references usuarios (id);
+alter table lista_espera add constraint fk_lista_espera_curso foreign key (curso_id) references cursos (id);
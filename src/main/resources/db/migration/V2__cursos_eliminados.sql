@@ -0,0 +1,3 @@
+-- Borrado diferido de cursos: el curso se marca como eliminado (oculto en el catálogo y sin
+-- plazas nuevas) y sus inscripciones se purgan por lotes en segundo plano antes de borrar la fila.
+alter table cursos add column eliminado boolean default false not null;
@@ -0,0 +1,123 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.AdmisionInscripciones;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.ListaEsperaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Admisión de /cursos/{id}/inscribir y /remover: pasada la ráfaga del usuario la petición
+ * recibe un 429 con Retry-After y la página de reintento, sin llegar a la base de datos.
+ * El intervalo de reposición es de una hora para que no entren fichas durante el test.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:admision_inscripciones;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.admision.rafaga=3",
+    "cursos.admision.intervalo=1h"
+})
+@AutoConfigureMockMvc
+class AdmisionInscripcionesControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmisionInscripciones admision;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long cursoId;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', '{noop}clave', 'ana@ejemplo.com')");
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('luis', '{noop}clave', 'luis@ejemplo.com')");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        cursoId = jdbcTemplate.queryForObject("select id from cursos", Long.class);
+    }
+
+    @Test
+    void pasadaLaRafagaSeRespondeConUn429() throws Exception {
+        double rechazos = rechazos();
+
+        inscribir("ana");
+        mockMvc.perform(post("/cursos/" + cursoId + "/remover").with(user("ana")).with(csrf()))
+            .andExpect(status().is3xxRedirection());
+        inscribir("ana");
+        assertEquals(1, inscritos());
+
+        // Cuarta petición seguida: no se admite y la baja no se hace
+        mockMvc.perform(post("/cursos/" + cursoId + "/remover").with(user("ana")).with(csrf()))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists("Retry-After"))
+            .andExpect(content().string(containsString("Demasiadas peticiones seguidas")));
+        MvcResult inscripcion = mockMvc.perform(post("/cursos/" + cursoId + "/inscribir").with(user("ana")).with(csrf()))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(inscripcion))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(content().string(containsString("Volver a Cursos")));
+        assertEquals(1, inscritos());
+        assertEquals(rechazos + 2, rechazos());
+
+        // Otro usuario tiene su propia ráfaga
+        inscribir("luis");
+        assertEquals(2, inscritos());
+        assertEquals(0, admision.getEnCurso());
+    }
+
+    private void inscribir(String username) throws Exception {
+        MvcResult resultado = mockMvc.perform(post("/cursos/" + cursoId + "/inscribir").with(user(username)).with(csrf()))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(resultado))
+            .andExpect(status().is3xxRedirection());
+    }
+
+    private int inscritos() {
+        return jdbcTemplate.queryForObject("select count(*) from inscripciones", Integer.class);
+    }
+
+    private double rechazos() {
+        return registro.get("inscripciones.admision.rechazos").tag("motivo", "usuario").counter().count();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.AvisosPlazas;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.UsuarioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Avisos de plazas de extremo a extremo sobre un servidor real: la conexión SSE se atiende con
+ * E/S asíncrona y recibe el evento de una inscripción confirmada.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:avisos_sse;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.contrasenas.coste=4",
+    "cursos.avisos.ventana=1h",
+    "cursos.avisos.latido=1h"
+})
+class AvisosPlazasSseTest {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private AvisosPlazas avisosPlazas;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long cursoId;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+        avisosPlazas.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', ?, 'ana@ejemplo.com')",
+                            new BCryptPasswordEncoder(4).encode("clave"));
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        cursoId = jdbcTemplate.queryForObject("select id from cursos", Long.class);
+    }
+
+    @Test
+    void recibeElEventoDeUnaInscripcion() throws Exception {
+        HttpClient cliente = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        iniciarSesion(cliente);
+
+        HttpResponse<InputStream> respuesta = cliente.send(
+            HttpRequest.newBuilder(url("/api/cursos/plazas")).header("Accept", "text/event-stream").build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(respuesta.body(), StandardCharsets.UTF_8))) {
+            assertEquals("retry: 5000", leerLinea(lector));
+            assertEquals(1, avisosPlazas.getSuscriptores());
+
+            inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("ana"), cursoService.obtenerPorId(cursoId));
+            avisosPlazas.emitir();
+
+            String linea;
+            do {
+                linea = leerLinea(lector);
+            } while (!linea.startsWith("data: "));
+            assertEquals("data: [{\"cursoId\":" + cursoId + ",\"inscritos\":1}]", linea);
+        }
+    }
+
+    private void iniciarSesion(HttpClient cliente) throws Exception {
+        String formulario = cliente.send(HttpRequest.newBuilder(url("/login")).build(),
+                                         HttpResponse.BodyHandlers.ofString()).body();
+        Matcher csrf = CSRF.matcher(formulario);
+        assertTrue(csrf.find(), "Token CSRF en el formulario de login");
+
+        String datos = "username=ana&password=clave&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> login = cliente.send(
+            HttpRequest.newBuilder(url("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(datos))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, login.statusCode());
+        assertTrue(login.headers().firstValue("Location").orElse("").endsWith("/cursos"));
+    }
+
+    private static String leerLinea(BufferedReader lector) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return lector.readLine();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private URI url(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+}
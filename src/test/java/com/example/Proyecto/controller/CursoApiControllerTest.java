@@ -0,0 +1,164 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.UsuarioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.Proyecto.metricas.PresupuestoConsultas.sentenciasComoMaximo;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * API JSON del catálogo: páginas con cursores, consulta de varios cursos por ID en una sola
+ * sentencia, selección de campos, errores de parámetros y peticiones condicionales.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cursos_api;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.catalogo.tamano-maximo=3",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class CursoApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> cursoIds;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', '{noop}clave', 'ana@ejemplo.com')");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia', 'Pablo', 1, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Química', 'Sara', 20, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Física', 'Luis', 25, 0)");
+        cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+    }
+
+    @Test
+    void catalogoPaginadoConCursores() throws Exception {
+        String siguiente = mockMvc.perform(get("/api/cursos").param("tamano", "2").with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/json"))
+            .andExpect(jsonPath("$.cursos[*].nombre", contains("Álgebra", "Historia")))
+            .andExpect(jsonPath("$.cursos[0].plazasLibres").value(30))
+            .andExpect(jsonPath("$.anterior").doesNotExist())
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"siguiente\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(get("/api/cursos").param("tamano", "2").param("despues", siguiente).with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cursos[*].nombre", contains("Química", "Física")))
+            .andExpect(jsonPath("$.anterior").exists())
+            .andExpect(jsonPath("$.siguiente").doesNotExist());
+
+        mockMvc.perform(get("/api/cursos").param("despues", "no-es-un-cursor").with(user("ana")))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void variosCursosPorIdEnUnaConsultaConCamposSeleccionados() throws Exception {
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("ana"), cursoService.obtenerPorId(cursoIds.get(1)));
+        cacheCursos.limpiar();
+        String ids = cursoIds.get(2) + "," + cursoIds.get(1) + ",999999," + cursoIds.get(2);
+
+        // Orden de la petición, repetidos una sola vez, inexistentes omitidos y solo los campos pedidos
+        mockMvc.perform(get("/api/cursos").param("ids", ids).param("campos", "id,plazasLibres").with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cursos", hasSize(2)))
+            .andExpect(jsonPath("$.cursos[0].id").value(cursoIds.get(2)))
+            .andExpect(jsonPath("$.cursos[1].id").value(cursoIds.get(1)))
+            .andExpect(jsonPath("$.cursos[1].plazasLibres").value(0))
+            .andExpect(jsonPath("$.cursos[0].*", hasSize(2)))
+            .andExpect(jsonPath("$.cursos[0].nombre").doesNotExist())
+            .andExpect(jsonPath("$.siguiente").doesNotExist())
+            .andExpect(sentenciasComoMaximo(1));
+
+        // Los que existen ya están en la caché de cursos: ninguna consulta
+        mockMvc.perform(get("/api/cursos").param("ids", cursoIds.get(2) + "," + cursoIds.get(1)).with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cursos[1].inscritos").value(1))
+            .andExpect(sentenciasComoMaximo(0));
+
+        // Más IDs de los que caben en una página, o un campo que no existe
+        mockMvc.perform(get("/api/cursos").param("ids", cursoIds.toString().replaceAll("[\\[\\] ]", "")).with(user("ana")))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/cursos").param("ids", ids).param("campos", "id,usuarios").with(user("ana")))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error", containsString("usuarios")));
+    }
+
+    @Test
+    void detalleCondicionalYSinSesion() throws Exception {
+        String detalle = "/api/cursos/" + cursoIds.get(0);
+        String etag = mockMvc.perform(get(detalle).param("campos", "id,inscritos").with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.inscritos").value(0))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(detalle).param("campos", "id,inscritos").with(user("ana")).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(sentenciasComoMaximo(0));
+
+        // Una inscripción cambia la versión del curso
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("ana"), cursoService.obtenerPorId(cursoIds.get(0)));
+        mockMvc.perform(get(detalle).param("campos", "id,inscritos").with(user("ana")).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.inscritos").value(1));
+
+        mockMvc.perform(get("/api/cursos/999999").with(user("ana")))
+            .andExpect(status().isNotFound());
+
+        // Sin sesión: 401, no la redirección al formulario de login
+        mockMvc.perform(get("/api/cursos"))
+            .andExpect(status().isUnauthorized());
+    }
+}
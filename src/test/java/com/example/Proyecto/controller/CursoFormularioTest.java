@@ -0,0 +1,97 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.ListaEsperaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Alta y edición de cursos desde el formulario: los campos que gestiona la aplicación
+ * (inscritos, eliminado) no se pueden fijar desde la petición.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:curso_formulario;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class CursoFormularioTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+    }
+
+    @Test
+    void elAltaIgnoraInscritosYEliminadoEnviadosEnElFormulario() throws Exception {
+        mockMvc.perform(post("/cursos/nuevo").with(user("admin")).with(csrf())
+                .param("nombre", "Java")
+                .param("instructor", "Ana")
+                .param("capacidad", "10")
+                .param("inscritos", "-50")
+                .param("eliminado", "true"))
+            .andExpect(status().is3xxRedirection());
+
+        Map<String, Object> fila = jdbcTemplate.queryForMap("select inscritos, eliminado from cursos where nombre = 'Java'");
+        assertEquals(0, ((Number) fila.get("INSCRITOS")).intValue());
+        assertEquals(Boolean.FALSE, fila.get("ELIMINADO"));
+    }
+
+    @Test
+    void laEdicionNoBajaLaCapacidadPorDebajoDeLosInscritos() throws Exception {
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Java', 'Ana', 10, 5)");
+        Long id = jdbcTemplate.queryForObject("select id from cursos where nombre = 'Java'", Long.class);
+
+        mockMvc.perform(post("/cursos/" + id + "/editar").with(user("admin")).with(csrf())
+                .param("nombre", "Java")
+                .param("instructor", "Ana")
+                .param("capacidad", "4"))
+            .andExpect(status().isOk())
+            .andExpect(view().name("curso_form"))
+            .andExpect(model().attributeHasFieldErrors("curso", "capacidad"));
+        assertEquals(10, jdbcTemplate.queryForObject("select capacidad from cursos where id = ?", Integer.class, id));
+
+        mockMvc.perform(post("/cursos/" + id + "/editar").with(user("admin")).with(csrf())
+                .param("nombre", "Java")
+                .param("instructor", "Ana")
+                .param("capacidad", "5"))
+            .andExpect(status().is3xxRedirection());
+        assertEquals(5, jdbcTemplate.queryForObject("select capacidad from cursos where id = ?", Integer.class, id));
+    }
+}
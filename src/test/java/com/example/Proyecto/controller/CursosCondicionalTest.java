@@ -0,0 +1,148 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.UsuarioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.example.Proyecto.metricas.PresupuestoConsultas.sentenciasComoMaximo;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Peticiones condicionales del catálogo y del detalle: 304 sin consultas mientras no cambie
+ * nada de lo que muestra la página, y 200 con una ETag nueva en cuanto cambia.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cursos_condicional;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class CursosCondicionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> cursoIds;
+    private final MockHttpSession sesion = new MockHttpSession();
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', '{noop}clave', 'ana@ejemplo.com')");
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('luis', '{noop}clave', 'luis@ejemplo.com')");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia', 'Pablo', 30, 0)");
+        cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+    }
+
+    @Test
+    void catalogoSinCambiosResponde304SinConsultas() throws Exception {
+        String etag = etag("/cursos", "ana");
+        mockMvc.perform(get("/cursos").with(user("ana")).session(sesion).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""))
+            .andExpect(sentenciasComoMaximo(0));
+
+        // Otro usuario ve otro estado de inscripción: no comparte la ETag
+        assertNotEquals(etag, etag("/cursos", "luis"));
+        // Ni otra página del catálogo
+        assertNotEquals(etag, etag("/cursos?orden=nombre", "ana"));
+    }
+
+    @Test
+    void catalogoCambiaConLasInscripcionesYLasEdiciones() throws Exception {
+        String inicial = etag("/cursos", "ana");
+
+        // Inscripción de otro usuario: cambia el número de inscritos que muestra la página
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("luis"), cursoService.obtenerPorId(cursoIds.get(0)));
+        mockMvc.perform(get("/cursos").with(user("ana")).session(sesion).header(HttpHeaders.IF_NONE_MATCH, inicial))
+            .andExpect(status().isOk());
+        String trasInscripcion = etag("/cursos", "ana");
+        assertNotEquals(inicial, trasInscripcion);
+
+        Curso edicion = cursoService.obtenerPorId(cursoIds.get(1));
+        edicion.setNombre("Historia moderna");
+        cursoService.actualizarCurso(edicion);
+        mockMvc.perform(get("/cursos").with(user("ana")).session(sesion).header(HttpHeaders.IF_NONE_MATCH, trasInscripcion))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Historia moderna")));
+    }
+
+    @Test
+    void detalleSoloCambiaConSuCurso() throws Exception {
+        String detalle = "/cursos/" + cursoIds.get(0);
+        String inicial = etag(detalle, "ana");
+        mockMvc.perform(get(detalle).with(user("ana")).session(sesion).header(HttpHeaders.IF_NONE_MATCH, inicial))
+            .andExpect(status().isNotModified())
+            .andExpect(sentenciasComoMaximo(0));
+
+        // Un cambio en otro curso no afecta al detalle
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("ana"), cursoService.obtenerPorId(cursoIds.get(1)));
+        assertEquals(inicial, etag(detalle, "ana"));
+
+        // Una inscripción en este curso sí
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("luis"), cursoService.obtenerPorId(cursoIds.get(0)));
+        mockMvc.perform(get(detalle).with(user("ana")).session(sesion).header(HttpHeaders.IF_NONE_MATCH, inicial))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("luis")));
+    }
+
+    private String etag(String url, String username) throws Exception {
+        String etag = mockMvc.perform(get(url).with(user(username)).session(sesion))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"), "La ETag debe ser fuerte: " + etag);
+        return etag;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Catálogo con la caché de fragmentos activa (como en el perfil prod): el marcado de cada curso
+ * se comparte entre usuarios y peticiones, los botones siguen siendo los de cada usuario y
+ * cualquier cambio del curso se ve en la siguiente petición.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cursos_fragmentos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.thymeleaf.cache=true",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class CursosFragmentosTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private FragmentosCursos fragmentosCursos;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> cursoIds;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+        fragmentosCursos.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', '{noop}clave', 'ana@ejemplo.com')");
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('luis', '{noop}clave', 'luis@ejemplo.com')");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia <moderna>', 'Pablo', 30, 0)");
+        cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+    }
+
+    @Test
+    void fragmentosCompartidosYBotonesPorUsuario() throws Exception {
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("ana"), cursoService.obtenerPorId(cursoIds.get(0)));
+        double aciertos = aciertos();
+
+        String ana = catalogo("ana");
+        String luis = catalogo("luis");
+
+        // El segundo usuario reutiliza el marcado de los dos cursos
+        assertEquals(aciertos + 2, aciertos());
+        // Los datos del curso llegan escapados y con enlaces completos
+        assertTrue(ana.contains("Historia &lt;moderna&gt;"));
+        assertTrue(ana.contains("href=\"/cursos/" + cursoIds.get(0) + "\""));
+        // Cada usuario ve su propio estado de inscripción
+        assertTrue(ana.contains("<span>✅ Inscrito</span>"));
+        assertFalse(luis.contains("<span>✅ Inscrito</span>"));
+        assertTrue(luis.contains("/cursos/" + cursoIds.get(0) + "/inscribir"));
+    }
+
+    @Test
+    void cambiosDelCursoRenderizanDeNuevoSuFragmento() throws Exception {
+        catalogo("ana");
+
+        Curso edicion = cursoService.obtenerPorId(cursoIds.get(0));
+        edicion.setNombre("Álgebra lineal");
+        cursoService.actualizarCurso(edicion);
+        inscripcionService.inscribirUsuario(usuarioService.obtenerPorUsername("luis"), cursoService.obtenerPorId(cursoIds.get(1)));
+
+        mockMvc.perform(get("/cursos").with(user("ana")))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Álgebra lineal")))
+            .andExpect(content().string(not(containsString(">Álgebra<"))))
+            .andExpect(content().string(containsString("<span>1</span> / ")));
+    }
+
+    private String catalogo(String username) throws Exception {
+        return mockMvc.perform(get("/cursos").with(user(username)))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+
+    private double aciertos() {
+        return registro.get("cache.gets").tag("cache", "cursos.fragmentos").tag("result", "hit")
+            .functionCounter().count();
+    }
+}
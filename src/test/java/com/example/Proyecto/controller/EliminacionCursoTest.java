@@ -0,0 +1,251 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.metricas.PresupuestoConsultas;
+import com.example.Proyecto.repository.UsuarioRepository;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.CursoService;
+import com.example.Proyecto.service.DiarioInscripciones;
+import com.example.Proyecto.service.InscripcionService;
+import com.example.Proyecto.service.ListaEsperaService;
+import com.example.Proyecto.service.ModoEliminacion;
+import com.example.Proyecto.service.ModoInscripcion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Eliminación de cursos con sentencias masivas: borrar un curso con cientos de inscritos
+ * cuesta las mismas pocas sentencias que uno vacío, y en modo DIFERIDO el curso desaparece
+ * al momento mientras sus inscripciones se purgan después por lotes. Con inscripciones
+ * simultáneas el borrado no falla ni deja inscripciones huérfanas.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:eliminacion_curso;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.eliminacion.purga-inicial-ms=3600000",
+    "cursos.eliminacion.tamano-lote=100"
+})
+@AutoConfigureMockMvc
+class EliminacionCursoTest {
+
+    private static final int INSCRITOS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private DiarioInscripciones diario;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long grande;
+    private Long otro;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', ?, ?)",
+                            INSCRITOS, INSCRITOS);
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia', 'Pablo', 30, 1)");
+        List<Long> cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+        grande = cursoIds.get(0);
+        otro = cursoIds.get(1);
+
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < INSCRITOS + 2; i++) {
+            usuarios.add(new Object[] {"usuario" + i, "usuario" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, '{noop}clave', ?)", usuarios);
+        jdbcTemplate.update("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                            "select next value for inscripciones_seq, id, ?, current_timestamp from usuarios " +
+                            "where username <> 'usuario" + INSCRITOS + "' and username <> 'usuario" + (INSCRITOS + 1) + "'",
+                            grande);
+        // Lista de espera del curso lleno e inscripción en el otro curso, que no se tocan
+        jdbcTemplate.update("insert into lista_espera (id, usuario_id, curso_id, fecha_solicitud) " +
+                            "select next value for lista_espera_seq, id, ?, current_timestamp from usuarios " +
+                            "where username = 'usuario" + INSCRITOS + "'", grande);
+        jdbcTemplate.update("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                            "select next value for inscripciones_seq, id, ?, current_timestamp from usuarios " +
+                            "where username = 'usuario" + (INSCRITOS + 1) + "'", otro);
+        diario.reconstruir();
+    }
+
+    @AfterEach
+    void restaurarModo() {
+        cursoService.setModoEliminacion(ModoEliminacion.INMEDIATO);
+        inscripcionService.setModo(ModoInscripcion.SINCRONO);
+    }
+
+    @Test
+    void eliminarUnCursoGrandeCuestaPocasSentencias() throws Exception {
+        MvcResult eliminacion = mockMvc.perform(post("/cursos/" + grande + "/eliminar").with(user("usuario0")).with(csrf()))
+            .andExpect(status().is3xxRedirection())
+            // lista de espera, inscripciones y curso: una sentencia cada uno
+            .andExpect(PresupuestoConsultas.sentenciasComoMaximo(3))
+            .andReturn();
+        // Ni el curso ni sus inscripciones pasan por el contexto de persistencia
+        assertEquals(0, PresupuestoConsultas.metricas(eliminacion).getEntidadesCargadas());
+
+        assertEquals(0, contar("select count(*) from inscripciones where curso_id = ?", grande));
+        assertEquals(0, contar("select count(*) from lista_espera where curso_id = ?", grande));
+        assertEquals(0, contar("select count(*) from cursos where id = ?", grande));
+        assertEquals(1, contar("select count(*) from inscripciones where curso_id = ?", otro));
+        assertFalse(cursoService.buscarResumen(grande).isPresent());
+    }
+
+    @Test
+    void enModoDiferidoSeOcultaYSePurgaPorLotes() throws Exception {
+        cursoService.setModoEliminacion(ModoEliminacion.DIFERIDO);
+        MvcResult eliminacion = mockMvc.perform(post("/cursos/" + grande + "/eliminar").with(user("usuario0")).with(csrf()))
+            .andExpect(status().is3xxRedirection())
+            // lista de espera y marca del curso
+            .andExpect(PresupuestoConsultas.sentenciasComoMaximo(2))
+            .andReturn();
+        assertEquals(0, PresupuestoConsultas.metricas(eliminacion).getEntidadesCargadas());
+
+        // Oculto al momento: ni catálogo, ni detalle, ni plazas nuevas
+        mockMvc.perform(get("/cursos").with(user("usuario0")))
+            .andExpect(status().isOk())
+            .andExpect(content().string(not(containsString("Álgebra"))))
+            .andExpect(content().string(containsString("Historia")));
+        mockMvc.perform(get("/cursos/" + grande).with(user("usuario0")))
+            .andExpect(redirectedUrl("/cursos"));
+        assertThrows(RuntimeException.class, () -> cursoService.referenciaPorId(grande));
+        assertThrows(RuntimeException.class, () -> cursoService.obtenerPorId(grande));
+        assertEquals(0, diario.inscritos(grande));
+        assertEquals(INSCRITOS, contar("select count(*) from inscripciones where curso_id = ?", grande));
+
+        // La purga borra las inscripciones en lotes de 100 y después el curso
+        assertEquals(INSCRITOS, cursoService.purgarEliminados());
+        assertEquals(0, contar("select count(*) from inscripciones where curso_id = ?", grande));
+        assertEquals(0, contar("select count(*) from cursos where id = ?", grande));
+        assertEquals(1, contar("select count(*) from inscripciones where curso_id = ?", otro));
+        assertEquals(0, cursoService.purgarEliminados());
+    }
+
+    @Test
+    void elPipelineNoApuntaALaEsperaDeUnCursoOculto() {
+        cursoService.setModoEliminacion(ModoEliminacion.DIFERIDO);
+        inscripcionService.setModo(ModoInscripcion.PIPELINE);
+        Curso curso = cursoService.referenciaPorId(otro);
+        Usuario usuario = usuarioRepository.findByUsername("usuario" + INSCRITOS).orElseThrow();
+        cursoService.eliminarCurso(otro);
+
+        // El lote encuentra el curso oculto: no lo da por lleno, sino por inexistente
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> inscripcionService.inscribirOEsperar(usuario, curso).get(1, TimeUnit.MINUTES));
+        assertTrue(error.getCause().getMessage().startsWith("Curso no encontrado"), error.getCause().getMessage());
+        assertEquals(0, contar("select count(*) from lista_espera where curso_id = ?", otro));
+        assertEquals(1, contar("select count(*) from inscripciones where curso_id = ?", otro));
+    }
+
+    @Test
+    void eliminarMientrasSeInscribenNoDejaHuerfanasNiFalla() throws Exception {
+        int hilos = 8;
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            usuarios.add(usuarioRepository.findByUsername("usuario" + i).orElseThrow());
+        }
+        for (ModoEliminacion modo : ModoEliminacion.values()) {
+            cursoService.setModoEliminacion(modo);
+            ExecutorService pool = Executors.newFixedThreadPool(hilos + 1);
+            try {
+                for (int ronda = 0; ronda < 20; ronda++) {
+                    jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Carrera', 'Eva', 50, 0)");
+                    Long cursoId = jdbcTemplate.queryForObject("select max(id) from cursos", Long.class);
+                    Curso curso = cursoService.referenciaPorId(cursoId);
+
+                    // Inscripciones y borrado salen a la vez; el borrado nunca debe fallar
+                    CountDownLatch salida = new CountDownLatch(1);
+                    List<Future<?>> inscripciones = new ArrayList<>();
+                    for (Usuario usuario : usuarios) {
+                        inscripciones.add(pool.submit(() -> {
+                            salida.await();
+                            try {
+                                inscripcionService.inscribirUsuario(usuario, curso);
+                            } catch (RuntimeException e) {
+                                // Llegó después del borrado: el curso ya no admite plazas
+                            }
+                            return null;
+                        }));
+                    }
+                    Future<?> eliminacion = pool.submit(() -> {
+                        salida.await();
+                        cursoService.eliminarCurso(cursoId);
+                        return null;
+                    });
+                    salida.countDown();
+                    eliminacion.get();
+                    for (Future<?> inscripcion : inscripciones) {
+                        inscripcion.get();
+                    }
+
+                    cursoService.purgarEliminados();
+                    assertEquals(0, contar("select count(*) from inscripciones where curso_id = ?", cursoId));
+                    assertEquals(0, contar("select count(*) from cursos where id = ?", cursoId));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private int contar(String sql, Long cursoId) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, cursoId);
+    }
+}
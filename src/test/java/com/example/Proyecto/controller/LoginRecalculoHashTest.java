@@ -0,0 +1,71 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.service.CacheIdentidades;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * Al iniciar sesión con un hash calculado con otro coste se guarda uno nuevo con el coste
+ * configurado, sin que el usuario note nada.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:login_recalculo;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.contrasenas.coste=5"
+})
+@AutoConfigureMockMvc
+class LoginRecalculoHashTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        jdbcTemplate.update("insert into usuarios (username, password, email) values (?, ?, ?)",
+                            "antiguo", new BCryptPasswordEncoder(4).encode("secreta"), "antiguo@ejemplo.com");
+    }
+
+    @Test
+    void recalculaElHashAlIniciarSesion() throws Exception {
+        mockMvc.perform(formLogin("/login").user("antiguo").password("secreta"))
+               .andExpect(redirectedUrl("/cursos"));
+
+        String hash = jdbcTemplate.queryForObject("select password from usuarios where username = 'antiguo'", String.class);
+        assertTrue(hash.startsWith("$2a$05$"), hash);
+        assertTrue(new BCryptPasswordEncoder().matches("secreta", hash));
+
+        mockMvc.perform(formLogin("/login").user("antiguo").password("secreta"))
+               .andExpect(redirectedUrl("/cursos"));
+        assertEquals(hash, jdbcTemplate.queryForObject("select password from usuarios where username = 'antiguo'", String.class));
+    }
+
+    @Test
+    void noCambiaElHashSiLaContrasenaEsIncorrecta() throws Exception {
+        String antes = jdbcTemplate.queryForObject("select password from usuarios where username = 'antiguo'", String.class);
+        mockMvc.perform(formLogin("/login").user("antiguo").password("otra"))
+               .andExpect(redirectedUrl("/login?error"));
+        assertEquals(antes, jdbcTemplate.queryForObject("select password from usuarios where username = 'antiguo'", String.class));
+    }
+}
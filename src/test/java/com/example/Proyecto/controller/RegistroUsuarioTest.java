@@ -0,0 +1,113 @@
+package com.example.Proyecto.controller;
+
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.FiltroRegistroUsuarios;
+import com.example.Proyecto.service.RegistroDuplicadoException;
+import com.example.Proyecto.service.UsuarioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.Proyecto.metricas.PresupuestoConsultas.sentenciasComoMaximo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Registro de usuarios: un nombre nuevo se da de alta sin consultas de existencia previas y
+ * los duplicados que el filtro no conoce los detecta la restricción única de la tabla.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:registro_usuario;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class RegistroUsuarioTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private FiltroRegistroUsuarios filtroRegistro;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('existente', '{noop}clave', 'existente@ejemplo.com')");
+        filtroRegistro.reconstruir();
+    }
+
+    @Test
+    void registraUnNombreNuevoConUnaSolaSentencia() throws Exception {
+        mockMvc.perform(post("/registro").with(csrf())
+                            .param("username", "nuevo")
+                            .param("email", "nuevo@ejemplo.com")
+                            .param("password", "secreta"))
+               .andExpect(status().is3xxRedirection())
+               .andExpect(redirectedUrl("/login?registroExitoso"))
+               .andExpect(sentenciasComoMaximo(1));
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from usuarios where username = 'nuevo'", Integer.class));
+        // El listener lo anotó en el filtro: un segundo intento sí consulta y se rechaza
+        assertTrue(usuarioService.existeUsername("nuevo"));
+    }
+
+    @Test
+    void rechazaDuplicadosConocidosEnElFormulario() throws Exception {
+        mockMvc.perform(post("/registro").with(csrf())
+                            .param("username", "existente")
+                            .param("email", "otro@ejemplo.com")
+                            .param("password", "secreta"))
+               .andExpect(status().isOk())
+               .andExpect(view().name("registro"))
+               .andExpect(model().attributeHasFieldErrors("usuario", "username"))
+               .andExpect(model().attributeErrorCount("usuario", 1));
+    }
+
+    @Test
+    void laRestriccionUnicaDetectaLoQueElFiltroNoConoce() throws Exception {
+        // Alta hecha por fuera de JPA después de cargar el filtro, como un registro concurrente
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('rapido', '{noop}clave', 'rapido@ejemplo.com')");
+        assertFalse(usuarioService.existeEmail("rapido@ejemplo.com"));
+
+        Usuario usuario = new Usuario();
+        usuario.setUsername("lento");
+        usuario.setEmail("rapido@ejemplo.com");
+        usuario.setPassword("secreta");
+        RegistroDuplicadoException duplicado =
+            assertThrows(RegistroDuplicadoException.class, () -> usuarioService.registrarUsuario(usuario));
+        assertTrue(duplicado.isEmailDuplicado());
+        assertFalse(duplicado.isUsernameDuplicado());
+        assertEquals("secreta", usuario.getPassword());
+
+        mockMvc.perform(post("/registro").with(csrf())
+                            .param("username", "rapido")
+                            .param("email", "distinto@ejemplo.com")
+                            .param("password", "secreta"))
+               .andExpect(status().isOk())
+               .andExpect(view().name("registro"))
+               .andExpect(model().attributeHasFieldErrors("usuario", "username"))
+               .andExpect(model().attributeErrorCount("usuario", 1));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from usuarios", Integer.class));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.Proyecto.metricas;
+
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.service.CacheCursos;
+import com.example.Proyecto.service.CacheIdentidades;
+import com.example.Proyecto.service.ListaEsperaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.Proyecto.metricas.PresupuestoConsultas.sentenciasComoMaximo;
+import static com.example.Proyecto.metricas.PresupuestoConsultas.sinNMasUno;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de consultas de las páginas principales y publicación de las métricas por
+ * petición y por método de servicio.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:metricas_peticion;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+@AutoConfigureMockMvc
+class MetricasPeticionTest {
+
+    private static final int CURSOS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> cursoIds;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('alumno', '{noop}clave', 'alumno@ejemplo.com')");
+        Long usuarioId = jdbcTemplate.queryForObject("select id from usuarios", Long.class);
+
+        List<Object[]> cursos = new ArrayList<>();
+        for (int i = 0; i < CURSOS; i++) {
+            cursos.add(new Object[]{"Curso " + i, "Instructor " + i, 30, i % 2});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, ?)", cursos);
+        cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+
+        // Inscrito en uno de cada dos cursos
+        List<Object[]> inscripciones = new ArrayList<>();
+        for (int i = 1; i < CURSOS; i += 2) {
+            inscripciones.add(new Object[]{usuarioId, cursoIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                                 "values (next value for inscripciones_seq, ?, ?, current_timestamp)", inscripciones);
+    }
+
+    @Test
+    void catalogoRespetaElPresupuestoDeConsultas() throws Exception {
+        // Sin caché: identidad, página y total de cursos, inscripciones y esperas del usuario
+        mockMvc.perform(get("/cursos").with(user("alumno")))
+            .andExpect(status().isOk())
+            .andExpect(sentenciasComoMaximo(5))
+            .andExpect(sinNMasUno(3));
+        // Con la página y la identidad en caché solo se consultan los datos del usuario
+        mockMvc.perform(get("/cursos").with(user("alumno")))
+            .andExpect(status().isOk())
+            .andExpect(sentenciasComoMaximo(2));
+    }
+
+    @Test
+    void detalleRespetaElPresupuestoDeConsultas() throws Exception {
+        // Resumen del curso y primera página de inscritos
+        mockMvc.perform(get("/cursos/" + cursoIds.get(1)).with(user("alumno")))
+            .andExpect(status().isOk())
+            .andExpect(sentenciasComoMaximo(2))
+            .andExpect(sinNMasUno(3));
+    }
+
+    @Test
+    void presupuestoExcedidoHaceFallarLaPrueba() {
+        AssertionError error = assertThrows(AssertionError.class, () ->
+            mockMvc.perform(get("/cursos").with(user("alumno"))).andExpect(sentenciasComoMaximo(0)));
+        assertTrue(error.getMessage().contains("GET /cursos excede el presupuesto de 0 sentencias"), error.getMessage());
+    }
+
+    @Test
+    void detectaCargasDiferidasRepetidas() {
+        MetricasPeticion metricas = MetricasPeticion.iniciar();
+        try {
+            // Inscripcion.curso es EAGER y findAll no lo trae en la misma consulta: un SELECT por curso
+            inscripcionRepository.findAll();
+        } finally {
+            MetricasPeticion.terminar();
+        }
+        assertEquals(CURSOS / 2, metricas.getCargasDiferidas().get("com.example.Proyecto.entity.Curso"), metricas.toString());
+        assertTrue(metricas.getSentencias() > CURSOS / 2, metricas.toString());
+        assertTrue(metricas.getNanosJdbc() > 0);
+    }
+
+    @Test
+    void publicaMetricasPorPeticionYPorMetodoDeServicio() throws Exception {
+        mockMvc.perform(get("/cursos").with(user("alumno"))).andExpect(status().isOk());
+
+        assertTrue(registro.get("peticion.sql.sentencias").tag("method", "GET").tag("uri", "/cursos")
+                       .summary().totalAmount() > 0);
+        assertTrue(registro.get("peticion.sql.tiempo").tag("uri", "/cursos").timer().count() > 0);
+        assertTrue(registro.get("peticion.entidades.cargadas").tag("uri", "/cursos").summary().count() > 0);
+        assertTrue(registro.get("servicio.metodo").tag("class", "com.example.Proyecto.service.CursoService")
+                       .tag("method", "listarCatalogo").timer().count() > 0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.Proyecto.metricas;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Comprobaciones de MockMvc sobre el acceso a datos de una petición, para fijar en las pruebas
+ * un presupuesto de consultas por endpoint. Requiere que MetricasPeticionFilter esté en la
+ * cadena de filtros (@AutoConfigureMockMvc lo añade).
+ *
+ * <pre>
+ * mockMvc.perform(get("/cursos").with(user("ana")))
+ *        .andExpect(PresupuestoConsultas.sentenciasComoMaximo(4))
+ *        .andExpect(PresupuestoConsultas.sinNMasUno(3));
+ * </pre>
+ */
+public final class PresupuestoConsultas {
+
+    private PresupuestoConsultas() {
+    }
+
+    /**
+     * Falla si la petición preparó más de {@code maximo} sentencias SQL
+     */
+    public static ResultMatcher sentenciasComoMaximo(int maximo) {
+        return resultado -> {
+            MetricasPeticion metricas = metricas(resultado);
+            if (metricas.getSentencias() > maximo) {
+                throw new AssertionError(descripcion(resultado) + " excede el presupuesto de " + maximo +
+                                         " sentencias: " + metricas);
+            }
+        };
+    }
+
+    /**
+     * Falla si alguna entidad o colección se cargó de forma diferida {@code umbral} veces o más
+     */
+    public static ResultMatcher sinNMasUno(int umbral) {
+        return resultado -> {
+            MetricasPeticion metricas = metricas(resultado);
+            metricas.getCargasDiferidas().forEach((entidad, cargas) -> {
+                if (cargas >= umbral) {
+                    throw new AssertionError(descripcion(resultado) + " carga " + cargas + " veces " + entidad +
+                                             " con consultas sueltas (N+1): " + metricas);
+                }
+            });
+        };
+    }
+
+    /**
+     * Contadores registrados por MetricasPeticionFilter para la petición
+     */
+    public static MetricasPeticion metricas(MvcResult resultado) {
+        Object metricas = resultado.getRequest().getAttribute(MetricasPeticion.ATRIBUTO);
+        if (!(metricas instanceof MetricasPeticion)) {
+            throw new AssertionError("La petición no pasó por MetricasPeticionFilter");
+        }
+        return (MetricasPeticion) metricas;
+    }
+
+    private static String descripcion(MvcResult resultado) {
+        return resultado.getRequest().getMethod() + " " + resultado.getRequest().getRequestURI();
+    }
+}
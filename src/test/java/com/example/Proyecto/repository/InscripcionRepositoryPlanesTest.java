@@ -0,0 +1,97 @@
+package com.example.Proyecto.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que el esquema lo crean las migraciones y que las consultas de InscripcionRepository
+ * resuelven por los índices definidos en ellas (EXPLAIN de H2 sobre el SQL que genera Hibernate).
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:planes_inscripciones;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+class InscripcionRepositoryPlanesTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        List<Object[]> usuarios = new ArrayList<>();
+        List<Object[]> cursos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            usuarios.add(new Object[]{"usuario" + i, "{noop}clave", "usuario" + i + "@ejemplo.com"});
+            cursos.add(new Object[]{"Curso " + i, "Instructor " + i});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, 30, 0)", cursos);
+        jdbcTemplate.update("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                            "select next value for inscripciones_seq, u.id, c.id, current_timestamp " +
+                            "from usuarios u join cursos c on mod(u.id + c.id, 10) = 0");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void elEsquemaLoCreaLaMigracionInicial() {
+        assertEquals(List.of("1", "2"), jdbcTemplate.queryForList(
+            "select \"version\" from \"flyway_schema_history\" " +
+            "where \"success\" and \"version\" is not null order by \"installed_rank\"", String.class));
+        List<String> indices = jdbcTemplate.queryForList(
+            "select index_name from information_schema.indexes where table_name = 'INSCRIPCIONES'", String.class);
+        assertTrue(indices.containsAll(List.of("UK_INSCRIPCIONES_USUARIO_CURSO", "IDX_INSCRIPCIONES_CURSO_ID")),
+                   indices.toString());
+    }
+
+    @Test
+    void busquedasPorUsuarioYCursoUsanElIndiceUnico() {
+        // findByUsuarioAndCurso, existsByUsuarioAndCurso y findUsuarioIdsInscritos
+        assertPlanUsa("select i.id, i.curso_id, i.fecha_inscripcion, i.usuario_id from inscripciones i " +
+                      "where i.usuario_id = 1 and i.curso_id = 9", "UK_INSCRIPCIONES_USUARIO_CURSO");
+        // deleteByUsuarioAndCurso
+        assertPlanUsa("delete from inscripciones where usuario_id = 1 and curso_id = 9", "UK_INSCRIPCIONES_USUARIO_CURSO");
+        assertPlanUsa("select i.usuario_id from inscripciones i where i.curso_id = 9 and i.usuario_id in (1, 11, 21)",
+                      "UK_INSCRIPCIONES_USUARIO_CURSO");
+        // findCursoIdsByUsuarioId: prefijo usuario_id del índice único o el índice
+        // que H2 crea para la clave foránea, según el coste que estime
+        assertPlanUsa("select i.curso_id from inscripciones i where i.usuario_id = 1",
+                      "UK_INSCRIPCIONES_USUARIO_CURSO", "FK_INSCRIPCIONES_USUARIO_INDEX");
+    }
+
+    @Test
+    void busquedasPorCursoUsanLosIndicesDeCurso() {
+        // Paginación por cursor de los inscritos
+        assertPlanUsa("select i.id, i.curso_id, i.fecha_inscripcion, i.usuario_id from inscripciones i " +
+                      "where i.curso_id = 9 and i.id > 0 order by i.id fetch first 25 rows only", "IDX_INSCRIPCIONES_CURSO_ID");
+        // Recuento de reconciliarInscritos y findParesByCursoIdIn
+        assertPlanUsa("select count(i.id) from inscripciones i where i.curso_id = 9",
+                      "IDX_INSCRIPCIONES_CURSO_ID", "FK_INSCRIPCIONES_CURSO_INDEX");
+        assertPlanUsa("select i.usuario_id, i.curso_id from inscripciones i where i.curso_id in (9, 19)",
+                      "IDX_INSCRIPCIONES_CURSO_ID", "FK_INSCRIPCIONES_CURSO_INDEX");
+    }
+
+    private void assertPlanUsa(String sql, String... indices) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertFalse(plan.contains("tableScan"), "El plan recorre la tabla entera:\n" + plan);
+        for (String indice : indices) {
+            if (plan.contains("PUBLIC." + indice)) {
+                return;
+            }
+        }
+        fail("Se esperaba uno de " + List.of(indices) + " en el plan:\n" + plan);
+    }
+}
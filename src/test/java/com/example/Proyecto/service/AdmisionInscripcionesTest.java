@@ -0,0 +1,115 @@
+package com.example.Proyecto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmisionInscripcionesTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    @Test
+    void cadaUsuarioTieneSuRafagaYLuegoUnaFichaPorIntervalo() throws InterruptedException {
+        AdmisionInscripciones admision = new AdmisionInscripciones(registro, 3, Duration.ofMillis(500), 100, 1000);
+        for (int i = 0; i < 3; i++) {
+            admision.admitir("ana");
+            admision.liberar();
+        }
+        InscripcionesSaturadasException rechazo = assertThrows(InscripcionesSaturadasException.class,
+                                                               () -> admision.admitir("ana"));
+        assertTrue(rechazo.getReintentarEn().compareTo(Duration.ZERO) > 0);
+        assertTrue(rechazo.getReintentarEn().compareTo(Duration.ofMillis(500)) <= 0);
+        // Los demás usuarios no se ven afectados
+        admision.admitir("beto");
+        admision.liberar();
+
+        Thread.sleep(rechazo.getReintentarEn().toMillis() + 20);
+        admision.admitir("ana");
+        admision.liberar();
+        assertThrows(InscripcionesSaturadasException.class, () -> admision.admitir("ana"));
+
+        assertEquals(2, registro.get("inscripciones.admision.rechazos").tag("motivo", "usuario").counter().count());
+        assertEquals(5, registro.get("inscripciones.admision.admitidas").counter().count());
+        assertEquals(0, admision.getEnCurso());
+    }
+
+    @Test
+    void unRechazoPorCargaGlobalNoGastaFichasDelUsuario() {
+        AdmisionInscripciones admision = new AdmisionInscripciones(registro, 2, Duration.ofHours(1), 1, 1000);
+        admision.admitir("ana");
+        for (int i = 0; i < 5; i++) {
+            assertThrows(InscripcionesSaturadasException.class, () -> admision.admitir("beto"));
+        }
+        admision.liberar();
+
+        // Beto conserva su ráfaga entera
+        for (int i = 0; i < 2; i++) {
+            admision.admitir("beto");
+            admision.liberar();
+        }
+        assertThrows(InscripcionesSaturadasException.class, () -> admision.admitir("beto"));
+
+        assertEquals(5, registro.get("inscripciones.admision.rechazos").tag("motivo", "concurrencia").counter().count());
+        assertEquals(1, registro.get("inscripciones.admision.rechazos").tag("motivo", "usuario").counter().count());
+        assertEquals(0, admision.getEnCurso());
+    }
+
+    @Test
+    void nuncaHayMasPeticionesEnCursoQueElMaximo() throws Exception {
+        int maximo = 4;
+        int hilos = 16;
+        AdmisionInscripciones admision = new AdmisionInscripciones(registro, 1000, Duration.ofMillis(1), maximo, 1000);
+        AtomicInteger dentro = new AtomicInteger();
+        AtomicInteger picoObservado = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                String username = "usuario" + h;
+                tareas.add(pool.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < 200; i++) {
+                        try {
+                            admision.admitir(username);
+                        } catch (InscripcionesSaturadasException e) {
+                            rechazadas.incrementAndGet();
+                            continue;
+                        }
+                        try {
+                            picoObservado.accumulateAndGet(dentro.incrementAndGet(), Math::max);
+                            Thread.yield();
+                        } finally {
+                            dentro.decrementAndGet();
+                            admision.liberar();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(picoObservado.get() <= maximo, "pico: " + picoObservado.get());
+        assertEquals(0, admision.getEnCurso());
+        assertEquals(rechazadas.get(), registro.get("inscripciones.admision.rechazos")
+            .tag("motivo", "concurrencia").counter().count() + registro.get("inscripciones.admision.rechazos")
+            .tag("motivo", "usuario").counter().count(), 0.0);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica los avisos de plazas: que los cambios de una ventana se agrupan en un solo evento
+ * con el valor final de cada curso, y que con 10.000 suscriptores los clientes que no leen se
+ * desconectan con la cola acotada sin retrasar a los demás.
+ * El temporizador se retrasa para emitir de forma determinista desde el test.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:avisos_plazas;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.avisos.ventana=1h",
+    "cursos.avisos.latido=1h",
+    "cursos.avisos.capacidad-cola=32",
+    "cursos.avisos.max-suscriptores=10000"
+})
+class AvisosPlazasTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AvisosPlazasTest.class);
+
+    @Autowired
+    private AvisosPlazas avisosPlazas;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<AvisosPlazas.Suscripcion> suscripciones = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+        avisosPlazas.limpiar();
+    }
+
+    @AfterEach
+    void desconectar() {
+        suscripciones.forEach(avisosPlazas::cancelar);
+        suscripciones.clear();
+    }
+
+    @Test
+    void agrupaLosCambiosDeUnaVentanaEnUnEvento() {
+        for (String username : List.of("ana", "beto", "carla")) {
+            jdbcTemplate.update("insert into usuarios (username, password, email) values (?, '{noop}clave', ?)",
+                                username, username + "@ejemplo.com");
+        }
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia', 'Pablo', 30, 0)");
+        List<Long> cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+        Long algebra = cursoIds.get(0);
+        Long historia = cursoIds.get(1);
+
+        ClienteFalso cliente = new ClienteFalso();
+        suscripciones.add(avisosPlazas.suscribir(cliente));
+        // Sin cambios no se envía nada más que la trama inicial
+        avisosPlazas.emitir();
+        assertEquals(List.of("retry: 5000\n\n"), cliente.tramas);
+
+        inscribir("ana", algebra);
+        inscribir("beto", algebra);
+        inscribir("carla", algebra);
+        inscribir("ana", historia);
+        inscripcionService.removerInscripcion(usuario("beto"), cursoService.referenciaPorId(algebra));
+        avisosPlazas.emitir();
+        avisosPlazas.emitir();
+
+        assertEquals(2, cliente.tramas.size());
+        String evento = cliente.tramas.get(1);
+        assertTrue(evento.startsWith("id: "), evento);
+        assertTrue(evento.contains("\nevent: plazas\n"), evento);
+        assertTrue(evento.contains("{\"cursoId\":" + algebra + ",\"inscritos\":2}"), evento);
+        assertTrue(evento.contains("{\"cursoId\":" + historia + ",\"inscritos\":1}"), evento);
+        assertTrue(evento.endsWith("\n\n"), evento);
+    }
+
+    @Test
+    void diezMilSuscriptoresConClientesLentosAcotados() {
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        Long cursoId = jdbcTemplate.queryForObject("select id from cursos", Long.class);
+        cursoService.buscarResumen(cursoId);
+        double descartadosAntes = descartadosLentos();
+
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        long heapAntes = heapTrasGc(memoria);
+        List<ClienteFalso> rapidos = new ArrayList<>();
+        List<ClienteFalso> lentos = new ArrayList<>();
+        List<AvisosPlazas.Suscripcion> suscripcionesLentas = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ClienteFalso cliente = new ClienteFalso();
+            cliente.atascado = i % 100 == 0;
+            AvisosPlazas.Suscripcion suscripcion = avisosPlazas.suscribir(cliente);
+            suscripciones.add(suscripcion);
+            (cliente.atascado ? lentos : rapidos).add(cliente);
+            if (cliente.atascado) {
+                suscripcionesLentas.add(suscripcion);
+            }
+        }
+        long porSuscriptor = (heapTrasGc(memoria) - heapAntes) / 10_000;
+        assertEquals(10_000, avisosPlazas.getSuscriptores());
+        assertEquals(100, lentos.size());
+        assertThrows(IllegalStateException.class, () -> avisosPlazas.suscribir(new ClienteFalso()));
+
+        // La trama inicial y 31 eventos llenan la cola de los lentos sin superar la capacidad
+        for (int ventana = 0; ventana < 31; ventana++) {
+            avisosPlazas.cambio(cursoId);
+            avisosPlazas.emitir();
+        }
+        assertEquals(10_000, avisosPlazas.getSuscriptores());
+        for (AvisosPlazas.Suscripcion suscripcion : suscripcionesLentas) {
+            assertEquals(32, suscripcion.pendientes());
+        }
+
+        // El siguiente evento no cabe: los lentos se desconectan y los rápidos lo reciben
+        avisosPlazas.cambio(cursoId);
+        long inicio = System.nanoTime();
+        avisosPlazas.emitir();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        log.debug("Evento a 10.000 suscriptores (100 lentos): {} ms; heap por suscriptor: {} bytes",
+                  ms, porSuscriptor);
+
+        assertEquals(9_900, avisosPlazas.getSuscriptores());
+        assertEquals(100, descartadosLentos() - descartadosAntes);
+        for (int i = 0; i < lentos.size(); i++) {
+            assertTrue(lentos.get(i).cerrado);
+            assertEquals(0, suscripcionesLentas.get(i).pendientes());
+        }
+        for (ClienteFalso cliente : rapidos) {
+            assertEquals(33, cliente.recibidas);
+            assertFalse(cliente.cerrado);
+        }
+        assertTrue(porSuscriptor < 2048, "Heap por suscriptor: " + porSuscriptor + " bytes");
+    }
+
+    private double descartadosLentos() {
+        return registro.get("avisos.plazas.descartados").tag("motivo", "lento").counter().count();
+    }
+
+    private static long heapTrasGc(MemoryMXBean memoria) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+
+    private void inscribir(String username, Long cursoId) {
+        inscripcionService.inscribirUsuario(usuario(username), cursoService.obtenerPorId(cursoId));
+    }
+
+    private Usuario usuario(String username) {
+        return usuarioRepository.findByUsername(username).orElseThrow();
+    }
+
+    /**
+     * Conexión simulada: un cliente atascado nunca admite datos, como un socket con el búfer lleno
+     */
+    private static final class ClienteFalso implements AvisosPlazas.Suscriptor {
+
+        private final List<String> tramas = new ArrayList<>(0);
+        private boolean atascado;
+        private int recibidas;
+        private boolean cerrado;
+
+        @Override
+        public boolean listo() {
+            return !atascado;
+        }
+
+        @Override
+        public void enviar(byte[] trama) {
+            recibidas++;
+            if (tramas.size() < 2) {
+                tramas.add(new String(trama, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void cerrar() {
+            cerrado = true;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que la caché de cursos sirve páginas repetidas sin consultas y que las
+ * inscripciones, ediciones y altas se reflejan en las lecturas siguientes.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cache_cursos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CacheCursosTest {
+
+    private static final int TAMANO = 10;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheCursos.limpiar();
+
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            filas.add(new Object[]{String.format("Curso %02d", i), "Instructor", 5});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)", filas);
+        jdbcTemplate.update("insert into usuarios (username, password, email) values ('ana', '{noop}clave', 'ana@ejemplo.com')");
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void paginaRepetidaNoConsultaLaBaseDeDatos() {
+        cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        cursoService.contarCursos();
+
+        estadisticas.clear();
+        PaginaCatalogo pagina = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        long total = cursoService.contarCursos();
+
+        assertEquals(TAMANO, pagina.getCursos().size());
+        assertTrue(pagina.isHaySiguiente());
+        assertEquals(30, total);
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertTrue(registro.get("cache.gets").tag("cache", "catalogo.paginas").tag("result", "hit")
+            .functionCounter().count() >= 1);
+    }
+
+    @Test
+    void inscripcionActualizaLasPlazasSinDescartarLaPagina() {
+        PaginaCatalogo antes = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        CursoResumen primero = antes.getCursos().get(0);
+        Usuario ana = usuarioRepository.findByUsername("ana").orElseThrow();
+
+        inscripcionService.inscribirUsuario(ana, cursoService.referenciaPorId(primero.getId()));
+
+        estadisticas.clear();
+        PaginaCatalogo despues = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        assertEquals(1, despues.getCursos().get(0).getInscritos());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+
+        inscripcionService.removerInscripcion(ana, cursoService.referenciaPorId(primero.getId()));
+        assertEquals(0, cursoService.buscarResumen(primero.getId()).orElseThrow().getInscritos());
+    }
+
+    @Test
+    void unaInscripcionConfirmadaDuranteLaCargaNoDejaInscritosAntiguos() {
+        Long cursoId = jdbcTemplate.queryForObject("select min(id) from cursos", Long.class);
+        Usuario ana = usuarioRepository.findByUsername("ana").orElseThrow();
+        Curso curso = cursoService.referenciaPorId(cursoId);
+        cacheCursos.limpiar();
+
+        // La página se lee y, antes de guardarse en caché, se confirma una inscripción del curso
+        PaginaCatalogo cargada = cacheCursos.pagina("carrera", () -> {
+            List<CursoResumen> leidos = cursoRepository.findResumenesByIdIn(Collections.singleton(cursoId));
+            inscripcionService.inscribirUsuario(ana, curso);
+            return new PaginaCatalogo(leidos, OrdenCatalogo.NOMBRE, TAMANO, false, false);
+        });
+        assertEquals(0, cargada.getCursos().get(0).getInscritos());
+
+        assertEquals(1, cursoService.buscarResumen(cursoId).orElseThrow().getInscritos());
+        assertEquals(1, cacheCursos.pagina("carrera", () -> fail("La página debería estar en caché"))
+            .getCursos().get(0).getInscritos());
+    }
+
+    @Test
+    void unAltaConfirmadaDuranteLaCargaNoDejaPaginaNiTotalAntiguos() {
+        cacheCursos.pagina("alta", () -> {
+            PaginaCatalogo leida = new PaginaCatalogo(new ArrayList<>(), OrdenCatalogo.NOMBRE, TAMANO, false, false);
+            crearCurso("Aaa durante la carga");
+            return leida;
+        });
+        long total = cacheCursos.total(() -> {
+            long contados = jdbcTemplate.queryForObject("select count(*) from cursos", Long.class);
+            crearCurso("Aab durante el recuento");
+            return contados;
+        });
+        assertEquals(31, total);
+
+        // Ni la lista de IDs ni el total leídos antes del alta se quedan en caché
+        PaginaCatalogo pagina = cacheCursos.pagina("alta", () -> new PaginaCatalogo(
+            cursoRepository.findResumenesByIdIn(jdbcTemplate.queryForList(
+                "select id from cursos where nombre like 'Aa%'", Long.class)),
+            OrdenCatalogo.NOMBRE, TAMANO, false, false));
+        assertEquals(2, pagina.getCursos().size());
+        assertEquals(32, cacheCursos.total(() -> jdbcTemplate.queryForObject("select count(*) from cursos", Long.class)));
+    }
+
+    private void crearCurso(String nombre) {
+        Curso nuevo = new Curso();
+        nuevo.setNombre(nombre);
+        nuevo.setInstructor("Instructor");
+        nuevo.setCapacidad(5);
+        cursoService.crearCurso(nuevo);
+    }
+
+    @Test
+    void edicionYAltaInvalidanElCatalogo() {
+        PaginaCatalogo antes = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        CursoResumen primero = antes.getCursos().get(0);
+
+        Curso editado = new Curso();
+        editado.setId(primero.getId());
+        editado.setNombre("Zzz renombrado");
+        editado.setInstructor(primero.getInstructor());
+        editado.setCapacidad(primero.getCapacidad());
+        cursoService.actualizarCurso(editado);
+
+        PaginaCatalogo despues = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        assertNotEquals(primero.getId(), despues.getCursos().get(0).getId());
+        assertEquals("Zzz renombrado", cursoService.buscarResumen(primero.getId()).orElseThrow().getNombre());
+
+        Curso nuevo = new Curso();
+        nuevo.setNombre("Aaa nuevo");
+        nuevo.setInstructor("Instructor");
+        nuevo.setCapacidad(5);
+        cursoService.crearCurso(nuevo);
+
+        assertEquals(31, cursoService.contarCursos());
+        assertEquals("Aaa nuevo",
+            cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null).getCursos().get(0).getNombre());
+    }
+}
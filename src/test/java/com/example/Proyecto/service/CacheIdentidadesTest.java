@@ -0,0 +1,82 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.IdentidadUsuario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheIdentidadesTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final CacheIdentidades cache = new CacheIdentidades(2, registro);
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    private IdentidadUsuario cargar(String username) {
+        cargas.incrementAndGet();
+        return new IdentidadUsuario((long) username.hashCode(), username, username + "@ejemplo.com");
+    }
+
+    @Test
+    void cargaUnaVezYLuegoAcierta() {
+        cache.obtener("ana", this::cargar);
+        cache.obtener("ana", this::cargar);
+
+        assertEquals(1, cargas.get());
+        assertEquals(1, registro.get("cache.gets").tag("cache", "identidades").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registro.get("cache.gets").tag("cache", "identidades").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void expulsaLaEntradaMenosUsada() {
+        cache.obtener("ana", this::cargar);
+        cache.obtener("bob", this::cargar);
+        cache.obtener("ana", this::cargar);
+        cache.obtener("eva", this::cargar);
+
+        assertEquals(2, cache.getTamano());
+        assertEquals(1, cache.getExpulsiones());
+        cache.obtener("ana", this::cargar);
+        assertEquals(3, cargas.get());
+        cache.obtener("bob", this::cargar);
+        assertEquals(4, cargas.get());
+    }
+
+    @Test
+    void invalidarPorIdEliminaLaEntrada() {
+        IdentidadUsuario ana = cache.obtener("ana", this::cargar);
+        cache.invalidarPorId(ana.getId());
+
+        assertEquals(0, cache.getTamano());
+        cache.obtener("ana", this::cargar);
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void obtenerTodasSoloCargaLasQueFaltan() {
+        cache.obtener("ana", this::cargar);
+        List<String> pedidas = new ArrayList<>();
+
+        Map<String, IdentidadUsuario> identidades = cache.obtenerTodas(Arrays.asList("ana", "bob", "nadie"), faltan -> {
+            pedidas.addAll(faltan);
+            List<IdentidadUsuario> cargadas = new ArrayList<>();
+            for (String username : faltan) {
+                if (!username.equals("nadie")) {
+                    cargadas.add(cargar(username));
+                }
+            }
+            return cargadas;
+        });
+
+        assertEquals(Arrays.asList("bob", "nadie"), pedidas);
+        assertEquals(2, identidades.size());
+        assertFalse(identidades.containsKey("nadie"));
+        assertEquals(2, cache.getTamano());
+    }
+}
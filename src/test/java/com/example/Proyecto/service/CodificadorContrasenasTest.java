@@ -0,0 +1,89 @@
+package com.example.Proyecto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodificadorContrasenasTest {
+
+    @Test
+    void codificaYCompruebaConElCosteConfigurado() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CodificadorContrasenas codificador = new CodificadorContrasenas(5, 2, 10, Duration.ofSeconds(5), registro);
+        try {
+            String hash = codificador.encode("secreta");
+            assertTrue(hash.startsWith("$2a$05$"));
+            assertTrue(codificador.matches("secreta", hash));
+            assertFalse(codificador.matches("otra", hash));
+            assertEquals(1, registro.get("contrasenas.hash.tiempo").tag("operacion", "codificar").timer().count());
+            assertEquals(2, registro.get("contrasenas.hash.tiempo").tag("operacion", "comprobar").timer().count());
+        } finally {
+            codificador.detener();
+        }
+    }
+
+    @Test
+    void pideRecalcularLosHashesConOtroCoste() throws Exception {
+        CodificadorContrasenas codificador = new CodificadorContrasenas(5, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        try {
+            assertTrue(codificador.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x")));
+            assertTrue(codificador.upgradeEncoding(new BCryptPasswordEncoder(6).encode("x")));
+            assertFalse(codificador.upgradeEncoding(codificador.encode("x")));
+            assertFalse(codificador.upgradeEncoding("{noop}x"));
+            assertFalse(codificador.upgradeEncoding(null));
+        } finally {
+            codificador.detener();
+        }
+    }
+
+    @Test
+    void rechazaAlMomentoSiElPoolYLaColaEstanLlenos() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CodificadorContrasenas codificador = new CodificadorContrasenas(12, 1, 1, Duration.ofSeconds(30), registro);
+        try {
+            CompletableFuture<String> enCurso = CompletableFuture.supplyAsync(() -> codificador.encode("a"));
+            esperarHasta(() -> registro.get("contrasenas.hash.activos").gauge().value() == 1);
+            CompletableFuture<String> enCola = CompletableFuture.supplyAsync(() -> codificador.encode("b"));
+            esperarHasta(() -> registro.get("contrasenas.hash.cola").gauge().value() == 1);
+
+            long inicio = System.nanoTime();
+            assertThrows(CifradoSaturadoException.class, () -> codificador.encode("c"));
+            assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(100), "El rechazo debe ser inmediato");
+            assertEquals(1, registro.get("contrasenas.hash.rechazos").counter().count());
+
+            // Las dos operaciones admitidas terminan con normalidad
+            BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+            assertTrue(bcrypt.matches("a", enCurso.get(30, TimeUnit.SECONDS)));
+            assertTrue(bcrypt.matches("b", enCola.get(30, TimeUnit.SECONDS)));
+        } finally {
+            codificador.detener();
+        }
+    }
+
+    @Test
+    void rechazaSiElHashTardaMasQueLaEsperaMaxima() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CodificadorContrasenas codificador = new CodificadorContrasenas(12, 1, 1, Duration.ofMillis(1), registro);
+        try {
+            assertThrows(CifradoSaturadoException.class, () -> codificador.encode("lenta"));
+            assertEquals(1, registro.get("contrasenas.hash.rechazos").counter().count());
+        } finally {
+            codificador.detener();
+        }
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            Thread.sleep(1);
+        }
+    }
+}
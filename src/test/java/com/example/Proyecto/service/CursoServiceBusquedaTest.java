@@ -0,0 +1,108 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import com.example.Proyecto.entity.Curso;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que la búsqueda de CursoService ve las altas, ediciones y bajas hechas a través
+ * del servicio sin reconstruir el índice, y que pagina por cursor como el catálogo.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:busqueda_cursos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+class CursoServiceBusquedaTest {
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private IndiceBusquedaCursos indiceBusqueda;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        cacheCursos.limpiar();
+        indiceBusqueda.reconstruir();
+    }
+
+    @Test
+    void reflejaAltasEdicionesYBajasSinReconstruir() {
+        Curso java = cursoService.crearCurso(curso("Programación en Java", "María Núñez"));
+        Curso sql = cursoService.crearCurso(curso("Bases de datos", "José Pérez"));
+
+        assertEquals(List.of("Programación en Java"), nombres(cursoService.buscarCursos("programacion", 10, null, null)));
+        assertEquals(List.of("Bases de datos"), nombres(cursoService.buscarCursos("perez", 10, null, null)));
+
+        Curso edicion = curso("Programación en Kotlin", "María Núñez");
+        edicion.setId(java.getId());
+        cursoService.actualizarCurso(edicion);
+        assertTrue(cursoService.buscarCursos("java", 10, null, null).getCursos().isEmpty());
+        assertEquals(List.of("Programación en Kotlin"), nombres(cursoService.buscarCursos("kotlin maria", 10, null, null)));
+
+        cursoService.eliminarCurso(sql.getId());
+        assertTrue(cursoService.buscarCursos("bases", 10, null, null).getCursos().isEmpty());
+        assertEquals(1, indiceBusqueda.getDocumentos());
+    }
+
+    @Test
+    void paginaLosResultadosPorCursor() {
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            filas.add(new Object[]{"Álgebra " + i, "Instructor " + i});
+        }
+        filas.add(new Object[]{"Historia", "Ana"});
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, 30, 0)", filas);
+        indiceBusqueda.reconstruir();
+
+        PaginaCatalogo primera = cursoService.buscarCursos("algebra", 20, null, null);
+        assertEquals(20, primera.getCursos().size());
+        assertFalse(primera.isHayAnterior());
+        PaginaCatalogo segunda = cursoService.buscarCursos("algebra", 20, primera.getCursorSiguiente(), null);
+        PaginaCatalogo tercera = cursoService.buscarCursos("algebra", 20, segunda.getCursorSiguiente(), null);
+        assertEquals(20, segunda.getCursos().size());
+        assertEquals(5, tercera.getCursos().size());
+        assertFalse(tercera.isHaySiguiente());
+        assertEquals("Álgebra 44", tercera.getCursos().get(4).getNombre());
+
+        PaginaCatalogo vuelta = cursoService.buscarCursos("algebra", 20, null, segunda.getCursorAnterior());
+        assertEquals(nombres(primera), nombres(vuelta));
+    }
+
+    private static Curso curso(String nombre, String instructor) {
+        Curso curso = new Curso();
+        curso.setNombre(nombre);
+        curso.setInstructor(instructor);
+        curso.setCapacidad(30);
+        return curso;
+    }
+
+    private static List<String> nombres(PaginaCatalogo pagina) {
+        List<String> nombres = new ArrayList<>();
+        for (CursoResumen curso : pagina.getCursos()) {
+            nombres.add(curso.getNombre());
+        }
+        return nombres;
+    }
+}
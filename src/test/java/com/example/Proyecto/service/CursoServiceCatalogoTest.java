@@ -0,0 +1,144 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.CursoResumen;
+import com.example.Proyecto.dto.CursorCatalogo;
+import com.example.Proyecto.dto.OrdenCatalogo;
+import com.example.Proyecto.dto.PaginaCatalogo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que la paginación por cursor del catálogo tiene un coste por página
+ * acotado (una consulta, sin entidades cargadas y memoria constante) aunque
+ * el catálogo tenga 100.000 cursos.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:catalogo_keyset;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CursoServiceCatalogoTest {
+
+    private static final int TOTAL_CURSOS = 100_000;
+    private static final int TAMANO = 50;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeAll
+    void sembrarCursos() {
+        List<Object[]> filas = new ArrayList<>(TOTAL_CURSOS);
+        for (int i = 0; i < TOTAL_CURSOS; i++) {
+            // Nombres repetidos para forzar el desempate por id en el orden por nombre
+            filas.add(new Object[]{"Curso " + (i % 1000), "Instructor " + i, 30});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)", filas);
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void cadaPaginaEjecutaUnaSolaConsultaSinCargarEntidades() {
+        PaginaCatalogo primera = cursoService.listarCatalogo(OrdenCatalogo.ID, TAMANO, null, null);
+        String cursor = primera.getCursorSiguiente();
+
+        for (int i = 0; i < 20; i++) {
+            estadisticas.clear();
+            PaginaCatalogo pagina = cursoService.listarCatalogo(OrdenCatalogo.ID, TAMANO, cursor, null);
+
+            assertEquals(TAMANO, pagina.getCursos().size());
+            assertEquals(1, estadisticas.getPrepareStatementCount());
+            assertEquals(0, estadisticas.getEntityLoadCount());
+            cursor = pagina.getCursorSiguiente();
+        }
+    }
+
+    @Test
+    void paginaProfundaCuestaLoMismoQueLaPrimera() {
+        // Calentamiento para no medir la compilación de consultas
+        cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        String cursorProfundo = cursorCercaDelFinal();
+        cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, cursorProfundo, null);
+
+        long memoriaPrimera = bytesReservados(() -> cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null));
+        long memoriaProfunda = bytesReservados(() -> cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, cursorProfundo, null));
+
+        // La memoria reservada no depende de la posición dentro del catálogo
+        assertTrue(memoriaProfunda < 4 * 1024 * 1024, "Página profunda reservó " + memoriaProfunda + " bytes");
+        assertTrue(memoriaProfunda < memoriaPrimera * 3 + 512 * 1024,
+            "Página profunda reservó " + memoriaProfunda + " bytes frente a " + memoriaPrimera);
+    }
+
+    @Test
+    void navegarAdelanteYAtrasDevuelveLasMismasPaginas() {
+        PaginaCatalogo primera = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, null);
+        PaginaCatalogo segunda = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, primera.getCursorSiguiente(), null);
+        PaginaCatalogo volver = cursoService.listarCatalogo(OrdenCatalogo.NOMBRE, TAMANO, null, segunda.getCursorAnterior());
+
+        assertFalse(primera.isHayAnterior());
+        assertTrue(segunda.isHayAnterior());
+        assertEquals(ids(primera.getCursos()), ids(volver.getCursos()));
+        assertFalse(volver.isHayAnterior());
+
+        Set<Long> solapados = new HashSet<>(ids(primera.getCursos()));
+        solapados.retainAll(ids(segunda.getCursos()));
+        assertTrue(solapados.isEmpty());
+
+        CursoResumen ultimo = primera.getCursos().get(TAMANO - 1);
+        CursoResumen siguiente = segunda.getCursos().get(0);
+        int comparacion = ultimo.getNombre().compareTo(siguiente.getNombre());
+        assertTrue(comparacion < 0 || (comparacion == 0 && ultimo.getId() < siguiente.getId()));
+    }
+
+    @Test
+    void elTamanoDePaginaSeLimitaAlMaximo() {
+        PaginaCatalogo pagina = cursoService.listarCatalogo(OrdenCatalogo.ID, 1_000_000, null, null);
+        assertEquals(100, pagina.getCursos().size());
+    }
+
+    private String cursorCercaDelFinal() {
+        // Cursor situado en el último grupo de nombres del orden alfabético
+        String ultimoNombre = jdbcTemplate.queryForObject("select max(nombre) from cursos", String.class);
+        Long ultimoId = jdbcTemplate.queryForObject("select max(id) from cursos where nombre = ?", Long.class, ultimoNombre);
+        return new CursorCatalogo(ultimoId - TAMANO * 20L, ultimoNombre).codificar();
+    }
+
+    private static List<Long> ids(List<CursoResumen> cursos) {
+        List<Long> ids = new ArrayList<>();
+        for (CursoResumen curso : cursos) {
+            ids.add(curso.getId());
+        }
+        return ids;
+    }
+
+    private static long bytesReservados(Runnable accion) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        long antes = hilos.getThreadAllocatedBytes(hilo);
+        accion.run();
+        return hilos.getThreadAllocatedBytes(hilo) - antes;
+    }
+}
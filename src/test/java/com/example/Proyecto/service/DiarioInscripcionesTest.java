@@ -0,0 +1,225 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el diario de inscripciones con la aplicación completa: que todas las vías que
+ * inscriben o dan de baja dejan los modelos de lectura igual que la tabla, que un arranque
+ * los recupera de la instantánea y el diario, y que un descuadre con la tabla se corrige.
+ * Los arranques se simulan con otra instancia sobre una copia del directorio.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:diario_inscripciones;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000",
+    "cursos.diario.tamano-segmento=2400B"
+})
+class DiarioInscripcionesTest {
+
+    private static Path directorio;
+
+    @DynamicPropertySource
+    static void directorioDiario(DynamicPropertyRegistry propiedades) throws IOException {
+        directorio = Files.createTempDirectory("diario-inscripciones");
+        propiedades.add("cursos.diario.directorio", () -> directorio.toString());
+    }
+
+    @Autowired
+    private DiarioInscripciones diario;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> cursoIds;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        for (String username : List.of("ana", "beto", "carla")) {
+            jdbcTemplate.update("insert into usuarios (username, password, email) values (?, '{noop}clave', ?)",
+                                username, username + "@ejemplo.com");
+        }
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Álgebra', 'Marta', 30, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Historia', 'Pablo', 1, 0)");
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Química', 'Sara', 20, 0)");
+        cursoIds = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+        // Las tablas se han cambiado por debajo de los servicios
+        diario.reconstruir();
+    }
+
+    @Test
+    void losModelosSiguenTodasLasVias() {
+        assertTrue(diario.isActivo());
+        Long algebra = cursoIds.get(0);
+        Long historia = cursoIds.get(1);
+        Long quimica = cursoIds.get(2);
+        long inicio = diario.getSecuencia();
+
+        inscribir("ana", algebra);
+        inscribir("beto", algebra);
+        inscribir("carla", quimica);
+        inscribir("ana", historia);
+        // Historia está llena: beto espera y se le promueve al quedar la plaza libre
+        assertEquals(EstadoInscripcion.EN_ESPERA,
+                     inscripcionService.inscribirOEsperar(usuario("beto"), cursoService.obtenerPorId(historia)).join());
+        inscripcionService.removerInscripcion(usuario("ana"), cursoService.referenciaPorId(historia));
+        assertEquals(1, listaEsperaService.promoverPendientes());
+        inscripcionService.removerInscripcion(usuario("beto"), cursoService.referenciaPorId(algebra));
+        cursoService.eliminarCurso(quimica);
+
+        assertEquals(8, diario.getSecuencia() - inicio);
+        assertEquals(1, diario.inscritos(algebra));
+        assertEquals(1, diario.inscritos(historia));
+        assertEquals(0, diario.inscritos(quimica));
+        assertTrue(diario.cursosDe(id("ana")).contiene(algebra));
+        assertFalse(diario.cursosDe(id("ana")).contiene(historia));
+        assertTrue(diario.cursosDe(id("beto")).contiene(historia));
+        assertEquals(0, diario.cursosDe(id("carla")).getTamano());
+        assertEquals(contarEnTabla(), inscritosSegunDiario(diario));
+
+        // La página de cursos lee los cursos del usuario del diario
+        assertEquals(diario.cursosDe(id("ana")).getTamano(), inscripcionService.obtenerIdsCursosInscritos(id("ana")).getTamano());
+    }
+
+    @Test
+    void unArranqueRecuperaLosModelosDeLaInstantaneaYElDiario() throws Exception {
+        Long algebra = cursoIds.get(0);
+        inscribir("ana", algebra);
+        inscribir("beto", algebra);
+        diario.instantanea();
+        // Eventos posteriores a la instantánea, repartidos en varios segmentos de 100 registros
+        for (int i = 0; i < 150; i++) {
+            inscripcionService.removerInscripcion(usuario("beto"), cursoService.referenciaPorId(algebra));
+            inscribir("beto", algebra);
+        }
+        inscribir("carla", cursoIds.get(2));
+
+        DiarioInscripciones reabierto = reabrir();
+        try {
+            assertEquals(diario.getSecuencia(), reabierto.getSecuencia());
+            assertEquals(2, reabierto.inscritos(algebra));
+            assertEquals(1, reabierto.inscritos(cursoIds.get(2)));
+            assertTrue(reabierto.cursosDe(id("beto")).contiene(algebra));
+            assertEquals(contarEnTabla(), inscritosSegunDiario(reabierto));
+        } finally {
+            reabierto.detener();
+        }
+    }
+
+    @Test
+    void unDescuadreConLaTablaSeReconstruye() throws Exception {
+        inscribir("ana", cursoIds.get(0));
+        // Una inscripción que no pasó por los servicios (por ejemplo, perdida en una caída)
+        jdbcTemplate.update("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                            "values (next value for inscripciones_seq, ?, ?, current_timestamp)", id("carla"), cursoIds.get(0));
+
+        DiarioInscripciones reabierto = reabrir();
+        try {
+            assertEquals(2, reabierto.inscritos(cursoIds.get(0)));
+            assertTrue(reabierto.cursosDe(id("carla")).contiene(cursoIds.get(0)));
+        } finally {
+            reabierto.detener();
+        }
+    }
+
+    /**
+     * Otra instancia sobre una copia del directorio, como en un arranque nuevo
+     */
+    private DiarioInscripciones reabrir() throws IOException {
+        diario.sincronizar();
+        Path copia = Files.createTempDirectory("diario-inscripciones-copia");
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            for (Path fichero : (Iterable<Path>) ficheros::iterator) {
+                Files.copy(fichero, copia.resolve(fichero.getFileName()));
+            }
+        }
+        DiarioInscripciones reabierto = new DiarioInscripciones(inscripcionRepository, transactionManager,
+                                                                new SimpleMeterRegistry(), copia.toString(),
+                                                                DataSize.ofBytes(2400), 1_000_000);
+        reabierto.afterPropertiesSet();
+        return reabierto;
+    }
+
+    private Map<Long, Long> contarEnTabla() {
+        Map<Long, Long> inscritos = new HashMap<>();
+        jdbcTemplate.query("select curso_id, count(*) from inscripciones group by curso_id",
+                           fila -> { inscritos.put(fila.getLong(1), fila.getLong(2)); });
+        return inscritos;
+    }
+
+    private Map<Long, Long> inscritosSegunDiario(DiarioInscripciones origen) {
+        Map<Long, Long> inscritos = new HashMap<>();
+        for (Long cursoId : cursoIds) {
+            if (origen.inscritos(cursoId) > 0) {
+                inscritos.put(cursoId, origen.inscritos(cursoId));
+            }
+        }
+        return inscritos;
+    }
+
+    private void inscribir(String username, Long cursoId) {
+        inscripcionService.inscribirUsuario(usuario(username), cursoService.obtenerPorId(cursoId));
+    }
+
+    private Usuario usuario(String username) {
+        return usuarioRepository.findByUsername(username).orElseThrow();
+    }
+
+    private Long id(String username) {
+        return usuario(username).getId();
+    }
+}
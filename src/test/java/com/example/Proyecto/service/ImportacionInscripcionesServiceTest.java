@@ -0,0 +1,206 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.RechazoImportacion;
+import com.example.Proyecto.dto.ResultadoImportacion;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la importación masiva de inscripciones: capacidad, duplicados, filas
+ * erróneas e inserts en lotes JDBC. Imprime el rendimiento sostenido sobre H2
+ * (objetivo: 10.000 filas/s).
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:importacion_inscripciones;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+class ImportacionInscripcionesServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionInscripcionesServiceTest.class);
+
+    private static final int USUARIOS = 2_000;
+    private static final int CURSOS = 60;
+    private static final int CURSOS_CALENTAMIENTO = 10;
+
+    @Autowired
+    private ImportacionInscripcionesService importacionService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> cursoIds = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios.add(new Object[]{"alumno" + i, "{noop}clave", "alumno" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        List<Object[]> cursos = new ArrayList<>();
+        for (int i = 0; i < CURSOS; i++) {
+            cursos.add(new Object[]{"Curso " + i, "Instructor", USUARIOS});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)", cursos);
+        cursoIds.clear();
+        cursoIds.addAll(jdbcTemplate.queryForList("select id from cursos order by id", Long.class));
+    }
+
+    @Test
+    void rechazaFilasInvalidasDuplicadasYSinPlaza() {
+        jdbcTemplate.update("update cursos set capacidad = 2 where id = ?", cursoIds.get(1));
+        String csv = "username,curso_id\n" +
+                     "alumno0," + cursoIds.get(0) + "\n" +
+                     "alumno0," + cursoIds.get(0) + "\n" +          // duplicada en el fichero
+                     "desconocido," + cursoIds.get(0) + "\n" +
+                     "alumno1,999999999\n" +
+                     "esto no es csv\n" +
+                     "\n" +
+                     "\"alumno2\";\"" + cursoIds.get(1) + "\"\n" +
+                     "alumno3," + cursoIds.get(1) + "\n" +
+                     "alumno4," + cursoIds.get(1) + "\n";          // curso lleno
+
+        ResultadoImportacion resultado = importacionService.importar(new StringReader(csv));
+
+        assertEquals(8, resultado.getLeidas());
+        assertEquals(3, resultado.getAceptadas());
+        assertEquals(5, resultado.getRechazadas());
+        List<String> motivos = new ArrayList<>();
+        for (RechazoImportacion rechazo : resultado.getRechazos()) {
+            motivos.add(rechazo.getLinea() + ":" + rechazo.getMotivo());
+        }
+        assertTrue(motivos.contains("3:" + InscripcionPipeline.MENSAJE_YA_INSCRITO), motivos.toString());
+        assertTrue(motivos.contains("4:" + ImportacionInscripcionesService.MENSAJE_USUARIO), motivos.toString());
+        assertTrue(motivos.contains("5:" + ImportacionInscripcionesService.MENSAJE_CURSO), motivos.toString());
+        assertTrue(motivos.contains("6:" + ImportacionInscripcionesService.MENSAJE_FORMATO), motivos.toString());
+        assertTrue(motivos.contains("10:" + InscripcionPipeline.MENSAJE_CURSO_LLENO), motivos.toString());
+
+        // Reimportar el mismo fichero no crea inscripciones nuevas
+        ResultadoImportacion repetida = importacionService.importar(new StringReader(csv));
+        assertEquals(0, repetida.getAceptadas());
+        comprobarContadores();
+    }
+
+    @Test
+    void unCursoConListaDeEsperaCuentaComoLleno() {
+        Long cursoId = cursoIds.get(0);
+        Long alumno0 = jdbcTemplate.queryForObject("select id from usuarios where username = 'alumno0'", Long.class);
+        listaEsperaService.apuntar(alumno0, cursoId);
+
+        // Quedan plazas, pero son de quien ya espera: la importación no se cuela por delante
+        ResultadoImportacion resultado = importacionService.importar(new StringReader(
+            "alumno1," + cursoId + "\n" +
+            "alumno1," + cursoIds.get(1) + "\n"));
+
+        assertEquals(1, resultado.getAceptadas());
+        assertEquals(1, resultado.getRechazadas());
+        assertEquals(InscripcionPipeline.MENSAJE_CURSO_LLENO, resultado.getRechazos().get(0).getMotivo());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from inscripciones where curso_id = ?",
+                                                    Integer.class, cursoId));
+        comprobarContadores();
+    }
+
+    @Test
+    void importaDecenasDeMilesDeFilasEnLotes() {
+        // Calentamiento (JIT y cachés) sobre otros cursos antes de medir
+        importacionService.importar(csv(0, CURSOS_CALENTAMIENTO));
+
+        int filas = USUARIOS * (CURSOS - CURSOS_CALENTAMIENTO);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        ResultadoImportacion resultado = importacionService.importar(csv(CURSOS_CALENTAMIENTO, CURSOS));
+
+        log.debug("Importación: {} filas en {} ms ({} filas/s), {} sentencias preparadas",
+            resultado.getLeidas(), resultado.getDuracionMs(), resultado.getFilasPorSegundo(),
+            estadisticas.getPrepareStatementCount());
+        assertEquals(filas, resultado.getLeidas());
+        assertEquals(filas, resultado.getAceptadas());
+        assertEquals(0, resultado.getRechazadas());
+        // Los inserts van en lotes: muchas menos sentencias que filas
+        assertTrue(estadisticas.getPrepareStatementCount() < filas / 10,
+            "Sentencias: " + estadisticas.getPrepareStatementCount());
+        // Suelo holgado para máquinas de integración lentas; una fila por sentencia no llega ni a la mitad
+        assertTrue(resultado.getFilasPorSegundo() >= 5_000, "Filas/s: " + resultado.getFilasPorSegundo());
+        comprobarContadores();
+    }
+
+    /**
+     * Genera bajo demanda, sin construirlo entero en memoria, un CSV que inscribe a
+     * todos los usuarios en los cursos [desde, hasta)
+     */
+    private Reader csv(int desde, int hasta) {
+        int filas = USUARIOS * (hasta - desde);
+        return new Reader() {
+            private int fila = -1;
+            private String pendiente = "";
+            private int posicion;
+
+            @Override
+            public int read(char[] destino, int inicio, int longitud) {
+                if (posicion == pendiente.length()) {
+                    if (++fila > filas) {
+                        return -1;
+                    }
+                    int usuario = (fila - 1) % USUARIOS;
+                    int curso = desde + (fila - 1) / USUARIOS;
+                    pendiente = fila == 0 ? "username,curso_id\n" : "alumno" + usuario + "," + cursoIds.get(curso) + "\n";
+                    posicion = 0;
+                }
+                int copiados = Math.min(longitud, pendiente.length() - posicion);
+                pendiente.getChars(posicion, posicion + copiados, destino, inicio);
+                posicion += copiados;
+                return copiados;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private void comprobarContadores() {
+        Integer descuadrados = jdbcTemplate.queryForObject(
+            "select count(*) from cursos c where c.inscritos > c.capacidad " +
+            "or c.inscritos <> (select count(*) from inscripciones i where i.curso_id = c.id)", Integer.class);
+        assertEquals(0, descuadrados);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.Proyecto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la normalización sin tildes, la búsqueda por prefijos con varias palabras,
+ * la paginación por cursor, las actualizaciones incrementales y el tiempo de consulta
+ * con 100.000 cursos indexados.
+ */
+class IndiceBusquedaCursosTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaCursosTest.class);
+
+    private IndiceBusquedaCursos indice;
+
+    @BeforeEach
+    void preparar() {
+        indice = new IndiceBusquedaCursos(null, null, new SimpleMeterRegistry());
+        indice.indexar(1L, "Programación en Java", "María Núñez");
+        indice.indexar(2L, "Java avanzado", "José Pérez");
+        indice.indexar(3L, "Introducción a la programación funcional", "Ángel Ruiz");
+        indice.indexar(4L, "Bases de datos", "maria lopez");
+    }
+
+    @Test
+    void ignoraTildesYMayusculas() {
+        assertEquals(List.of(1L, 3L), buscar("programacion"));
+        assertEquals(List.of(1L, 3L), buscar("PROGRAMACIÓN"));
+        assertEquals(List.of(1L, 4L), buscar("maría"));
+        assertEquals(List.of(1L), buscar("nunez"));
+        assertEquals(List.of(3L), buscar("angel"));
+    }
+
+    @Test
+    void buscaPorPrefijoYExigeTodasLasPalabras() {
+        assertEquals(List.of(1L, 2L), buscar("jav"));
+        assertEquals(List.of(1L), buscar("jav progr"));
+        assertEquals(List.of(1L), buscar("java maria"));
+        assertEquals(List.of(), buscar("java ruiz"));
+        assertEquals(List.of(), buscar("vanzado"));
+        assertEquals(List.of(), buscar("  ,; "));
+    }
+
+    @Test
+    void compruebaPalabrasMasLargasQueElPrefijoIndexado() {
+        assertEquals(List.of(3L), buscar("introduccion"));
+        assertEquals(List.of(), buscar("introduccionx"));
+        assertEquals(List.of(1L, 3L), buscar("programaciones".substring(0, 12)));
+    }
+
+    @Test
+    void paginaHaciaDelanteYHaciaAtras() {
+        for (long id = 10; id < 35; id++) {
+            indice.indexar(id, "Curso de Java " + id, "Instructor");
+        }
+        IndiceBusquedaCursos.ResultadoBusqueda primera = indice.buscar("java", null, null, 10);
+        assertEquals(List.of(1L, 2L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L), primera.getIds());
+        assertFalse(primera.isHayAnterior());
+        assertTrue(primera.isHaySiguiente());
+
+        IndiceBusquedaCursos.ResultadoBusqueda segunda = indice.buscar("java", 17L, null, 10);
+        assertEquals(18L, segunda.getIds().get(0));
+        assertEquals(27L, segunda.getIds().get(9));
+        assertTrue(segunda.isHayAnterior());
+        assertTrue(segunda.isHaySiguiente());
+
+        IndiceBusquedaCursos.ResultadoBusqueda ultima = indice.buscar("java", 27L, null, 10);
+        assertEquals(List.of(28L, 29L, 30L, 31L, 32L, 33L, 34L), ultima.getIds());
+        assertFalse(ultima.isHaySiguiente());
+
+        IndiceBusquedaCursos.ResultadoBusqueda anterior = indice.buscar("java", null, 18L, 10);
+        assertEquals(primera.getIds(), anterior.getIds());
+        assertFalse(anterior.isHayAnterior());
+        assertTrue(anterior.isHaySiguiente());
+    }
+
+    @Test
+    void seActualizaDeFormaIncremental() {
+        indice.indexar(2L, "Kotlin avanzado", "José Pérez");
+        assertEquals(List.of(1L), buscar("java"));
+        assertEquals(List.of(2L), buscar("kotl"));
+        assertEquals(List.of(2L), buscar("perez"));
+
+        indice.eliminar(1L);
+        assertEquals(List.of(), buscar("java"));
+        assertEquals(List.of(4L), buscar("maria"));
+        assertEquals(3, indice.getDocumentos());
+
+        indice.eliminar(2L);
+        indice.eliminar(3L);
+        indice.eliminar(4L);
+        assertEquals(0, indice.getTerminos());
+    }
+
+    @Test
+    void consultasPorDebajoDelMilisegundoConCienMilCursos() {
+        String[] temas = {"Programación", "Java", "Python", "Bases de datos", "Redes", "Diseño", "Álgebra",
+                          "Cálculo", "Física", "Química", "Historia", "Economía", "Marketing", "Inglés"};
+        String[] niveles = {"básico", "intermedio", "avanzado", "práctico", "para principiantes"};
+        String[] nombres = {"María", "José", "Lucía", "Andrés", "Sofía", "Martín", "Elena", "Óscar"};
+        Random aleatorio = new Random(42);
+        IndiceBusquedaCursos grande = new IndiceBusquedaCursos(null, null, new SimpleMeterRegistry());
+        for (long id = 1; id <= 100_000; id++) {
+            grande.indexar(id, temas[aleatorio.nextInt(temas.length)] + " " + niveles[aleatorio.nextInt(niveles.length)] + " " + id,
+                           nombres[aleatorio.nextInt(nombres.length)] + " Apellido" + aleatorio.nextInt(5000));
+        }
+        String[] consultas = {"java", "prog avan", "maria", "calculo basico", "ingles para", "apellido12",
+                              "quimica intermedio lucia", "redes", "d", "fisica practico oscar"};
+
+        // Calentamiento del JIT
+        for (int i = 0; i < 20_000; i++) {
+            grande.buscar(consultas[i % consultas.length], null, null, 20);
+        }
+        int repeticiones = 50_000;
+        List<Long> primeros = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            IndiceBusquedaCursos.ResultadoBusqueda resultado = grande.buscar(consultas[i % consultas.length], null, null, 20);
+            if (!resultado.getIds().isEmpty()) {
+                primeros.add(resultado.getIds().get(0));
+            }
+        }
+        double microsPorConsulta = (System.nanoTime() - inicio) / 1_000.0 / repeticiones;
+        log.debug("Búsqueda en 100.000 cursos: {} µs por consulta, {} términos",
+                  Math.round(microsPorConsulta), grande.getTerminos());
+
+        assertEquals(repeticiones, primeros.size());
+        assertTrue(microsPorConsulta < 1_000, "Consulta media de " + microsPorConsulta + " µs");
+    }
+
+    private List<Long> buscar(String consulta) {
+        return indice.buscar(consulta, null, null, 100).getIds();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.InscripcionRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el modo SINCRONO con el modo PIPELINE con 1.000 clientes concurrentes:
+ * inscripciones confirmadas por segundo, transacciones y latencia p99.
+ * Ambos modos deben respetar la capacidad de los cursos.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:inscripcion_pipeline;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InscripcionPipelineBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InscripcionPipelineBenchmarkTest.class);
+
+    private static final int CLIENTES = 1000;
+    private static final int CURSOS = 20;
+    private static final int CAPACIDAD = 40;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private InscripcionPipeline pipeline;
+
+    @Autowired
+    private CerrojosCurso cerrojos;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < CLIENTES; i++) {
+            usuarios.add(new Object[]{"cliente" + i, "{noop}clave", "cliente" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        for (int i = 0; i < CURSOS; i++) {
+            jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)",
+                "Curso " + i, "Instructor", CAPACIDAD);
+        }
+    }
+
+    @AfterEach
+    void restaurarModo() {
+        inscripcionService.setModo(ModoInscripcion.SINCRONO);
+    }
+
+    @Test
+    void modoSincrono() throws Exception {
+        Resultado resultado = ejecutar(ModoInscripcion.SINCRONO);
+        comprobarCapacidad(resultado);
+    }
+
+    @Test
+    void modoPipeline() throws Exception {
+        Resultado resultado = ejecutar(ModoInscripcion.PIPELINE);
+        comprobarCapacidad(resultado);
+        // Los lotes agrupan varias inscripciones por transacción
+        assertTrue(resultado.transacciones < CLIENTES, "Transacciones: " + resultado.transacciones);
+        // Vaciadas las colas, sus escritores las retiran y no queda una por curso
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getColas() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pipeline.getColas());
+    }
+
+    @Test
+    void losFuturosSeCompletanSinElCerrojoDelCurso() throws Exception {
+        inscripcionService.setModo(ModoInscripcion.PIPELINE);
+        Curso curso = cursoRepository.findAll().get(0);
+        List<Usuario> usuarios = usuarioRepository.findAll();
+
+        // Lo encadenado al futuro (lista de espera, redirección, admisión) no debe retener el curso
+        ReentrantLock cerrojo = (ReentrantLock) cerrojos.de(curso.getId());
+        List<CompletableFuture<Boolean>> conCerrojo = new ArrayList<>();
+        for (int i = 0; i < CAPACIDAD + 5; i++) {
+            conCerrojo.add(inscripcionService.inscribirUsuarioAsync(usuarios.get(i), curso)
+                .handle((ok, error) -> cerrojo.isHeldByCurrentThread()));
+        }
+        for (CompletableFuture<Boolean> futuro : conCerrojo) {
+            assertFalse(futuro.get(1, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    void alDetenerseSeRechazaLoQueSigueEncolado() throws Exception {
+        // Pipeline propio con una espera de lote muy larga: nada llega a escribirse
+        InscripcionPipeline propio = new InscripcionPipeline(
+            contexto.getBean(InscripcionRepository.class), cursoRepository, usuarioRepository,
+            contexto.getBean(PlatformTransactionManager.class), cerrojos, contexto.getBean(CacheCursos.class),
+            contexto.getBean(VersionesCursos.class), contexto.getBean(AvisosPlazas.class),
+            contexto.getBean(DiarioInscripciones.class), contexto.getBean(ListaEsperaService.class),
+            1, 100, 100, TimeUnit.MINUTES.toMicros(1));
+        Curso curso = cursoRepository.findAll().get(0);
+        List<Usuario> usuarios = usuarioRepository.findAll();
+        CompletableFuture<Void> primera = propio.encolar(usuarios.get(0).getId(), curso);
+        CompletableFuture<Void> segunda = propio.encolar(usuarios.get(1).getId(), curso);
+
+        propio.detener();
+        CompletableFuture<Void> tardia = propio.encolar(usuarios.get(2).getId(), curso);
+
+        for (CompletableFuture<Void> futuro : List.of(primera, segunda, tardia)) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> futuro.get(1, TimeUnit.SECONDS));
+            assertEquals(InscripcionPipeline.MENSAJE_REINTENTAR, error.getCause().getMessage());
+        }
+        assertEquals(0, propio.getPendientes());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from inscripciones", Integer.class));
+    }
+
+    private Resultado ejecutar(ModoInscripcion modo) throws Exception {
+        inscripcionService.setModo(modo);
+        List<Usuario> usuarios = usuarioRepository.findAll();
+        List<Curso> cursos = cursoRepository.findAll();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        long[] latencias = new long[CLIENTES];
+        AtomicInteger aceptadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> clientes = new ArrayList<>();
+        for (int i = 0; i < CLIENTES; i++) {
+            int cliente = i;
+            Thread hilo = new Thread(() -> {
+                try {
+                    salida.await();
+                    long inicio = System.nanoTime();
+                    CompletableFuture<Void> futuro = inscripcionService.inscribirUsuarioAsync(
+                        usuarios.get(cliente), cursos.get(cliente % CURSOS));
+                    try {
+                        futuro.get(1, TimeUnit.MINUTES);
+                        aceptadas.incrementAndGet();
+                    } catch (ExecutionException e) {
+                        // Curso lleno: también cuenta para la latencia
+                    }
+                    latencias[cliente] = System.nanoTime() - inicio;
+                } catch (Exception e) {
+                    latencias[cliente] = Long.MAX_VALUE;
+                }
+            });
+            clientes.add(hilo);
+            hilo.start();
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        for (Thread hilo : clientes) {
+            hilo.join(TimeUnit.MINUTES.toMillis(2));
+        }
+        long duracionMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+
+        List<Long> ordenadas = new ArrayList<>();
+        for (long latencia : latencias) {
+            ordenadas.add(latencia);
+        }
+        Collections.sort(ordenadas);
+        long p99Ms = TimeUnit.NANOSECONDS.toMillis(ordenadas.get((int) Math.ceil(CLIENTES * 0.99) - 1));
+
+        Resultado resultado = new Resultado(aceptadas.get(), estadisticas.getSuccessfulTransactionCount());
+        log.debug("Modo {}: {} clientes, {} inscripciones en {} ms ({} inscripciones/s), " +
+                  "{} transacciones ({} commits/s), p99 {} ms",
+            modo, CLIENTES, resultado.aceptadas, duracionMs, resultado.aceptadas * 1000L / duracionMs,
+            resultado.transacciones, resultado.transacciones * 1000L / duracionMs, p99Ms);
+        return resultado;
+    }
+
+    private void comprobarCapacidad(Resultado resultado) {
+        assertEquals(CURSOS * CAPACIDAD, resultado.aceptadas);
+        Integer filas = jdbcTemplate.queryForObject("select count(*) from inscripciones", Integer.class);
+        assertEquals(CURSOS * CAPACIDAD, filas);
+        Integer sobrevendidos = jdbcTemplate.queryForObject(
+            "select count(*) from cursos c where c.inscritos > c.capacidad " +
+            "or c.inscritos <> (select count(*) from inscripciones i where i.curso_id = c.id)", Integer.class);
+        assertEquals(0, sobrevendidos);
+    }
+
+    private static final class Resultado {
+        private final int aceptadas;
+        private final long transacciones;
+
+        private Resultado(int aceptadas, long transacciones) {
+            this.aceptadas = aceptadas;
+            this.transacciones = transacciones;
+        }
+    }
+}
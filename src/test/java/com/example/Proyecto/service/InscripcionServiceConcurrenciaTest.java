@@ -0,0 +1,169 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.CursoRepository;
+import com.example.Proyecto.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lanza miles de inscripciones simultáneas contra cursos pequeños y comprueba
+ * que nunca se supera la capacidad ni se duplican inscripciones.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:inscripcion_concurrente;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false"
+})
+class InscripcionServiceConcurrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InscripcionServiceConcurrenciaTest.class);
+
+    private static final int USUARIOS = 400;
+    private static final int CURSOS = 8;
+    private static final int CAPACIDAD = 5;
+    private static final int HILOS = 200;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios.add(new Object[]{"alumno" + i, "{noop}clave", "alumno" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+
+        for (int i = 0; i < CURSOS; i++) {
+            jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)",
+                "Curso " + i, "Instructor", CAPACIDAD);
+        }
+    }
+
+    @Test
+    void inscripcionesConcurrentesNoSuperanLaCapacidad() throws Exception {
+        List<Usuario> usuarios = usuarioRepository.findAll();
+        List<Curso> cursos = cursoRepository.findAll();
+
+        // Cada usuario intenta inscribirse en dos cursos y repite uno de ellos (doble clic)
+        List<Runnable> peticiones = new ArrayList<>();
+        AtomicInteger aceptadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            Curso primero = cursos.get(i % CURSOS);
+            Curso segundo = cursos.get((i + 1) % CURSOS);
+            for (Curso curso : new Curso[]{primero, segundo, primero}) {
+                peticiones.add(() -> {
+                    try {
+                        inscripcionService.inscribirUsuario(usuario, curso);
+                        aceptadas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                });
+            }
+        }
+        assertTrue(peticiones.size() >= 1000);
+
+        long duracion = ejecutarEnParalelo(peticiones);
+
+        assertEquals(peticiones.size(), aceptadas.get() + rechazadas.get());
+        assertEquals(CURSOS * CAPACIDAD, aceptadas.get());
+
+        List<Map<String, Object>> porCurso = jdbcTemplate.queryForList(
+            "select c.id, c.capacidad, c.inscritos, (select count(*) from inscripciones i where i.curso_id = c.id) as filas " +
+            "from cursos c");
+        for (Map<String, Object> fila : porCurso) {
+            int capacidad = ((Number) fila.get("CAPACIDAD")).intValue();
+            int inscritos = ((Number) fila.get("INSCRITOS")).intValue();
+            int filas = ((Number) fila.get("FILAS")).intValue();
+            assertTrue(filas <= capacidad, "Curso sobrevendido: " + fila);
+            assertEquals(filas, inscritos, "Contador desincronizado: " + fila);
+        }
+
+        Integer duplicadas = jdbcTemplate.queryForObject(
+            "select count(*) from (select usuario_id, curso_id from inscripciones " +
+            "group by usuario_id, curso_id having count(*) > 1)", Integer.class);
+        assertEquals(0, duplicadas);
+
+        log.debug("Inscripción concurrente: {} peticiones con {} hilos en {} ms ({} peticiones/s)",
+            peticiones.size(), HILOS, duracion, peticiones.size() * 1000L / Math.max(1, duracion));
+    }
+
+    @Test
+    void cancelarYVolverAInscribirseMantieneElContador() throws Exception {
+        List<Usuario> usuarios = usuarioRepository.findAll().subList(0, CAPACIDAD);
+        Curso curso = cursoRepository.findAll().get(0);
+
+        List<Runnable> peticiones = new ArrayList<>();
+        for (Usuario usuario : usuarios) {
+            peticiones.add(() -> {
+                for (int i = 0; i < 20; i++) {
+                    inscripcionService.inscribirUsuario(usuario, curso);
+                    inscripcionService.removerInscripcion(usuario, curso);
+                }
+                inscripcionService.inscribirUsuario(usuario, curso);
+            });
+        }
+        ejecutarEnParalelo(peticiones);
+
+        assertEquals(CAPACIDAD, cursoRepository.findById(curso.getId()).orElseThrow().getInscritos());
+        assertEquals(CAPACIDAD, jdbcTemplate.queryForObject("select count(*) from inscripciones where curso_id = ?",
+                                                            Integer.class, curso.getId()));
+        assertEquals(0, inscripcionService.reconciliarContadores());
+    }
+
+    private static long ejecutarEnParalelo(List<Runnable> tareas) throws InterruptedException {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(tareas.size());
+        for (Runnable tarea : tareas) {
+            ejecutor.execute(() -> {
+                try {
+                    salida.await();
+                    tarea.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fin.countDown();
+                }
+            });
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        assertTrue(fin.await(2, TimeUnit.MINUTES), "Las inscripciones no terminaron a tiempo");
+        ejecutor.shutdown();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+}
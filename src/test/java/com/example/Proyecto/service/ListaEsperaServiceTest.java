@@ -0,0 +1,287 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.entity.Curso;
+import com.example.Proyecto.entity.Usuario;
+import com.example.Proyecto.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la lista de espera: orden de llegada, que nadie se cuela por delante de la
+ * cola, que cancelar no promueve en el hilo de la petición y el rendimiento de la
+ * promoción por lotes con cancelaciones continuas.
+ * Las tareas programadas se retrasan para promover de forma determinista desde el test.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:lista_espera;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "cursos.espera.promocion-inicial-ms=3600000",
+    "cursos.espera.barrido-inicial-ms=3600000"
+})
+class ListaEsperaServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ListaEsperaServiceTest.class);
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private InscripcionService inscripcionService;
+
+    @Autowired
+    private CursoService cursoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from lista_espera");
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+        listaEsperaService.limpiar();
+    }
+
+    @Test
+    void promueveEnOrdenDeLlegadaSinColarse() {
+        crearUsuarios(13);
+        Long cursoId = crearCursos(1, 1).get(0);
+
+        assertEquals(EstadoInscripcion.INSCRITO, inscribir("alumno0", cursoId));
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(EstadoInscripcion.EN_ESPERA, inscribir("alumno" + i, cursoId));
+            assertEquals(i, listaEsperaService.posicion(id("alumno" + i), cursoId));
+        }
+        // Repetir la petición no cambia el sitio en la cola
+        assertEquals(EstadoInscripcion.EN_ESPERA, inscribir("alumno3", cursoId));
+        assertEquals(3, listaEsperaService.posicion(id("alumno3"), cursoId));
+
+        // Cancelar libera la plaza pero no promueve a nadie en el hilo de la petición
+        inscripcionService.removerInscripcion(usuario("alumno0"), cursoService.referenciaPorId(cursoId));
+        assertEquals(0, inscritos(cursoId).size());
+
+        // La plaza libre es de la cola: quien llega ahora se apunta al final
+        assertEquals(EstadoInscripcion.EN_ESPERA, inscribir("alumno11", cursoId));
+        assertEquals(11, listaEsperaService.posicion(id("alumno11"), cursoId));
+
+        assertEquals(1, listaEsperaService.promoverPendientes());
+        assertEquals(nombres("alumno1"), inscritos(cursoId));
+
+        // Más capacidad: las plazas nuevas se reparten por orden de llegada
+        ampliarCapacidad(cursoId, 6);
+        assertEquals(5, listaEsperaService.promoverPendientes());
+        assertEquals(nombres("alumno1", "alumno2", "alumno3", "alumno4", "alumno5", "alumno6"), inscritos(cursoId));
+
+        // Salir de la cola adelanta a los siguientes
+        listaEsperaService.salir(id("alumno7"), cursoId);
+        assertEquals(1, listaEsperaService.posicion(id("alumno8"), cursoId));
+
+        ampliarCapacidad(cursoId, 100);
+        assertEquals(4, listaEsperaService.promoverPendientes());
+        assertFalse(listaEsperaService.tieneEspera(cursoId));
+
+        // Con la cola vacía se vuelve a inscribir directamente
+        assertEquals(EstadoInscripcion.INSCRITO, inscribir("alumno12", cursoId));
+        assertEquals(nombres("alumno1", "alumno2", "alumno3", "alumno4", "alumno5", "alumno6",
+                             "alumno8", "alumno9", "alumno10", "alumno11", "alumno12"), inscritos(cursoId));
+        comprobarContadores();
+    }
+
+    @Test
+    void unaSolicitudDeshechaNoDesviaLasInscripciones() {
+        crearUsuarios(2);
+        Long cursoId = crearCursos(1, 1).get(0);
+
+        // La solicitud se apunta dentro de una transacción que acaba deshaciéndose
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            listaEsperaService.apuntar(id("alumno0"), cursoId);
+            assertFalse(listaEsperaService.tieneEspera(cursoId));
+            estado.setRollbackOnly();
+        });
+        assertFalse(listaEsperaService.tieneEspera(cursoId));
+        assertEquals(0, listaEsperaService.posicion(id("alumno0"), cursoId));
+
+        // Sin cola real la plaza libre se ocupa directamente
+        assertEquals(EstadoInscripcion.INSCRITO, inscribir("alumno1", cursoId));
+        comprobarContadores();
+    }
+
+    @Test
+    void promueveEnLotesBajoCancelacionesContinuas() {
+        final int cursos = 8;
+        final int capacidad = 300;
+        final int enEspera = 1_000;
+        final int rondas = 3;
+        final int cancelacionesPorCurso = 90;
+
+        List<Long> usuarioIds = crearUsuarios(capacidad + enEspera);
+        List<Long> cursoIds = crearCursos(cursos, capacidad);
+        List<Object[]> inscripciones = new ArrayList<>();
+        List<Object[]> solicitudes = new ArrayList<>();
+        for (Long cursoId : cursoIds) {
+            for (int i = 0; i < capacidad; i++) {
+                inscripciones.add(new Object[]{usuarioIds.get(i), cursoId});
+            }
+            for (int i = capacidad; i < capacidad + enEspera; i++) {
+                solicitudes.add(new Object[]{usuarioIds.get(i), cursoId});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                                 "values (next value for inscripciones_seq, ?, ?, current_timestamp)", inscripciones);
+        jdbcTemplate.batchUpdate("insert into lista_espera (id, usuario_id, curso_id, fecha_solicitud) " +
+                                 "values (next value for lista_espera_seq, ?, ?, current_timestamp)", solicitudes);
+        jdbcTemplate.update("update cursos set inscritos = capacidad");
+        // Las colas se han cargado fuera de la aplicación: el barrido las detecta
+        listaEsperaService.barrer();
+        assertEquals(0, listaEsperaService.promoverPendientes());
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long nanosCancelando = 0;
+        long nanosPromoviendo = 0;
+        long sentenciasPromocion = 0;
+        int promovidos = 0;
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            long inicio = System.nanoTime();
+            for (Long cursoId : cursoIds) {
+                // Cancelan los inscritos iniciales, no los recién promovidos
+                List<Long> primeros = jdbcTemplate.queryForList(
+                    "select usuario_id from inscripciones where curso_id = ? and usuario_id < ? order by id limit ?",
+                    Long.class, cursoId, usuarioIds.get(capacidad), cancelacionesPorCurso);
+                for (Long usuarioId : primeros) {
+                    inscripcionService.removerInscripcion(usuarioRepository.getReferenceById(usuarioId),
+                                                          cursoService.referenciaPorId(cursoId));
+                }
+            }
+            nanosCancelando += System.nanoTime() - inicio;
+            // Ninguna plaza se ha ocupado todavía: la promoción no va en la cancelación
+            assertEquals(cursos * (capacidad - cancelacionesPorCurso), contarInscripciones());
+
+            estadisticas.clear();
+            inicio = System.nanoTime();
+            promovidos += listaEsperaService.promoverPendientes();
+            nanosPromoviendo += System.nanoTime() - inicio;
+            sentenciasPromocion += estadisticas.getPrepareStatementCount();
+            assertEquals(cursos * capacidad, contarInscripciones());
+        }
+
+        int cancelaciones = rondas * cursos * cancelacionesPorCurso;
+        long promovidosPorSegundo = promovidos * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanosPromoviendo);
+        log.debug("Lista de espera: {} cancelaciones ({} µs de media), {} promovidos en {} ms " +
+                  "({}/s), {} sentencias preparadas",
+            cancelaciones, nanosCancelando / 1_000 / cancelaciones, promovidos,
+            TimeUnit.NANOSECONDS.toMillis(nanosPromoviendo), promovidosPorSegundo, sentenciasPromocion);
+
+        assertEquals(cancelaciones, promovidos);
+        // Por lotes: unas pocas sentencias por curso y lote, no varias por usuario promovido
+        assertTrue(sentenciasPromocion < promovidos / 5, "Sentencias: " + sentenciasPromocion);
+        // Suelo holgado para máquinas de integración lentas
+        assertTrue(promovidosPorSegundo >= 500, "Promovidos/s: " + promovidosPorSegundo);
+
+        // Cada curso ha promovido exactamente a los primeros de su cola, en orden
+        List<Long> esperados = usuarioIds.subList(capacidad, capacidad + rondas * cancelacionesPorCurso);
+        for (Long cursoId : cursoIds) {
+            List<Long> promovidosCurso = jdbcTemplate.queryForList(
+                "select usuario_id from inscripciones where curso_id = ? and usuario_id >= ? order by id",
+                Long.class, cursoId, usuarioIds.get(capacidad));
+            assertEquals(esperados, promovidosCurso);
+            assertEquals(1, listaEsperaService.posicion(usuarioIds.get(capacidad + rondas * cancelacionesPorCurso), cursoId));
+        }
+        comprobarContadores();
+    }
+
+    private EstadoInscripcion inscribir(String username, Long cursoId) {
+        return inscripcionService.inscribirOEsperar(usuario(username), cursoService.referenciaPorId(cursoId)).join();
+    }
+
+    private void ampliarCapacidad(Long cursoId, int capacidad) {
+        Curso curso = cursoService.obtenerPorId(cursoId);
+        Curso editado = new Curso();
+        editado.setId(cursoId);
+        editado.setNombre(curso.getNombre());
+        editado.setInstructor(curso.getInstructor());
+        editado.setCapacidad(capacidad);
+        cursoService.actualizarCurso(editado);
+    }
+
+    private List<Long> crearUsuarios(int cantidad) {
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            usuarios.add(new Object[]{"alumno" + i, "{noop}clave", "alumno" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        return jdbcTemplate.queryForList("select id from usuarios order by id", Long.class);
+    }
+
+    private List<Long> crearCursos(int cantidad, int capacidad) {
+        List<Object[]> cursos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            cursos.add(new Object[]{"Curso " + i, "Instructor", capacidad});
+        }
+        jdbcTemplate.batchUpdate("insert into cursos (nombre, instructor, capacidad, inscritos) values (?, ?, ?, 0)", cursos);
+        return jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+    }
+
+    private Usuario usuario(String username) {
+        return usuarioRepository.getReferenceById(id(username));
+    }
+
+    private Long id(String username) {
+        return jdbcTemplate.queryForObject("select id from usuarios where username = ?", Long.class, username);
+    }
+
+    private List<String> inscritos(Long cursoId) {
+        return jdbcTemplate.queryForList("select u.username from inscripciones i join usuarios u on u.id = i.usuario_id " +
+                                         "where i.curso_id = ? order by i.id", String.class, cursoId);
+    }
+
+    private static List<String> nombres(String... usernames) {
+        return Arrays.asList(usernames);
+    }
+
+    private int contarInscripciones() {
+        return jdbcTemplate.queryForObject("select count(*) from inscripciones", Integer.class);
+    }
+
+    private void comprobarContadores() {
+        Integer descuadrados = jdbcTemplate.queryForObject(
+            "select count(*) from cursos c where c.inscritos > c.capacidad " +
+            "or c.inscritos <> (select count(*) from inscripciones i where i.curso_id = c.id)", Integer.class);
+        assertEquals(0, descuadrados);
+    }
+}
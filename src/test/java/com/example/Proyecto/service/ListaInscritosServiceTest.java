@@ -0,0 +1,137 @@
+package com.example.Proyecto.service;
+
+import com.example.Proyecto.dto.FormatoExportacion;
+import com.example.Proyecto.dto.InscritoResumen;
+import com.example.Proyecto.dto.PaginaInscritos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la paginación por cursor de los inscritos de un curso y la exportación
+ * en streaming (CSV y JSON Lines) de un curso y de todos los cursos.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:lista_inscritos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "cursos.detalle.inscritos-por-pagina=10"
+})
+class ListaInscritosServiceTest {
+
+    private static final int INSCRITOS = 25;
+
+    @Autowired
+    private ListaInscritosService listaInscritosService;
+
+    @Autowired
+    private CacheIdentidades cacheIdentidades;
+
+    @Autowired
+    private CacheCursos cacheCursos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long cursoId;
+    private Long otroCursoId;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate.update("delete from inscripciones");
+        jdbcTemplate.update("delete from cursos");
+        jdbcTemplate.update("delete from usuarios");
+        cacheIdentidades.limpiar();
+        cacheCursos.limpiar();
+
+        List<Object[]> usuarios = new ArrayList<>();
+        for (int i = 0; i < INSCRITOS; i++) {
+            usuarios.add(new Object[]{"alumno" + i, "{noop}clave", "alumno" + i + "@ejemplo.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into usuarios (username, password, email) values (?, ?, ?)", usuarios);
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Java, avanzado', 'Ana', 100, ?)", INSCRITOS);
+        jdbcTemplate.update("insert into cursos (nombre, instructor, capacidad, inscritos) values ('Otro', 'Luis', 100, 1)");
+        List<Long> cursos = jdbcTemplate.queryForList("select id from cursos order by id", Long.class);
+        cursoId = cursos.get(0);
+        otroCursoId = cursos.get(1);
+
+        List<Long> usuarioIds = jdbcTemplate.queryForList("select id from usuarios order by id", Long.class);
+        List<Object[]> inscripciones = new ArrayList<>();
+        for (Long usuarioId : usuarioIds) {
+            inscripciones.add(new Object[]{usuarioId, cursoId});
+        }
+        inscripciones.add(new Object[]{usuarioIds.get(0), otroCursoId});
+        jdbcTemplate.batchUpdate("insert into inscripciones (id, usuario_id, curso_id, fecha_inscripcion) " +
+                                 "values (next value for inscripciones_seq, ?, ?, current_timestamp)", inscripciones);
+    }
+
+    @Test
+    void recorrePaginasHaciaDelanteYHaciaAtras() {
+        PaginaInscritos primera = listaInscritosService.listarPorCurso(cursoId, null, null);
+        assertEquals(10, primera.getInscritos().size());
+        assertFalse(primera.isHayAnterior());
+        assertTrue(primera.isHaySiguiente());
+
+        Set<Long> vistos = new HashSet<>();
+        PaginaInscritos pagina = primera;
+        vistos.addAll(ids(pagina));
+        while (pagina.isHaySiguiente()) {
+            pagina = listaInscritosService.listarPorCurso(cursoId, pagina.getCursorSiguiente(), null);
+            assertTrue(pagina.isHayAnterior());
+            vistos.addAll(ids(pagina));
+        }
+        assertEquals(INSCRITOS, vistos.size());
+        assertEquals(5, pagina.getInscritos().size());
+
+        // Volviendo hacia atrás desde la última se llega a la segunda y después a la primera
+        PaginaInscritos segunda = listaInscritosService.listarPorCurso(cursoId, null, pagina.getCursorAnterior());
+        assertEquals(10, segunda.getInscritos().size());
+        assertTrue(segunda.isHayAnterior());
+        assertTrue(segunda.isHaySiguiente());
+        PaginaInscritos inicio = listaInscritosService.listarPorCurso(cursoId, null, segunda.getCursorAnterior());
+        assertEquals(ids(primera), ids(inicio));
+        assertFalse(inicio.isHayAnterior());
+    }
+
+    @Test
+    void exportaUnCursoEnCsvConCamposEntrecomillados() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        listaInscritosService.exportarCurso(cursoId, FormatoExportacion.CSV, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(INSCRITOS + 1, lineas.length);
+        assertEquals("curso_id,curso,usuario_id,username,email,fecha_inscripcion", lineas[0]);
+        assertTrue(lineas[1].startsWith(cursoId + ",\"Java, avanzado\","), lineas[1]);
+        assertTrue(lineas[1].contains(",alumno0,alumno0@ejemplo.com,"), lineas[1]);
+    }
+
+    @Test
+    void exportaTodosLosCursosEnJsonLines() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        listaInscritosService.exportarTodos(FormatoExportacion.JSONL, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(INSCRITOS + 1, lineas.length);
+        assertTrue(lineas[0].startsWith("{") && lineas[0].contains("\"cursoId\":" + cursoId), lineas[0]);
+        assertTrue(lineas[INSCRITOS].contains("\"cursoId\":" + otroCursoId), lineas[INSCRITOS]);
+    }
+
+    private static List<Long> ids(PaginaInscritos pagina) {
+        List<Long> ids = new ArrayList<>();
+        for (InscritoResumen inscrito : pagina.getInscritos()) {
+            ids.add(inscrito.getId());
+        }
+        return ids;
+    }
+}
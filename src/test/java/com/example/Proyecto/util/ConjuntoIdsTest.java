@@ -0,0 +1,49 @@
+package com.example.Proyecto.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConjuntoIdsTest {
+
+    @Test
+    void conjuntoVacioNoContieneNada() {
+        ConjuntoIds vacio = ConjuntoIds.de(new ArrayList<>());
+        assertTrue(vacio.isVacio());
+        assertFalse(vacio.contiene(1L));
+        assertFalse(vacio.contiene((Long) null));
+    }
+
+    @Test
+    void ignoraDuplicadosYAdmiteCero() {
+        ConjuntoIds ids = ConjuntoIds.de(Arrays.asList(0L, 5L, 5L, 7L, null));
+        assertEquals(3, ids.getTamano());
+        assertTrue(ids.contiene(0L));
+        assertTrue(ids.contiene(5L));
+        assertTrue(ids.contiene(Long.valueOf(7L)));
+        assertFalse(ids.contiene(6L));
+    }
+
+    @Test
+    void coincideConHashSetParaIdsAleatorios() {
+        Random aleatorio = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add((long) aleatorio.nextInt(20_000) + 1);
+        }
+        Set<Long> esperado = new HashSet<>(ids);
+        ConjuntoIds conjunto = ConjuntoIds.de(ids);
+
+        assertEquals(esperado.size(), conjunto.getTamano());
+        for (long id = -10; id <= 20_010; id++) {
+            assertEquals(esperado.contains(id), conjunto.contiene(id), "id " + id);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.Proyecto.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiarioEventosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void reproduceEnOrdenEntreSegmentos() throws IOException {
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> fail())) {
+            for (int i = 0; i < 250; i++) {
+                assertEquals(i, diario.anadir(1 + i % 3, i, -i));
+            }
+            diario.sincronizar();
+            assertEquals(250, diario.getDurables());
+        }
+        assertEquals(3, segmentos().size());
+
+        List<long[]> eventos = new ArrayList<>();
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> eventos.add(new long[] {tipo, a, b}))) {
+            assertEquals(250, diario.getEscritos());
+        }
+        assertEquals(250, eventos.size());
+        for (int i = 0; i < 250; i++) {
+            assertArrayEquals(new long[] {1 + i % 3, i, -i}, eventos.get(i));
+        }
+
+        // Desde una secuencia intermedia y siguiendo a continuación
+        List<Long> desde = new ArrayList<>();
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 120, (tipo, a, b) -> desde.add(a))) {
+            assertEquals(250, diario.anadir(1, 250, 0));
+        }
+        assertEquals(130, desde.size());
+        assertEquals(120L, desde.get(0));
+        List<Long> todos = new ArrayList<>();
+        DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> todos.add(a)).close();
+        assertEquals(251, todos.size());
+        assertEquals(250L, todos.get(250));
+    }
+
+    @Test
+    void unaEscrituraCortadaMarcaElFinal() throws IOException {
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> fail())) {
+            for (int i = 0; i < 10; i++) {
+                diario.anadir(1, i, i);
+            }
+        }
+        // Registro 7 a medias y restos de escrituras posteriores
+        try (FileChannel canal = FileChannel.open(segmentos().get(0), StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[] {42}), 7 * DiarioEventos.TAMANO_REGISTRO + 6);
+        }
+
+        List<Long> eventos = new ArrayList<>();
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> eventos.add(a))) {
+            assertEquals(7, diario.getEscritos());
+            assertEquals(7, diario.anadir(2, 70, 70));
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L), eventos);
+
+        // Los registros 8 y 9 se pusieron a cero: no reaparecen detrás del nuevo
+        List<Long> despues = new ArrayList<>();
+        DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> despues.add(a)).close();
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 70L), despues);
+    }
+
+    @Test
+    void losEscritoresConcurrentesCompartenElFsync() throws Exception {
+        int hilos = 8;
+        int porHilo = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 1000, 0, (tipo, a, b) -> fail())) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                long hilo = h;
+                tareas.add(pool.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        diario.anadir(1, hilo, i);
+                        diario.sincronizar();
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            assertEquals(hilos * porHilo, diario.getDurables());
+            assertTrue(diario.getSincronizaciones() < hilos * porHilo,
+                       "fsync: " + diario.getSincronizaciones() + " para " + hilos * porHilo + " eventos");
+        } finally {
+            pool.shutdown();
+        }
+
+        long[] siguientes = new long[hilos];
+        DiarioEventos.abrir(directorio, 1000, 0, (tipo, a, b) -> assertEquals(siguientes[(int) a]++, b)).close();
+        for (long siguiente : siguientes) {
+            assertEquals(porHilo, siguiente);
+        }
+    }
+
+    @Test
+    void truncarBorraLosSegmentosCubiertos() throws IOException {
+        try (DiarioEventos diario = DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> fail())) {
+            for (int i = 0; i < 250; i++) {
+                diario.anadir(1, i, i);
+            }
+            assertEquals(1, diario.truncarHasta(150));
+            assertEquals(1, diario.truncarHasta(250));
+        }
+        assertEquals(1, segmentos().size());
+
+        List<Long> eventos = new ArrayList<>();
+        DiarioEventos.abrir(directorio, 100, 230, (tipo, a, b) -> eventos.add(a)).close();
+        assertEquals(20, eventos.size());
+        assertThrows(IllegalStateException.class, () -> DiarioEventos.abrir(directorio, 100, 0, (tipo, a, b) -> { }));
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            List<Path> segmentos = new ArrayList<>();
+            ficheros.filter(f -> f.getFileName().toString().endsWith(".seg")).sorted().forEach(segmentos::add);
+            return segmentos;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.Proyecto.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroBloomTest {
+
+    @Test
+    void noDaFalsosNegativos() {
+        FiltroBloom filtro = FiltroBloom.paraElementos(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.anadir("usuario" + i + "@ejemplo.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.podriaContener("usuario" + i + "@ejemplo.com"));
+        }
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercanaALaConfigurada() {
+        FiltroBloom filtro = FiltroBloom.paraElementos(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filtro.anadir("alumno" + i);
+        }
+        int falsosPositivos = 0;
+        int pruebas = 100_000;
+        for (int i = 0; i < pruebas; i++) {
+            if (filtro.podriaContener("ausente" + i)) {
+                falsosPositivos++;
+            }
+        }
+        double tasa = (double) falsosPositivos / pruebas;
+        assertTrue(tasa < 0.015, "Tasa de falsos positivos demasiado alta: " + tasa);
+        assertEquals(0.5, filtro.getOcupacion(), 0.05);
+    }
+
+    @Test
+    void distingueMayusculasYAcentos() {
+        FiltroBloom filtro = FiltroBloom.paraElementos(100, 0.001);
+        filtro.anadir("José");
+        assertTrue(filtro.podriaContener("José"));
+        assertFalse(filtro.podriaContener("Jose"));
+        assertFalse(filtro.podriaContener("josé"));
+    }
+
+    @Test
+    void rechazaParametrosNoValidos() {
+        assertThrows(IllegalArgumentException.class, () -> FiltroBloom.paraElementos(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> FiltroBloom.paraElementos(100, 1));
+    }
+}